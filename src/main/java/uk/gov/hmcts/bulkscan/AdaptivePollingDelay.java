@@ -0,0 +1,81 @@
+package uk.gov.hmcts.bulkscan;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Works out how long to wait before polling bulk scan for new envelopes again.
+ *
+ * <p>
+ * The delay backs off exponentially while there is nothing to process or the server is failing,
+ * drops back to the minimum as soon as envelopes are found, and is skipped entirely when the
+ * previous batch was full so a backlog is drained without waiting.
+ * Random jitter is applied so replicas do not poll in lockstep.
+ * </p>
+ */
+@Component
+public class AdaptivePollingDelay {
+
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+    private final double multiplier;
+    private final double jitter;
+    private final int fullBatchSize;
+
+    private final AtomicLong currentDelayMillis;
+
+    public AdaptivePollingDelay(
+        @Value("${bulk-scan.poll.min-delay-millis:1000}") long minDelayMillis,
+        @Value("${bulk-scan.poll.max-delay-millis:60000}") long maxDelayMillis,
+        @Value("${bulk-scan.poll.backoff-multiplier:2}") double multiplier,
+        @Value("${bulk-scan.poll.jitter:0.1}") double jitter,
+        @Value("${bulk-scan.poll.full-batch-size:100}") int fullBatchSize
+    ) {
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = Math.max(minDelayMillis, maxDelayMillis);
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.fullBatchSize = fullBatchSize;
+        this.currentDelayMillis = new AtomicLong(minDelayMillis);
+    }
+
+    public void onEnvelopesFound(int count) {
+        currentDelayMillis.set(count >= fullBatchSize ? 0 : minDelayMillis);
+    }
+
+    public void onEmptyPoll() {
+        backOff();
+    }
+
+    public void onError() {
+        backOff();
+    }
+
+    public long getCurrentDelayMillis() {
+        return currentDelayMillis.get();
+    }
+
+    /**
+     * Delay before the next poll, with jitter applied.
+     *
+     * @return delay in milliseconds, 0 to poll again straight away
+     */
+    public long nextDelayMillis() {
+        long delay = currentDelayMillis.get();
+        if (delay == 0 || jitter <= 0) {
+            return delay;
+        }
+
+        double spread = delay * jitter;
+        return Math.max(0, Math.round(delay + ThreadLocalRandom.current().nextDouble(-spread, spread)));
+    }
+
+    private void backOff() {
+        currentDelayMillis.updateAndGet(
+            delay -> Math.min(maxDelayMillis, Math.max(minDelayMillis, (long) (delay * multiplier)))
+        );
+    }
+}
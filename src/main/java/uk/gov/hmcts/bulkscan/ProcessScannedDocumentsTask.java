@@ -1,36 +1,97 @@
 package uk.gov.hmcts.bulkscan;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.TriggerContext;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.stereotype.Component;
 import uk.gov.hmcts.bulkscan.exception.BulkScanServerException;
 import uk.gov.hmcts.bulkscan.service.BulkScanClientService;
+import uk.gov.hmcts.bulkscan.type.BulkScanEnvelope;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 @Slf4j
-public class ProcessScannedDocumentsTask implements Runnable {
+public class ProcessScannedDocumentsTask implements Runnable, SchedulingConfigurer {
+
+    private static final String POLLS_METRIC = "bulk_scan.polls";
 
     private final BulkScanClientService bulkscanBulkScanClientService;
 
     private final String serviceName;
 
+    private final AdaptivePollingDelay pollingDelay;
+
+    private final Counter envelopesFoundPolls;
+    private final Counter emptyPolls;
+    private final Counter failedPolls;
+
+    private final AtomicLong pollCount = new AtomicLong();
+    private final AtomicLong emptyPollCount = new AtomicLong();
+
+    /**
+     * Kept for services building the task themselves. It polls every second, as it did before the delay adapted to
+     * the polls, and its meters are registered with the global registry.
+     *
+     * @param bulkscanBulkScanClientService client service polling and processing the envelopes
+     * @param serviceName                   service the envelopes are polled for
+     * @deprecated the task is meant to be created by Spring, which configures it from the bulk-scan properties
+     */
+    @Deprecated
+    public ProcessScannedDocumentsTask(BulkScanClientService bulkscanBulkScanClientService, String serviceName) {
+        this(
+            bulkscanBulkScanClientService,
+            serviceName,
+            new AdaptivePollingDelay(1000, 1000, 1, 0, Integer.MAX_VALUE),
+            Metrics.globalRegistry
+        );
+    }
+
+    @Autowired
     public ProcessScannedDocumentsTask(BulkScanClientService bulkscanBulkScanClientService,
-                                       @Value("${bulk-scan.service-name}") String serviceName) {
+                                       @Value("${bulk-scan.service-name}") String serviceName,
+                                       AdaptivePollingDelay pollingDelay,
+                                       MeterRegistry meterRegistry) {
         this.bulkscanBulkScanClientService = bulkscanBulkScanClientService;
         this.serviceName = serviceName;
+        this.pollingDelay = pollingDelay;
+
+        this.envelopesFoundPolls = pollCounter(meterRegistry, "envelopes");
+        this.emptyPolls = pollCounter(meterRegistry, "empty");
+        this.failedPolls = pollCounter(meterRegistry, "error");
+        Gauge.builder("bulk_scan.polls.empty.ratio", this, ProcessScannedDocumentsTask::getEmptyPollRatio)
+            .tag("service", serviceName)
+            .description("Share of polls which returned no envelopes")
+            .register(meterRegistry);
+        Gauge.builder("bulk_scan.poll.delay", pollingDelay, AdaptivePollingDelay::getCurrentDelayMillis)
+            .tag("service", serviceName)
+            .baseUnit("milliseconds")
+            .description("Current delay between polls, before jitter")
+            .register(meterRegistry);
     }
 
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addTriggerTask(this, this::nextExecutionTime);
+    }
 
     @Override
-    @Scheduled(fixedDelay = 1000)
     public void run() {
         log.info("ProcessScannedDocumentsTask scheduled task started");
 
         try {
             bulkscanBulkScanClientService.processEnvelopes(
                 serviceName,
-                bulkscanBulkScanClientService.getNewScanList(serviceName)
+                poll()
             );
 
         } catch (BulkScanServerException e) {
@@ -39,4 +100,45 @@ public class ProcessScannedDocumentsTask implements Runnable {
 
         log.info("ProcessScannedDocumentsTask scheduled task complete.");
     }
+
+    public double getEmptyPollRatio() {
+        long polls = pollCount.get();
+        return polls == 0 ? 0 : (double) emptyPollCount.get() / polls;
+    }
+
+    private List<BulkScanEnvelope> poll() {
+        pollCount.incrementAndGet();
+        List<BulkScanEnvelope> envelopes;
+        try {
+            envelopes = bulkscanBulkScanClientService.getNewScanList(serviceName);
+        } catch (RuntimeException e) {
+            failedPolls.increment();
+            pollingDelay.onError();
+            throw e;
+        }
+
+        if (envelopes.isEmpty()) {
+            emptyPollCount.incrementAndGet();
+            emptyPolls.increment();
+            pollingDelay.onEmptyPoll();
+        } else {
+            envelopesFoundPolls.increment();
+            pollingDelay.onEnvelopesFound(envelopes.size());
+        }
+        return envelopes;
+    }
+
+    private Date nextExecutionTime(TriggerContext triggerContext) {
+        Date lastCompletion = triggerContext.lastCompletionTime();
+        long from = lastCompletion == null ? System.currentTimeMillis() : lastCompletion.getTime();
+        return new Date(from + pollingDelay.nextDelayMillis());
+    }
+
+    private Counter pollCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(POLLS_METRIC)
+            .tag("service", serviceName)
+            .tag("outcome", outcome)
+            .description("Polls for new envelopes by outcome")
+            .register(meterRegistry);
+    }
 }
@@ -0,0 +1,26 @@
+package uk.gov.hmcts.bulkscan.blob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Access to the zip file of an envelope, either as a sequential download or with random access.
+ */
+public interface EnvelopeBlobSource {
+
+    /**
+     * Opens the blob for random access, e.g. to read the zip central directory.
+     *
+     * @return read only channel over the blob
+     */
+    SeekableByteChannel openChannel() throws IOException;
+
+    /**
+     * Opens the blob for reading from start to end.
+     * Implementations resume an interrupted download where it stopped when they can.
+     *
+     * @return buffered stream of the blob content
+     */
+    InputStream openStream() throws IOException;
+}
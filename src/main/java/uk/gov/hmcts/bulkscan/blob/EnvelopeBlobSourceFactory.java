@@ -0,0 +1,81 @@
+package uk.gov.hmcts.bulkscan.blob;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.bulkscan.http.BulkScanHttpTransport;
+import uk.gov.hmcts.bulkscan.type.BulkScanEnvelope;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Path;
+
+@Component
+public class EnvelopeBlobSourceFactory {
+
+    private static final int KB = 1024;
+
+    private final BulkScanHttpTransport transport;
+    private final int blockSize;
+    private final int cachedBlocks;
+    private final int bufferSize;
+    private final int maxResumeAttempts;
+
+    private final Timer downloadTime;
+    private final DistributionSummary downloadSize;
+
+    public EnvelopeBlobSourceFactory(
+        BulkScanHttpTransport transport,
+        MeterRegistry meterRegistry,
+        @Value("${bulk-scan.service-name}") String serviceName,
+        @Value("${bulk-scan.blob.block-size-kb:64}") int blockSizeKb,
+        @Value("${bulk-scan.blob.cached-blocks:16}") int cachedBlocks,
+        @Value("${bulk-scan.blob.buffer-size-kb:64}") int bufferSizeKb,
+        @Value("${bulk-scan.blob.max-resume-attempts:3}") int maxResumeAttempts
+    ) {
+        this.transport = transport;
+        this.blockSize = blockSizeKb * KB;
+        this.cachedBlocks = cachedBlocks;
+        this.bufferSize = bufferSizeKb * KB;
+        this.maxResumeAttempts = maxResumeAttempts;
+
+        this.downloadTime = Timer.builder("bulk_scan.envelope.download")
+            .tag("service", serviceName)
+            .description("Time envelope zip files were being downloaded for, including their processing while streamed")
+            .register(meterRegistry);
+        this.downloadSize = DistributionSummary.builder("bulk_scan.envelope.download.size")
+            .tag("service", serviceName)
+            .baseUnit("bytes")
+            .description("Bytes read from each download of an envelope zip file")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Creates the source for the zip file of the envelope, local files are read directly.
+     *
+     * @param envelope envelope to read
+     * @return source of the envelope zip file
+     * @throws MalformedURLException if the envelope url is invalid
+     */
+    public EnvelopeBlobSource create(BulkScanEnvelope envelope) throws MalformedURLException {
+        URL url = new URL(envelope.getUrl());
+
+        EnvelopeBlobSource blobSource;
+        if ("file".equals(url.getProtocol())) {
+            blobSource = new LocalFileEnvelopeBlobSource(Path.of(url.getPath()), bufferSize);
+        } else {
+            blobSource = new HttpEnvelopeBlobSource(
+                transport,
+                url,
+                envelope.getContentLength(),
+                blockSize,
+                cachedBlocks,
+                bufferSize,
+                maxResumeAttempts
+            );
+        }
+        return new MeteredEnvelopeBlobSource(blobSource, downloadTime, downloadSize);
+    }
+}
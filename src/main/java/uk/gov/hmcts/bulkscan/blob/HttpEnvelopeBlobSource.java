@@ -0,0 +1,52 @@
+package uk.gov.hmcts.bulkscan.blob;
+
+import uk.gov.hmcts.bulkscan.http.BulkScanHttpTransport;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Blob served over HTTP. Random access goes through range requests with a small block cache,
+ * downloads resume from the last byte received when the connection breaks.
+ */
+public class HttpEnvelopeBlobSource implements EnvelopeBlobSource {
+
+    private final BulkScanHttpTransport transport;
+    private final URI uri;
+    private final long size;
+    private final int blockSize;
+    private final int cachedBlocks;
+    private final int bufferSize;
+    private final int maxResumeAttempts;
+
+    public HttpEnvelopeBlobSource(
+        BulkScanHttpTransport transport,
+        URL url,
+        long size,
+        int blockSize,
+        int cachedBlocks,
+        int bufferSize,
+        int maxResumeAttempts
+    ) {
+        this.transport = transport;
+        this.uri = URI.create(url.toString());
+        this.size = size;
+        this.blockSize = blockSize;
+        this.cachedBlocks = cachedBlocks;
+        this.bufferSize = bufferSize;
+        this.maxResumeAttempts = maxResumeAttempts;
+    }
+
+    @Override
+    public SeekableByteChannel openChannel() {
+        return new HttpRangeChannel(transport, uri, size, blockSize, cachedBlocks);
+    }
+
+    @Override
+    public InputStream openStream() {
+        return new BufferedInputStream(new ResumableHttpInputStream(transport, uri, size, maxResumeAttempts), bufferSize);
+    }
+}
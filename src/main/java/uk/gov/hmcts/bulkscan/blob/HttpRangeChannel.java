@@ -0,0 +1,190 @@
+package uk.gov.hmcts.bulkscan.blob;
+
+import uk.gov.hmcts.bulkscan.http.BulkScanHttpTransport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read only channel over a blob url, served by HTTP range requests of whole blocks.
+ * The most recently used blocks are kept in memory, so reading the zip central directory and then
+ * the local headers and data of entries next to it does not request the same bytes twice.
+ * Ranges after the first only match the ETag of the first one, so a blob replaced while it is read fails
+ * instead of mixing the content of both.
+ */
+public class HttpRangeChannel implements SeekableByteChannel {
+
+    private static final int PARTIAL_CONTENT = 206;
+    private static final int PRECONDITION_FAILED = 412;
+
+    private final BulkScanHttpTransport transport;
+    private final URI uri;
+    private final int blockSize;
+    private final Map<Long, byte[]> blocks;
+    // of the first range, later ranges must come from the same blob
+    private String etag;
+    private long size;
+    private long position;
+    private boolean open = true;
+
+    /**
+     * Creates the channel.
+     *
+     * @param transport    http transport the range requests are sent with
+     * @param uri          blob url
+     * @param size         size of the blob when known, 0 or less to look it up with the first request
+     * @param blockSize    number of bytes requested at once
+     * @param cachedBlocks number of blocks kept in memory
+     */
+    public HttpRangeChannel(BulkScanHttpTransport transport, URI uri, long size, int blockSize, int cachedBlocks) {
+        this.transport = transport;
+        this.uri = uri;
+        this.size = size > 0 ? size : -1;
+        this.blockSize = blockSize;
+        this.blocks = new LinkedHashMap<>(cachedBlocks, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                return size() > cachedBlocks;
+            }
+        };
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= size()) {
+            return -1;
+        }
+
+        int read = 0;
+        while (dst.hasRemaining() && position < size) {
+            byte[] block = block(position / blockSize);
+            int offset = (int) (position % blockSize);
+            if (offset >= block.length) {
+                throw new IOException("Blob is shorter than its size of " + size + " bytes");
+            }
+
+            int length = Math.min(dst.remaining(), block.length - offset);
+            dst.put(block, offset, length);
+            position += length;
+            read += length;
+        }
+        return read;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position " + newPosition);
+        }
+        this.position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        if (size < 0) {
+            block(0);
+        }
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long newSize) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        blocks.clear();
+    }
+
+    private byte[] block(long index) throws IOException {
+        byte[] block = blocks.get(index);
+        if (block == null) {
+            long from = index * blockSize;
+            int length = size < 0 ? blockSize : (int) Math.min(blockSize, size - from);
+            block = fetch(from, length);
+            blocks.put(index, block);
+        }
+        return block;
+    }
+
+    private byte[] fetch(long from, int length) throws IOException {
+        HttpRequest.Builder request =
+            HttpRequest.newBuilder(uri).header("Range", "bytes=" + from + "-" + (from + length - 1));
+        if (etag != null) {
+            request.header("If-Match", etag);
+        }
+        HttpResponse<InputStream> response = transport.sendBlobRequest(request);
+
+        try (InputStream content = response.body()) {
+            int status = response.statusCode();
+            if (status == PRECONDITION_FAILED) {
+                throw new IOException("Blob changed while it was read, range request for bytes from " + from + " failed");
+            }
+            if (status != PARTIAL_CONTENT) {
+                throw new IOException("Range request to blob failed with status " + status);
+            }
+            if (etag == null) {
+                etag = response.headers().firstValue("ETag").orElse(null);
+            }
+
+            if (size < 0) {
+                size = totalSize(response.headers().firstValue("Content-Range").orElse(null));
+            }
+
+            byte[] bytes = content.readNBytes(length);
+            if (bytes.length == 0) {
+                throw new IOException("Empty response to range request for bytes from " + from);
+            }
+            // reading the response to the end lets the connection be reused for the next range
+            content.transferTo(OutputStream.nullOutputStream());
+            return bytes;
+        }
+    }
+
+    // Content-Range: bytes 0-0/1234
+    private static long totalSize(String contentRange) throws IOException {
+        int separator = contentRange == null ? -1 : contentRange.lastIndexOf('/');
+        if (separator < 0 || contentRange.endsWith("*")) {
+            throw new IOException("Blob size missing from Content-Range: " + contentRange);
+        }
+        return Long.parseLong(contentRange.substring(separator + 1).trim());
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package uk.gov.hmcts.bulkscan.blob;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+public class LocalFileEnvelopeBlobSource implements EnvelopeBlobSource {
+
+    private final Path file;
+    private final int bufferSize;
+
+    public LocalFileEnvelopeBlobSource(Path file, int bufferSize) {
+        this.file = file;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public SeekableByteChannel openChannel() throws IOException {
+        return FileChannel.open(file, READ);
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        return new BufferedInputStream(Files.newInputStream(file), bufferSize);
+    }
+}
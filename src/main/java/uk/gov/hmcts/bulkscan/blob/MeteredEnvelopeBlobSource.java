@@ -0,0 +1,87 @@
+package uk.gov.hmcts.bulkscan.blob;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long each download of the blob stays open and how many bytes are read from it.
+ * Random access through the channel is not recorded.
+ */
+class MeteredEnvelopeBlobSource implements EnvelopeBlobSource {
+
+    private final EnvelopeBlobSource blobSource;
+    private final Timer downloadTime;
+    private final DistributionSummary downloadSize;
+
+    MeteredEnvelopeBlobSource(EnvelopeBlobSource blobSource, Timer downloadTime, DistributionSummary downloadSize) {
+        this.blobSource = blobSource;
+        this.downloadTime = downloadTime;
+        this.downloadSize = downloadSize;
+    }
+
+    @Override
+    public SeekableByteChannel openChannel() throws IOException {
+        return blobSource.openChannel();
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        return new MeteredInputStream(blobSource.openStream(), System.nanoTime());
+    }
+
+    private class MeteredInputStream extends FilterInputStream {
+
+        private final long openedAt;
+        private long bytesRead;
+        private boolean closed;
+
+        MeteredInputStream(InputStream content, long openedAt) {
+            super(content);
+            this.openedAt = openedAt;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read >= 0) {
+                bytesRead++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                bytesRead += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long length) throws IOException {
+            long skipped = super.skip(length);
+            bytesRead += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!closed) {
+                    closed = true;
+                    downloadTime.record(System.nanoTime() - openedAt, TimeUnit.NANOSECONDS);
+                    downloadSize.record(bytesRead);
+                }
+            }
+        }
+    }
+}
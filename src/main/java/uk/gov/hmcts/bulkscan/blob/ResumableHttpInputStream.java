@@ -0,0 +1,163 @@
+package uk.gov.hmcts.bulkscan.blob;
+
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.hmcts.bulkscan.exception.ConnectionUnavailableException;
+import uk.gov.hmcts.bulkscan.http.BulkScanHttpTransport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Downloads a blob, reconnecting with a range request from the last byte received
+ * when the connection breaks, instead of starting the download again.
+ *
+ * <p>
+ * Resumed requests only match the ETag of the first response, so a blob replaced in between fails the download
+ * instead of mixing the content of both. Responses with an unexpected status are not resumed.
+ * </p>
+ */
+@Slf4j
+class ResumableHttpInputStream extends InputStream {
+
+    private static final int OK = 200;
+    private static final int PARTIAL_CONTENT = 206;
+    private static final int PRECONDITION_FAILED = 412;
+    private static final String ETAG = "ETag";
+
+    private final BulkScanHttpTransport transport;
+    private final URI uri;
+    private final long size;
+    private final int maxResumeAttempts;
+
+    private InputStream current;
+    private long position;
+    private int resumeAttempts;
+    // of the first response, null until then
+    private String etag;
+
+    /**
+     * Creates the stream, nothing is requested until the first read.
+     *
+     * @param transport         http transport the blob is downloaded with
+     * @param uri               blob url
+     * @param size              size of the blob when known, 0 or less otherwise
+     * @param maxResumeAttempts how many times the download is resumed before giving up
+     */
+    ResumableHttpInputStream(BulkScanHttpTransport transport, URI uri, long size, int maxResumeAttempts) {
+        this.transport = transport;
+        this.uri = uri;
+        this.size = size;
+        this.maxResumeAttempts = maxResumeAttempts;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read < 0 ? -1 : Byte.toUnsignedInt(single[0]);
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        while (true) {
+            try {
+                if (current == null) {
+                    current = open(position);
+                }
+
+                int read = current.read(buffer, offset, length);
+                if (read < 0 && size > 0 && position < size) {
+                    throw new EOFException("Connection closed after " + position + " of " + size + " bytes");
+                }
+                if (read > 0) {
+                    position += read;
+                }
+                return read;
+            } catch (ConnectionUnavailableException | UnresumableDownloadException e) {
+                closeCurrent();
+                throw e;
+            } catch (IOException e) {
+                closeCurrent();
+                if (++resumeAttempts > maxResumeAttempts) {
+                    throw e;
+                }
+                log.warn("Download of {} interrupted after {} bytes, resuming", uri.getPath(), position, e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+
+    private InputStream open(long from) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri);
+        if (from > 0) {
+            if (etag == null) {
+                throw new UnresumableDownloadException(
+                    "Download of blob interrupted after " + from + " bytes cannot be resumed, the blob has no ETag"
+                );
+            }
+            request.header("Range", "bytes=" + from + "-");
+            request.header("If-Match", etag);
+        }
+
+        HttpResponse<InputStream> response = transport.sendBlobRequest(request);
+        InputStream content = response.body();
+        try {
+            int status = response.statusCode();
+            if (status == PRECONDITION_FAILED) {
+                throw new UnresumableDownloadException(
+                    "Blob changed after " + from + " bytes were downloaded, download cannot be resumed"
+                );
+            }
+            if (status != OK && status != PARTIAL_CONTENT) {
+                throw new UnresumableDownloadException("Download of blob failed with status " + status);
+            }
+
+            String responseEtag = response.headers().firstValue(ETAG).orElse(null);
+            if (from == 0) {
+                etag = responseEtag;
+            } else if (status == OK) {
+                // server ignored the range, skip what was already received if it is still the same blob
+                if (!etag.equals(responseEtag)) {
+                    throw new UnresumableDownloadException(
+                        "Blob changed after " + from + " bytes were downloaded, download cannot be resumed"
+                    );
+                }
+                content.skipNBytes(from);
+            }
+            return content;
+        } catch (IOException e) {
+            content.close();
+            throw e;
+        }
+    }
+
+    private void closeCurrent() {
+        try {
+            close();
+        } catch (IOException e) {
+            log.debug("Failed to close interrupted download", e);
+            current = null;
+        }
+    }
+
+    // the download failed for a reason reconnecting does not fix
+    private static class UnresumableDownloadException extends IOException {
+
+        private static final long serialVersionUID = 2764180135921706434L;
+
+        UnresumableDownloadException(String message) {
+            super(message);
+        }
+    }
+}
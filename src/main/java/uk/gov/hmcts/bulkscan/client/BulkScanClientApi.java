@@ -14,7 +14,8 @@ import java.util.UUID;
 
 @FeignClient(
     name = "bulk-scan",
-    url = "${bulk-scan.api.url}"
+    url = "${bulk-scan.api.url}",
+    configuration = BulkScanClientConfiguration.class
 )
 public interface BulkScanClientApi {
 
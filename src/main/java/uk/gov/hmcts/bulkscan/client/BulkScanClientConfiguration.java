@@ -0,0 +1,17 @@
+package uk.gov.hmcts.bulkscan.client;
+
+import feign.Client;
+import org.springframework.context.annotation.Bean;
+import uk.gov.hmcts.bulkscan.http.BulkScanHttpTransport;
+
+/**
+ * Feign configuration of the {@link BulkScanClientApi} only. Not annotated as a configuration, so the client
+ * is not picked up by the other feign clients of the service.
+ */
+public class BulkScanClientConfiguration {
+
+    @Bean
+    public Client bulkScanFeignClient(BulkScanHttpTransport transport) {
+        return new TransportFeignClient(transport);
+    }
+}
@@ -0,0 +1,83 @@
+package uk.gov.hmcts.bulkscan.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import uk.gov.hmcts.bulkscan.http.BulkScanHttpTransport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Sends the bulk scan API calls through the {@link BulkScanHttpTransport}, so they reuse its connections.
+ * The read timeout of the feign options, when set, is the timeout to receive the response headers. The connect timeout
+ * is the one of the transport, as the http client only sets it for all its connections.
+ */
+public class TransportFeignClient implements Client {
+
+    // set by the http client itself, which refuses them from callers
+    private static final Set<String> RESTRICTED_HEADERS = Set.of(
+        "connection",
+        "content-length",
+        "expect",
+        "host",
+        "upgrade"
+    );
+    private static final String CONTENT_LENGTH = "content-length";
+    private static final String CONTENT_ENCODING = "content-encoding";
+
+    private final BulkScanHttpTransport transport;
+
+    public TransportFeignClient(BulkScanHttpTransport transport) {
+        this.transport = transport;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        HttpRequest.Builder httpRequest = HttpRequest.newBuilder(URI.create(request.url()))
+            .method(
+                request.httpMethod().name(),
+                request.body() == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(request.body())
+            );
+        request.headers().forEach((name, values) -> {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                values.forEach(value -> httpRequest.header(name, value));
+            }
+        });
+
+        HttpResponse<InputStream> response = options.readTimeoutMillis() > 0
+            ? transport.sendApiRequest(httpRequest, Duration.ofMillis(options.readTimeoutMillis()))
+            : transport.sendApiRequest(httpRequest);
+        boolean decompressed = BulkScanHttpTransport.isDecompressed(response);
+
+        Map<String, Collection<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        response.headers().map().forEach((name, values) -> {
+            // the body handed to feign is no longer compressed
+            if (!decompressed || !(CONTENT_LENGTH.equalsIgnoreCase(name) || CONTENT_ENCODING.equalsIgnoreCase(name))) {
+                headers.put(name, List.copyOf(values));
+            }
+        });
+        Integer length = decompressed
+            ? null
+            : response.headers().firstValueAsLong(CONTENT_LENGTH).stream().mapToObj(Math::toIntExact).findFirst()
+                .orElse(null);
+
+        return Response.builder()
+            .status(response.statusCode())
+            .headers(headers)
+            .body(response.body(), length)
+            .request(request)
+            .build();
+    }
+}
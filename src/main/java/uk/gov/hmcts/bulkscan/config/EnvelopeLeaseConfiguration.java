@@ -0,0 +1,47 @@
+package uk.gov.hmcts.bulkscan.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.gov.hmcts.bulkscan.lease.FileEnvelopeLeaseManager;
+import uk.gov.hmcts.bulkscan.lease.InMemoryEnvelopeLeaseManager;
+import uk.gov.hmcts.bulkscan.type.IEnvelopeLeaseManager;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Auto-configuration of the envelope lease manager, listed in {@code META-INF/spring.factories} rather than
+ * component scanned, so it is only applied once the beans of the service are registered and backs off when the
+ * service has its own {@link IEnvelopeLeaseManager}.
+ */
+@Configuration
+public class EnvelopeLeaseConfiguration {
+
+    /**
+     * Leases are kept in memory unless a directory shared by all replicas is configured.
+     * Services can register their own {@link IEnvelopeLeaseManager}, e.g. backed by their database, instead.
+     */
+    @Bean
+    @ConditionalOnMissingBean(IEnvelopeLeaseManager.class)
+    public IEnvelopeLeaseManager envelopeLeaseManager(
+        @Value("${bulk-scan.lease.directory:}") String leaseDirectory,
+        @Value("${bulk-scan.lease.duration-minutes:30}") long leaseDurationMinutes
+    ) {
+        Duration leaseDuration = Duration.ofMinutes(leaseDurationMinutes);
+
+        if (leaseDirectory.isBlank()) {
+            return new InMemoryEnvelopeLeaseManager(leaseDuration, Clock.systemUTC());
+        }
+
+        return new FileEnvelopeLeaseManager(
+            Path.of(leaseDirectory),
+            leaseDuration,
+            UUID.randomUUID().toString(),
+            Clock.systemUTC()
+        );
+    }
+}
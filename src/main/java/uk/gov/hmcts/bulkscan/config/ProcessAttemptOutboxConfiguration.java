@@ -0,0 +1,36 @@
+package uk.gov.hmcts.bulkscan.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.gov.hmcts.bulkscan.outbox.FileProcessAttemptOutbox;
+import uk.gov.hmcts.bulkscan.outbox.InMemoryProcessAttemptOutbox;
+import uk.gov.hmcts.bulkscan.type.IProcessAttemptOutbox;
+
+import java.nio.file.Path;
+
+/**
+ * Auto-configuration of the processing attempt outbox, backing off when the service has its own
+ * {@link IProcessAttemptOutbox}.
+ */
+@Configuration
+public class ProcessAttemptOutboxConfiguration {
+
+    /**
+     * Attempts are kept in memory unless a directory is configured, in which case they survive restarts.
+     * Services can register their own {@link IProcessAttemptOutbox} instead.
+     */
+    @Bean
+    @ConditionalOnMissingBean(IProcessAttemptOutbox.class)
+    public IProcessAttemptOutbox processAttemptOutbox(
+        @Value("${bulk-scan.outbox.directory:}") String outboxDirectory,
+        @Value("${bulk-scan.outbox.segment-size-kb:1024}") long segmentSizeKb
+    ) {
+        if (outboxDirectory.isBlank()) {
+            return new InMemoryProcessAttemptOutbox();
+        }
+
+        return new FileProcessAttemptOutbox(Path.of(outboxDirectory), segmentSizeKb * 1024);
+    }
+}
@@ -0,0 +1,37 @@
+package uk.gov.hmcts.bulkscan.config;
+
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.gov.hmcts.bulkscan.validation.CompiledMetafileSchemaValidator;
+import uk.gov.hmcts.bulkscan.validation.FgeSchemaValidator;
+import uk.gov.hmcts.bulkscan.validation.SchemaValidator;
+
+import java.io.IOException;
+
+/**
+ * Auto-configuration of the metafile schema validator, backing off when the service has its own
+ * {@link SchemaValidator}.
+ */
+@Configuration
+public class SchemaValidatorConfiguration {
+
+    /**
+     * Metafiles are validated with the generic json schema validator unless the compiled rules are selected.
+     */
+    @Bean
+    @ConditionalOnMissingBean(SchemaValidator.class)
+    public SchemaValidator schemaValidator(
+        @Value("${bulk-scan.metafile.schema-validator:fge}") String schemaValidator
+    ) throws IOException, ProcessingException {
+        return switch (schemaValidator) {
+            case "compiled" -> new CompiledMetafileSchemaValidator();
+            case "fge" -> new FgeSchemaValidator();
+            default -> throw new IllegalArgumentException(
+                "Unknown metafile schema validator " + schemaValidator + ", expected compiled or fge"
+            );
+        };
+    }
+}
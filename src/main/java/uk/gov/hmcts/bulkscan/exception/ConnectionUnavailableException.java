@@ -0,0 +1,16 @@
+package uk.gov.hmcts.bulkscan.exception;
+
+import java.io.IOException;
+
+/**
+ * No HTTP connection became free in time. The request was not sent, so the envelope is left to be processed
+ * again later instead of failing.
+ */
+public class ConnectionUnavailableException extends IOException {
+
+    private static final long serialVersionUID = 6120931540364837405L;
+
+    public ConnectionUnavailableException(String message) {
+        super(message);
+    }
+}
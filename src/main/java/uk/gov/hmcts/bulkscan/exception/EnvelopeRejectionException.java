@@ -2,6 +2,8 @@ package uk.gov.hmcts.bulkscan.exception;
 
 import uk.gov.hmcts.bulkscan.type.ErrorCode;
 
+import java.util.List;
+
 public abstract class EnvelopeRejectionException extends RuntimeException {
 
     private static final long serialVersionUID = 4334244041339557973L;
@@ -36,5 +38,14 @@ public abstract class EnvelopeRejectionException extends RuntimeException {
     public ErrorCode getErrorCode() {
         return errorCode;
     }
+
+    /**
+     * Errors reported back to bulk scan for the rejected envelope.
+     *
+     * @return one error per problem found
+     */
+    public List<String> getErrors() {
+        return List.of(getMessage());
+    }
 }
 
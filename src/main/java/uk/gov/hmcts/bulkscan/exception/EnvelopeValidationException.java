@@ -0,0 +1,38 @@
+package uk.gov.hmcts.bulkscan.exception;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static uk.gov.hmcts.bulkscan.type.ErrorCode.ERR_METAFILE_INVALID;
+
+/**
+ * Envelope breaking more than one validation rule, each reported with the exception it is rejected with on its own.
+ */
+public class EnvelopeValidationException extends EnvelopeRejectionException {
+
+    private static final long serialVersionUID = -3049113917227043514L;
+
+    private final List<EnvelopeRejectionException> violations;
+
+    public EnvelopeValidationException(List<EnvelopeRejectionException> violations) {
+        super(
+            ERR_METAFILE_INVALID,
+            String.format(
+                "Envelope failed %d validations:%n\t%s",
+                violations.size(),
+                violations.stream().map(Throwable::getMessage).collect(joining("\n\t"))
+            )
+        );
+        this.violations = List.copyOf(violations);
+    }
+
+    public List<EnvelopeRejectionException> getViolations() {
+        return violations;
+    }
+
+    @Override
+    public List<String> getErrors() {
+        return violations.stream().map(Throwable::getMessage).collect(toList());
+    }
+}
@@ -3,7 +3,9 @@ package uk.gov.hmcts.bulkscan.exception;
 import com.github.fge.jsonschema.core.report.ProcessingMessage;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
 
+import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static uk.gov.hmcts.bulkscan.type.ErrorCode.ERR_METAFILE_INVALID;
@@ -13,18 +15,27 @@ public class InvalidEnvelopeSchemaException extends EnvelopeRejectionException {
     public InvalidEnvelopeSchemaException(ProcessingReport report, String zipFileName) {
         super(
             ERR_METAFILE_INVALID,
-            String.format("Failed validation for file %s against schema. Errors:%n\t%s",
+            message(
                 zipFileName,
                 StreamSupport
                     .stream(report.spliterator(), false)
                     .map(ProcessingMessage::toString)
-                    .collect(Collectors.joining("\n\t"))
             )
         );
     }
 
+    public InvalidEnvelopeSchemaException(List<String> errors, String zipFileName) {
+        super(ERR_METAFILE_INVALID, message(zipFileName, errors.stream()));
+    }
+
     public InvalidEnvelopeSchemaException(String message, Throwable cause) {
         super(ERR_METAFILE_INVALID, message, cause);
     }
-}
 
+    private static String message(String zipFileName, Stream<String> errors) {
+        return String.format("Failed validation for file %s against schema. Errors:%n\t%s",
+            zipFileName,
+            errors.collect(Collectors.joining("\n\t"))
+        );
+    }
+}
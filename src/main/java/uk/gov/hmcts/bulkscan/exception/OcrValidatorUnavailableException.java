@@ -0,0 +1,18 @@
+package uk.gov.hmcts.bulkscan.exception;
+
+/**
+ * The OCR validation service could not be called or did not answer in time. Unlike an OCR validation failure,
+ * the envelope is not rejected and is processed again later.
+ */
+public class OcrValidatorUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = -3147215482960352615L;
+
+    public OcrValidatorUnavailableException(String message) {
+        super(message);
+    }
+
+    public OcrValidatorUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,13 @@
+package uk.gov.hmcts.bulkscan.exception;
+
+/**
+ * The bulk scan API refused to record a processing attempt, sending it again would be refused too.
+ */
+public class ProcessAttemptRejectedException extends BulkScanServerException {
+
+    private static final long serialVersionUID = -3196518206623941580L;
+
+    public ProcessAttemptRejectedException(String message) {
+        super(message);
+    }
+}
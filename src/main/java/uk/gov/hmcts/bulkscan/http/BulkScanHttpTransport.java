@@ -0,0 +1,343 @@
+package uk.gov.hmcts.bulkscan.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.bulkscan.exception.ConnectionUnavailableException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * HTTP client shared by the bulk scan API calls and the envelope blob downloads, so connections, and their TLS
+ * sessions, are kept alive and reused across envelopes.
+ *
+ * <p>
+ * Bulk scan API calls and blob downloads are limited separately, so recording processing attempts never waits for
+ * downloads. Blob downloads are only limited by the number of envelopes processed at once unless limits are
+ * configured. A request holds its slot until the body of its response is closed, which for a download is once the
+ * envelope is extracted. Callers waiting longer than the response timeout for a slot get a
+ * {@link ConnectionUnavailableException}.
+ * </p>
+ */
+@Component
+public class BulkScanHttpTransport {
+
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final String GZIP = "gzip";
+
+    private final HttpClient httpClient;
+    private final Duration responseTimeout;
+    private final boolean gzip;
+
+    private final ConnectionLimit apiConnections;
+    private final ConnectionLimit blobConnections;
+
+    public BulkScanHttpTransport(
+        MeterRegistry meterRegistry,
+        @Value("${bulk-scan.service-name}") String serviceName,
+        @Value("${bulk-scan.http.connect-timeout-millis:5000}") long connectTimeoutMillis,
+        @Value("${bulk-scan.http.response-timeout-millis:30000}") long responseTimeoutMillis,
+        @Value("${bulk-scan.http.api.max-connections:10}") int maxApiConnections,
+        @Value("${bulk-scan.http.blob.max-connections:0}") int maxBlobConnections,
+        @Value("${bulk-scan.http.blob.max-connections-per-host:0}") int maxBlobConnectionsPerHost,
+        @Value("${bulk-scan.http.http2.enabled:true}") boolean http2,
+        @Value("${bulk-scan.http.gzip.enabled:true}") boolean gzip
+    ) {
+        this.httpClient = HttpClient.newBuilder()
+            .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+        this.responseTimeout = Duration.ofMillis(responseTimeoutMillis);
+        this.gzip = gzip;
+        this.apiConnections = new ConnectionLimit(Traffic.API, maxApiConnections, 0, meterRegistry, serviceName);
+        this.blobConnections =
+            new ConnectionLimit(Traffic.BLOB, maxBlobConnections, maxBlobConnectionsPerHost, meterRegistry, serviceName);
+    }
+
+    /**
+     * Sends a bulk scan API request once an API connection is free. The body of the response must be closed
+     * to free the connection.
+     *
+     * @param request request to send, the response timeout is applied to it
+     * @return response with the body as a stream, decompressed when it was gzip compressed
+     * @throws ConnectionUnavailableException if no connection became free in time
+     * @throws IOException                    if the request failed
+     */
+    public HttpResponse<InputStream> sendApiRequest(HttpRequest.Builder request) throws IOException {
+        return sendApiRequest(request, responseTimeout);
+    }
+
+    /**
+     * Sends a bulk scan API request with its own response timeout, also the longest wait for a free connection.
+     *
+     * @param request         request to send
+     * @param responseTimeout timeout to receive the response headers
+     * @return response with the body as a stream, decompressed when it was gzip compressed
+     * @throws ConnectionUnavailableException if no connection became free in time
+     * @throws IOException                    if the request failed
+     */
+    public HttpResponse<InputStream> sendApiRequest(HttpRequest.Builder request, Duration responseTimeout)
+        throws IOException {
+        return send(request, apiConnections, gzip, responseTimeout);
+    }
+
+    /**
+     * Sends a blob request once a blob connection is free. The response is never compressed, as ranges apply
+     * to the compressed content. The body of the response must be closed to free the connection.
+     *
+     * @param request request to send, the response timeout is applied to it
+     * @return response with the body as a stream
+     * @throws ConnectionUnavailableException if no connection became free in time
+     * @throws IOException                    if the request failed
+     */
+    public HttpResponse<InputStream> sendBlobRequest(HttpRequest.Builder request) throws IOException {
+        return send(request, blobConnections, false, responseTimeout);
+    }
+
+    private HttpResponse<InputStream> send(
+        HttpRequest.Builder request,
+        ConnectionLimit limit,
+        boolean acceptGzip,
+        Duration responseTimeout
+    ) throws IOException {
+        request.timeout(responseTimeout);
+        if (acceptGzip) {
+            request.setHeader(ACCEPT_ENCODING, GZIP);
+        }
+        HttpRequest httpRequest = request.build();
+
+        Runnable release = limit.acquire(httpRequest.uri(), responseTimeout);
+        try {
+            return httpClient.send(httpRequest, responseInfo -> BodySubscribers.mapping(
+                BodySubscribers.ofInputStream(),
+                body -> acceptGzip && isGzip(responseInfo)
+                    ? new ReleasingInputStream(new LazyGzipInputStream(body), true, release)
+                    : new ReleasingInputStream(body, false, release)
+            ));
+        } catch (InterruptedException e) {
+            release.run();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sending request to " + httpRequest.uri());
+        } catch (IOException | RuntimeException e) {
+            release.run();
+            throw e;
+        }
+    }
+
+    /**
+     * Tells whether the transport decompressed the body of the response.
+     *
+     * @param response response returned by the transport
+     * @return true when the response was gzip compressed
+     */
+    public static boolean isDecompressed(HttpResponse<InputStream> response) {
+        return response.body() instanceof ReleasingInputStream && ((ReleasingInputStream) response.body()).decompressed;
+    }
+
+    public int getActiveConnections() {
+        return apiConnections.active.get() + blobConnections.active.get();
+    }
+
+    private enum Traffic {
+        API,
+        BLOB
+    }
+
+    // requests in progress of one kind of traffic, in total and per host, no limit when 0
+    private static class ConnectionLimit {
+
+        private final Traffic traffic;
+        private final int maxConnections;
+        private final int maxConnectionsPerHost;
+        // null when not limited
+        private final Semaphore connections;
+        private final Map<String, Semaphore> hostConnections = new ConcurrentHashMap<>();
+        private final AtomicInteger active = new AtomicInteger();
+        private final Timer connectionWait;
+
+        ConnectionLimit(
+            Traffic traffic,
+            int maxConnections,
+            int maxConnectionsPerHost,
+            MeterRegistry meterRegistry,
+            String serviceName
+        ) {
+            this.traffic = traffic;
+            this.maxConnections = maxConnections;
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+            this.connections = maxConnections > 0 ? new Semaphore(maxConnections, true) : null;
+
+            String tag = traffic.name().toLowerCase(Locale.ROOT);
+            this.connectionWait = Timer.builder("bulk_scan.http.connections.wait")
+                .tag("service", serviceName)
+                .tag("traffic", tag)
+                .description("Time requests waited for a free connection")
+                .register(meterRegistry);
+            Gauge.builder("bulk_scan.http.connections.active", active, AtomicInteger::get)
+                .tag("service", serviceName)
+                .tag("traffic", tag)
+                .description("Requests in progress")
+                .register(meterRegistry);
+            Gauge.builder("bulk_scan.http.connections.pending", this, ConnectionLimit::getPending)
+                .tag("service", serviceName)
+                .tag("traffic", tag)
+                .description("Requests waiting for a free connection")
+                .register(meterRegistry);
+            if (maxConnections > 0) {
+                Gauge.builder("bulk_scan.http.connections.saturation", this, limit ->
+                        (double) limit.active.get() / limit.maxConnections)
+                    .tag("service", serviceName)
+                    .tag("traffic", tag)
+                    .description("Share of the connection limit in use")
+                    .register(meterRegistry);
+            }
+        }
+
+        // returns the action freeing the connection, to run once only
+        Runnable acquire(URI uri, Duration timeout) throws IOException {
+            Semaphore hostLimit = maxConnectionsPerHost > 0
+                ? hostConnections.computeIfAbsent(host(uri), host -> new Semaphore(maxConnectionsPerHost, true))
+                : null;
+
+            long start = System.nanoTime();
+            boolean acquired = false;
+            try {
+                if (connections != null && !connections.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw unavailable(uri);
+                }
+                acquired = true;
+                long remaining = timeout.toNanos() - (System.nanoTime() - start);
+                if (hostLimit != null && !hostLimit.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+                    release(connections);
+                    throw unavailable(uri);
+                }
+            } catch (InterruptedException e) {
+                if (acquired) {
+                    release(connections);
+                }
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a connection to " + uri);
+            } finally {
+                connectionWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+
+            active.incrementAndGet();
+            AtomicBoolean released = new AtomicBoolean();
+            return () -> {
+                if (released.compareAndSet(false, true)) {
+                    active.decrementAndGet();
+                    release(connections);
+                    release(hostLimit);
+                }
+            };
+        }
+
+        private int getPending() {
+            int pending = connections == null ? 0 : connections.getQueueLength();
+            for (Semaphore hostLimit : hostConnections.values()) {
+                pending += hostLimit.getQueueLength();
+            }
+            return pending;
+        }
+
+        private ConnectionUnavailableException unavailable(URI uri) {
+            return new ConnectionUnavailableException(
+                "No " + traffic.name().toLowerCase(Locale.ROOT) + " connection free to send request to " + uri
+            );
+        }
+
+        private static void release(Semaphore semaphore) {
+            if (semaphore != null) {
+                semaphore.release();
+            }
+        }
+
+        private static String host(URI uri) {
+            return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+        }
+    }
+
+    private static boolean isGzip(HttpResponse.ResponseInfo responseInfo) {
+        return GZIP.equalsIgnoreCase(responseInfo.headers().firstValue(CONTENT_ENCODING).orElse(""));
+    }
+
+    // frees the connection slot once the body is closed
+    private static class ReleasingInputStream extends FilterInputStream {
+
+        private final boolean decompressed;
+        private final Runnable release;
+
+        ReleasingInputStream(InputStream body, boolean decompressed, Runnable release) {
+            super(body);
+            this.decompressed = decompressed;
+            this.release = release;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                release.run();
+            }
+        }
+    }
+
+    // reads the gzip header on the first read, so it is not read by the thread completing the response
+    private static class LazyGzipInputStream extends InputStream {
+
+        private final InputStream compressed;
+        private InputStream decompressed;
+
+        LazyGzipInputStream(InputStream compressed) {
+            this.compressed = compressed;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return decompressed().read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return decompressed().read(buffer, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (decompressed != null) {
+                decompressed.close();
+            } else {
+                compressed.close();
+            }
+        }
+
+        private InputStream decompressed() throws IOException {
+            if (decompressed == null) {
+                decompressed = new GZIPInputStream(compressed);
+            }
+            return decompressed;
+        }
+    }
+}
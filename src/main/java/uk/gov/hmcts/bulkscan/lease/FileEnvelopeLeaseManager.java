@@ -0,0 +1,253 @@
+package uk.gov.hmcts.bulkscan.lease;
+
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.hmcts.bulkscan.type.IEnvelopeLeaseManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Keeps leases as files in a directory shared by all instances of a service.
+ *
+ * <p>
+ * Each envelope has a lease file holding the expiry time and the owner of the lease.
+ * The file is locked while the lease is checked and written, so instances racing for the same
+ * envelope cannot both claim it. Released leases are emptied rather than deleted.
+ * </p>
+ *
+ * <p>
+ * Once per lease duration, lease files which are empty or expired are swept. A swept file is marked as deleted
+ * before it is removed, so an instance which opened it just before and locks it afterwards opens the lease again
+ * instead of claiming the envelope in a file nobody else sees. A mark still found after opening it again was left by
+ * a sweep which failed to remove the file, and is treated as a released lease.
+ * </p>
+ */
+@Slf4j
+public class FileEnvelopeLeaseManager implements IEnvelopeLeaseManager {
+
+    private static final String LEASE_FILE_EXTENSION = ".lease";
+    private static final String DELETED = "deleted";
+
+    private final Path leaseDirectory;
+    private final Duration leaseDuration;
+    private final String ownerId;
+    private final Clock clock;
+    private final AtomicLong nextSweep = new AtomicLong(Long.MIN_VALUE);
+
+    public FileEnvelopeLeaseManager(Path leaseDirectory, Duration leaseDuration, String ownerId, Clock clock) {
+        this.leaseDirectory = leaseDirectory;
+        this.leaseDuration = leaseDuration;
+        this.ownerId = ownerId;
+        this.clock = clock;
+
+        try {
+            Files.createDirectories(leaseDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create lease directory " + leaseDirectory, e);
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(String etag) {
+        sweepIfDue();
+
+        boolean reopened = false;
+        while (true) {
+            try (FileChannel channel = FileChannel.open(leaseFile(etag), CREATE, READ, WRITE);
+                 FileLock lock = channel.tryLock()) {
+                if (lock == null) {
+                    return false;
+                }
+
+                String content = readContent(channel);
+                if (DELETED.equals(content) && !reopened) {
+                    // swept since it was opened, the next open creates the file again
+                    reopened = true;
+                    continue;
+                }
+
+                Instant now = clock.instant();
+                Optional<Lease> current = Lease.parse(content);
+                if (current.isPresent() && current.get().expiry.isAfter(now)) {
+                    return false;
+                }
+
+                write(channel, new Lease(now.plus(leaseDuration), ownerId).toString());
+                return true;
+            } catch (OverlappingFileLockException e) {
+                // another thread of this instance is checking the same lease
+                return false;
+            } catch (IOException e) {
+                log.error("Failed to acquire lease for envelope {}", etag, e);
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public boolean renew(String etag) {
+        try (FileChannel channel = FileChannel.open(leaseFile(etag), READ, WRITE);
+             FileLock lock = channel.lock()) {
+            // an expired lease nobody else claimed still names this instance
+            Optional<Lease> current = Lease.parse(readContent(channel));
+            if (!lock.isValid() || current.isEmpty() || !current.get().owner.equals(ownerId)) {
+                return false;
+            }
+
+            write(channel, new Lease(clock.instant().plus(leaseDuration), ownerId).toString());
+            return true;
+        } catch (NoSuchFileException | OverlappingFileLockException e) {
+            // swept, or being claimed by another thread of this instance
+            return false;
+        } catch (IOException e) {
+            log.error("Failed to renew lease for envelope {}", etag, e);
+            return false;
+        }
+    }
+
+    @Override
+    public void release(String etag) {
+        try (FileChannel channel = FileChannel.open(leaseFile(etag), READ, WRITE);
+             FileLock lock = channel.lock()) {
+            Optional<Lease> current = Lease.parse(readContent(channel));
+            if (lock.isValid() && current.isPresent() && current.get().owner.equals(ownerId)) {
+                write(channel, "");
+            }
+        } catch (NoSuchFileException e) {
+            // already swept
+        } catch (IOException e) {
+            log.error("Failed to release lease for envelope {}", etag, e);
+        }
+    }
+
+    /**
+     * Deletes the lease files which are empty or expired.
+     */
+    public void sweep() {
+        List<Path> leaseFiles;
+        try (Stream<Path> files = Files.list(leaseDirectory)) {
+            leaseFiles = files
+                .filter(file -> file.getFileName().toString().endsWith(LEASE_FILE_EXTENSION))
+                .collect(toList());
+        } catch (IOException e) {
+            log.error("Failed to list lease directory {}", leaseDirectory, e);
+            return;
+        }
+
+        int swept = 0;
+        for (Path leaseFile : leaseFiles) {
+            if (sweep(leaseFile)) {
+                swept++;
+            }
+        }
+        log.debug("Swept {} of {} lease files", swept, leaseFiles.size());
+    }
+
+    private void sweepIfDue() {
+        long now = clock.millis();
+        long due = nextSweep.get();
+        if (now >= due && nextSweep.compareAndSet(due, now + leaseDuration.toMillis())) {
+            sweep();
+        }
+    }
+
+    private boolean sweep(Path leaseFile) {
+        try (FileChannel channel = FileChannel.open(leaseFile, READ, WRITE);
+             FileLock lock = channel.tryLock()) {
+            if (lock == null) {
+                return false;
+            }
+
+            String content = readContent(channel);
+            Optional<Lease> current = Lease.parse(content);
+            if (DELETED.equals(content) || current.isPresent() && current.get().expiry.isAfter(clock.instant())) {
+                return false;
+            }
+
+            write(channel, DELETED);
+            try {
+                Files.delete(leaseFile);
+            } catch (IOException e) {
+                write(channel, "");
+                throw e;
+            }
+            return true;
+        } catch (OverlappingFileLockException | NoSuchFileException e) {
+            // being checked by another thread of this instance, or already swept
+            return false;
+        } catch (IOException e) {
+            log.warn("Failed to sweep lease file {}", leaseFile, e);
+            return false;
+        }
+    }
+
+    private Path leaseFile(String etag) {
+        // etags are quoted and may contain characters which are not valid in file names
+        return leaseDirectory.resolve(etag.replaceAll("[^A-Za-z0-9._-]", "_") + LEASE_FILE_EXTENSION);
+    }
+
+    private String readContent(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        int read = 0;
+        while (buffer.hasRemaining() && read >= 0) {
+            read = channel.read(buffer, buffer.position());
+        }
+        return new String(buffer.array(), StandardCharsets.UTF_8).trim();
+    }
+
+    private void write(FileChannel channel, String content) throws IOException {
+        channel.truncate(0);
+        ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+        channel.force(false);
+    }
+
+    private static final class Lease {
+        private final Instant expiry;
+        private final String owner;
+
+        private Lease(Instant expiry, String owner) {
+            this.expiry = expiry;
+            this.owner = owner;
+        }
+
+        private static Optional<Lease> parse(String content) {
+            String[] parts = content.trim().split(" ", 2);
+            if (parts.length != 2) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(new Lease(Instant.ofEpochMilli(Long.parseLong(parts[0])), parts[1]));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return expiry.toEpochMilli() + " " + owner;
+        }
+    }
+}
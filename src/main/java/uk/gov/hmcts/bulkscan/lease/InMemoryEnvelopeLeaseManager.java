@@ -0,0 +1,52 @@
+package uk.gov.hmcts.bulkscan.lease;
+
+import uk.gov.hmcts.bulkscan.type.IEnvelopeLeaseManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps leases in memory, so envelopes are only claimed within a single instance.
+ * Enough when a single replica runs the scheduled task.
+ */
+public class InMemoryEnvelopeLeaseManager implements IEnvelopeLeaseManager {
+
+    private final Map<String, Instant> leases = new ConcurrentHashMap<>();
+
+    private final Duration leaseDuration;
+    private final Clock clock;
+
+    public InMemoryEnvelopeLeaseManager(Duration leaseDuration, Clock clock) {
+        this.leaseDuration = leaseDuration;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean tryAcquire(String etag) {
+        Instant now = clock.instant();
+        AtomicBoolean acquired = new AtomicBoolean(false);
+
+        leases.values().removeIf(expiry -> !expiry.isAfter(now));
+        leases.computeIfAbsent(etag, key -> {
+            acquired.set(true);
+            return now.plus(leaseDuration);
+        });
+
+        return acquired.get();
+    }
+
+    @Override
+    public boolean renew(String etag) {
+        Instant now = clock.instant();
+        return leases.computeIfPresent(etag, (key, expiry) -> now.plus(leaseDuration)) != null;
+    }
+
+    @Override
+    public void release(String etag) {
+        leases.remove(etag);
+    }
+}
@@ -0,0 +1,320 @@
+package uk.gov.hmcts.bulkscan.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.hmcts.bulkscan.type.EnvelopeProcessAttempt;
+import uk.gov.hmcts.bulkscan.type.IProcessAttemptOutbox;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Keeps pending attempts in an append only log of segment files, read back when the application starts.
+ *
+ * <p>
+ * Each record holds its length and checksum, so a record left half written by a crash is dropped with
+ * whatever follows it. Attempts are written to disk before they are sent. Acknowledgements are not forced
+ * to disk, losing one only means the attempt is sent again, which the bulk scan API records under the same
+ * attempt id.
+ * </p>
+ *
+ * <p>
+ * Once the current segment reaches its size limit, a new segment is started. Segments are deleted, oldest first,
+ * once all the attempts they hold are recorded. When attempts still pending keep old segments around and most of
+ * the outbox is recorded attempts, the pending attempts are copied to a new segment and all older segments are
+ * deleted, which also happens when the outbox is opened. Copying only starts after more than the pending attempts
+ * and a segment have been written since the last copy, so a large backlog is not copied on every write.
+ * </p>
+ */
+@Slf4j
+public class FileProcessAttemptOutbox implements IProcessAttemptOutbox, Closeable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String SEGMENT_PREFIX = "attempts-";
+    private static final String SEGMENT_EXTENSION = ".log";
+
+    private static final byte ATTEMPT = 1;
+    private static final byte ACKNOWLEDGEMENT = 2;
+    // payload length and checksum
+    private static final int HEADER_SIZE = 8;
+
+    private final Path directory;
+    private final long segmentSize;
+
+    // pending attempts with the segment holding them
+    private final Map<UUID, StoredAttempt> attempts = new LinkedHashMap<>();
+    private final PendingAttemptIndex index = new PendingAttemptIndex();
+    // segments on disk by number, oldest first
+    private final TreeMap<Long, SegmentStats> segmentStats = new TreeMap<>();
+    private long pendingBytes;
+    private FileChannel segment;
+    private long segmentNumber;
+
+    public FileProcessAttemptOutbox(Path directory, long segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = segments();
+            for (Path existingSegment : segments) {
+                replay(existingSegment);
+            }
+            segmentNumber = segments.isEmpty() ? 0 : number(segments.get(segments.size() - 1));
+            compact();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open processing attempt outbox " + directory, e);
+        }
+
+        if (!attempts.isEmpty()) {
+            log.info("Found {} processing attempts not recorded yet", attempts.size());
+        }
+    }
+
+    @Override
+    public synchronized void append(EnvelopeProcessAttempt processAttempt) {
+        try {
+            int size = write(ATTEMPT, MAPPER.writeValueAsBytes(processAttempt));
+            segment.force(false);
+            store(processAttempt, segmentNumber, size);
+            afterWrite();
+        } catch (IOException e) {
+            log.error("Failed to store attempt {} of envelope {}", processAttempt.attemptId, processAttempt.envelopeId, e);
+        }
+    }
+
+    @Override
+    public synchronized void acknowledge(UUID attemptId) {
+        if (!discard(attemptId)) {
+            return;
+        }
+
+        try {
+            write(
+                ACKNOWLEDGEMENT,
+                ByteBuffer.allocate(16)
+                    .putLong(attemptId.getMostSignificantBits())
+                    .putLong(attemptId.getLeastSignificantBits())
+                    .array()
+            );
+            afterWrite();
+        } catch (IOException e) {
+            log.error("Failed to store acknowledgement of attempt {}", attemptId, e);
+        }
+    }
+
+    @Override
+    public synchronized List<EnvelopeProcessAttempt> pending() {
+        List<EnvelopeProcessAttempt> pending = new ArrayList<>(attempts.size());
+        for (StoredAttempt storedAttempt : attempts.values()) {
+            pending.add(storedAttempt.attempt());
+        }
+        return pending;
+    }
+
+    @Override
+    public synchronized Optional<EnvelopeProcessAttempt> findPending(String envelopeId) {
+        return index.latest(envelopeId).map(attemptId -> attempts.get(attemptId).attempt());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        segment.close();
+    }
+
+    // returns the size of the record
+    private int write(byte type, byte[] data) throws IOException {
+        CRC32 checksum = new CRC32();
+        checksum.update(type);
+        checksum.update(data);
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + 1 + data.length)
+            .putInt(1 + data.length)
+            .putInt((int) checksum.getValue())
+            .put(type)
+            .put(data)
+            .flip();
+        int size = record.remaining();
+        while (record.hasRemaining()) {
+            segment.write(record);
+        }
+        segmentStats.get(segmentNumber).size += size;
+        return size;
+    }
+
+    private void store(EnvelopeProcessAttempt processAttempt, long number, int size) {
+        StoredAttempt previous = attempts.put(processAttempt.attemptId, new StoredAttempt(processAttempt, number, size));
+        if (previous != null) {
+            release(previous);
+        }
+        index.add(processAttempt);
+        segmentStats.get(number).pendingAttempts++;
+        pendingBytes += size;
+    }
+
+    private boolean discard(UUID attemptId) {
+        StoredAttempt storedAttempt = attempts.remove(attemptId);
+        if (storedAttempt == null) {
+            return false;
+        }
+        release(storedAttempt);
+        index.remove(storedAttempt.attempt());
+        return true;
+    }
+
+    private void release(StoredAttempt storedAttempt) {
+        segmentStats.get(storedAttempt.segmentNumber()).pendingAttempts--;
+        pendingBytes -= storedAttempt.size();
+    }
+
+    private void afterWrite() throws IOException {
+        if (segment.size() >= segmentSize) {
+            startSegment();
+        }
+        deleteRecordedSegments();
+
+        long recordedBytes = -pendingBytes;
+        for (SegmentStats stats : segmentStats.values()) {
+            recordedBytes += stats.size;
+        }
+        if (segmentStats.size() > 1 && recordedBytes > pendingBytes + segmentSize) {
+            compact();
+        }
+    }
+
+    private void startSegment() throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+
+        segmentNumber++;
+        segment = FileChannel.open(segmentFile(segmentNumber), CREATE_NEW, WRITE, APPEND);
+        segmentStats.put(segmentNumber, new SegmentStats());
+    }
+
+    // acknowledgements only refer to attempts in the same or older segments, so segments are deleted oldest first
+    private void deleteRecordedSegments() throws IOException {
+        Iterator<Map.Entry<Long, SegmentStats>> oldest = segmentStats.entrySet().iterator();
+        while (oldest.hasNext()) {
+            Map.Entry<Long, SegmentStats> entry = oldest.next();
+            if (entry.getKey() == segmentNumber || entry.getValue().pendingAttempts > 0) {
+                return;
+            }
+            Files.delete(segmentFile(entry.getKey()));
+            oldest.remove();
+        }
+    }
+
+    // starts a new segment holding the pending attempts only, then deletes all the previous ones
+    private void compact() throws IOException {
+        startSegment();
+        List<StoredAttempt> pending = new ArrayList<>(attempts.values());
+        for (StoredAttempt storedAttempt : pending) {
+            EnvelopeProcessAttempt processAttempt = storedAttempt.attempt();
+            store(processAttempt, segmentNumber, write(ATTEMPT, MAPPER.writeValueAsBytes(processAttempt)));
+        }
+        segment.force(false);
+
+        Iterator<Long> previousSegments = segmentStats.headMap(segmentNumber).keySet().iterator();
+        while (previousSegments.hasNext()) {
+            Files.deleteIfExists(segmentFile(previousSegments.next()));
+            previousSegments.remove();
+        }
+    }
+
+    private void replay(Path segmentFile) throws IOException {
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(segmentFile));
+        long number = number(segmentFile);
+        SegmentStats stats = new SegmentStats();
+        stats.size = content.capacity();
+        segmentStats.put(number, stats);
+
+        while (content.remaining() >= HEADER_SIZE) {
+            int length = content.getInt();
+            int expectedChecksum = content.getInt();
+            if (length < 1 || length > content.remaining()) {
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            content.get(payload);
+            CRC32 checksum = new CRC32();
+            checksum.update(payload);
+            if ((int) checksum.getValue() != expectedChecksum) {
+                break;
+            }
+
+            apply(payload, number, HEADER_SIZE + length);
+        }
+
+        if (content.hasRemaining()) {
+            log.warn("Ignoring incomplete record at the end of processing attempt outbox segment {}", segmentFile);
+        }
+    }
+
+    private void apply(byte[] payload, long number, int size) {
+        ByteBuffer data = ByteBuffer.wrap(payload, 1, payload.length - 1);
+
+        if (payload[0] == ATTEMPT) {
+            try {
+                EnvelopeProcessAttempt processAttempt =
+                    MAPPER.readValue(payload, 1, payload.length - 1, EnvelopeProcessAttempt.class);
+                store(processAttempt, number, size);
+            } catch (IOException e) {
+                log.warn("Ignoring processing attempt which could not be read from the outbox", e);
+            }
+        } else if (payload[0] == ACKNOWLEDGEMENT) {
+            discard(new UUID(data.getLong(), data.getLong()));
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                .filter(file -> file.getFileName().toString().endsWith(SEGMENT_EXTENSION))
+                .sorted()
+                .collect(toList());
+        }
+    }
+
+    private Path segmentFile(long number) {
+        // zero padded, so segments sort by name in the order they were written
+        return directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, number, SEGMENT_EXTENSION));
+    }
+
+    private static long number(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_EXTENSION.length()));
+    }
+
+    private record StoredAttempt(EnvelopeProcessAttempt attempt, long segmentNumber, int size) {
+    }
+
+    private static final class SegmentStats {
+        // attempts in the segment not recorded yet
+        private int pendingAttempts;
+        private long size;
+    }
+}
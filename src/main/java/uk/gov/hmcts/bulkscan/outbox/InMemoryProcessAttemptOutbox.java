@@ -0,0 +1,44 @@
+package uk.gov.hmcts.bulkscan.outbox;
+
+import uk.gov.hmcts.bulkscan.type.EnvelopeProcessAttempt;
+import uk.gov.hmcts.bulkscan.type.IProcessAttemptOutbox;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps pending attempts in memory, they are lost when the application stops.
+ */
+public class InMemoryProcessAttemptOutbox implements IProcessAttemptOutbox {
+
+    private final Map<UUID, EnvelopeProcessAttempt> attempts = new LinkedHashMap<>();
+    private final PendingAttemptIndex index = new PendingAttemptIndex();
+
+    @Override
+    public synchronized void append(EnvelopeProcessAttempt processAttempt) {
+        attempts.put(processAttempt.attemptId, processAttempt);
+        index.add(processAttempt);
+    }
+
+    @Override
+    public synchronized void acknowledge(UUID attemptId) {
+        EnvelopeProcessAttempt processAttempt = attempts.remove(attemptId);
+        if (processAttempt != null) {
+            index.remove(processAttempt);
+        }
+    }
+
+    @Override
+    public synchronized List<EnvelopeProcessAttempt> pending() {
+        return new ArrayList<>(attempts.values());
+    }
+
+    @Override
+    public synchronized Optional<EnvelopeProcessAttempt> findPending(String envelopeId) {
+        return index.latest(envelopeId).map(attempts::get);
+    }
+}
@@ -0,0 +1,39 @@
+package uk.gov.hmcts.bulkscan.outbox;
+
+import uk.gov.hmcts.bulkscan.type.EnvelopeProcessAttempt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Pending attempts by envelope, so the attempt of a polled envelope is found without going through the outbox.
+ * Not thread safe, the outbox guards it.
+ */
+final class PendingAttemptIndex {
+
+    // ids of the pending attempts of each envelope, oldest first
+    private final Map<String, List<UUID>> attemptIds = new HashMap<>();
+
+    void add(EnvelopeProcessAttempt processAttempt) {
+        List<UUID> ids = attemptIds.computeIfAbsent(processAttempt.envelopeId, envelopeId -> new ArrayList<>(1));
+        if (!ids.contains(processAttempt.attemptId)) {
+            ids.add(processAttempt.attemptId);
+        }
+    }
+
+    void remove(EnvelopeProcessAttempt processAttempt) {
+        List<UUID> ids = attemptIds.get(processAttempt.envelopeId);
+        if (ids != null && ids.remove(processAttempt.attemptId) && ids.isEmpty()) {
+            attemptIds.remove(processAttempt.envelopeId);
+        }
+    }
+
+    Optional<UUID> latest(String envelopeId) {
+        List<UUID> ids = attemptIds.get(envelopeId);
+        return ids == null ? Optional.empty() : Optional.of(ids.get(ids.size() - 1));
+    }
+}
@@ -0,0 +1,136 @@
+package uk.gov.hmcts.bulkscan.processor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Inflates entries of a zip file on local disk into direct buffers written straight to the pdf files, so their
+ * content never goes through the heap. Stored entries are transferred from the zip to the pdf file without
+ * being read at all. Each thread reuses its own buffers and inflater, which is only meant for the threads of a
+ * bounded pool.
+ */
+class DirectEntryInflater {
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private final int bufferSize;
+    private final ThreadLocal<Buffers> buffers;
+
+    DirectEntryInflater(int bufferSize) {
+        this.bufferSize = bufferSize;
+        this.buffers = ThreadLocal.withInitial(() -> new Buffers(bufferSize));
+    }
+
+    /**
+     * Writes the content of the entry to the target file.
+     *
+     * @param zip        zip file, only read with absolute positions so several entries can be inflated at once
+     * @param entry      entry to inflate
+     * @param dataOffset position of the entry data in the zip
+     * @param target     file the content is written to
+     * @param sizeLimit  limit checked as the content is written
+     * @return size of the content written
+     */
+    long inflate(
+        FileChannel zip,
+        ZipCentralDirectoryReader.Entry entry,
+        long dataOffset,
+        FileChannel target,
+        ExtractionSizeLimit sizeLimit
+    ) throws IOException {
+        return switch (entry.method()) {
+            case STORED -> transfer(zip, entry, dataOffset, target, sizeLimit);
+            case DEFLATED -> inflateDeflated(zip, entry, dataOffset, target, sizeLimit);
+            default -> throw new ZipException(
+                "Unsupported compression method " + entry.method() + " for entry " + entry.name()
+            );
+        };
+    }
+
+    private long transfer(
+        FileChannel zip,
+        ZipCentralDirectoryReader.Entry entry,
+        long dataOffset,
+        FileChannel target,
+        ExtractionSizeLimit sizeLimit
+    ) throws IOException {
+        long size = entry.compressedSize();
+        long written = 0;
+        while (written < size) {
+            long transferred = zip.transferTo(dataOffset + written, Math.min(bufferSize, size - written), target);
+            if (transferred <= 0) {
+                throw new ZipException("Unexpected end of zip file in entry " + entry.name());
+            }
+            written += transferred;
+            sizeLimit.count(entry.name(), written, transferred);
+        }
+        return written;
+    }
+
+    private long inflateDeflated(
+        FileChannel zip,
+        ZipCentralDirectoryReader.Entry entry,
+        long dataOffset,
+        FileChannel target,
+        ExtractionSizeLimit sizeLimit
+    ) throws IOException {
+        Buffers threadBuffers = buffers.get();
+        Inflater inflater = threadBuffers.inflater;
+        ByteBuffer compressed = threadBuffers.compressed;
+        ByteBuffer inflated = threadBuffers.inflated;
+        inflater.reset();
+
+        long position = dataOffset;
+        long end = dataOffset + entry.compressedSize();
+        long written = 0;
+
+        try {
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    if (position >= end) {
+                        throw new ZipException("Unexpected end of entry " + entry.name());
+                    }
+                    compressed.clear().limit((int) Math.min(compressed.capacity(), end - position));
+                    while (compressed.hasRemaining()) {
+                        if (zip.read(compressed, position + compressed.position()) < 0) {
+                            throw new ZipException("Unexpected end of zip file in entry " + entry.name());
+                        }
+                    }
+                    position += compressed.limit();
+                    inflater.setInput(compressed.flip());
+                }
+
+                inflated.clear();
+                int length = inflater.inflate(inflated);
+                if (length == 0 && inflater.needsDictionary()) {
+                    throw new ZipException("Entry " + entry.name() + " needs a preset dictionary");
+                }
+                inflated.flip();
+                while (inflated.hasRemaining()) {
+                    target.write(inflated);
+                }
+                written += length;
+                sizeLimit.count(entry.name(), written, length);
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid deflated data in entry " + entry.name() + ": " + e.getMessage());
+        }
+        return written;
+    }
+
+    private static final class Buffers {
+        private final ByteBuffer compressed;
+        private final ByteBuffer inflated;
+        private final Inflater inflater = new Inflater(true);
+
+        private Buffers(int bufferSize) {
+            this.compressed = ByteBuffer.allocateDirect(bufferSize);
+            this.inflated = ByteBuffer.allocateDirect(bufferSize);
+        }
+    }
+}
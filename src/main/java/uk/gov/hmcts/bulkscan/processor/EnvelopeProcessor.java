@@ -32,9 +32,7 @@ public class EnvelopeProcessor {
         }
 
         try {
-            schemaValidator.validate(metadataStream, zipFileName);
-
-            return schemaValidator.parseMetafile(metadataStream);
+            return schemaValidator.validateAndParse(metadataStream, zipFileName);
         } catch (JsonParseException | OcrDataParseException exception) {
             // invalid json files should also be reported to provider
             throw new InvalidEnvelopeSchemaException("Error occurred while parsing metafile", exception);
@@ -0,0 +1,121 @@
+package uk.gov.hmcts.bulkscan.processor;
+
+import uk.gov.hmcts.bulkscan.exception.FileSizeExceedMaxUploadLimit;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the bytes extracted from an envelope and stops the extraction as soon as a pdf, or all the pdfs
+ * of the envelope together, go over the limit, instead of finding out once everything is on disk.
+ * Pdfs of the same envelope can be extracted concurrently.
+ */
+class ExtractionSizeLimit {
+
+    private final long maxPdfSize;
+    // 0 or less for no limit
+    private final long maxEnvelopeSize;
+    private final AtomicLong totalSize = new AtomicLong();
+
+    ExtractionSizeLimit(long maxPdfSize, long maxEnvelopeSize) {
+        this.maxPdfSize = maxPdfSize;
+        this.maxEnvelopeSize = maxEnvelopeSize;
+    }
+
+    /**
+     * Rejects a pdf up front when the size recorded in the zip is already over the limit.
+     *
+     * @param pdfName name of the pdf
+     * @param size    size recorded in the zip entry, negative when unknown
+     */
+    void checkRecordedSize(String pdfName, long size) {
+        if (size > maxPdfSize) {
+            throw pdfTooLarge(pdfName, size);
+        }
+    }
+
+    /**
+     * Wraps the content of a pdf so reading it fails once a limit is exceeded.
+     * Closing the returned stream leaves the underlying zip stream open.
+     *
+     * @param content content of the pdf entry
+     * @param pdfName name of the pdf
+     * @return stream counting the bytes read
+     */
+    InputStream limit(InputStream content, String pdfName) {
+        return new LimitedInputStream(content, pdfName);
+    }
+
+    /**
+     * Counts bytes of a pdf written without going through {@link #limit}.
+     *
+     * @param pdfName name of the pdf
+     * @param pdfSize bytes of the pdf written so far
+     * @param read    bytes just written
+     */
+    void count(String pdfName, long pdfSize, long read) {
+        if (pdfSize > maxPdfSize) {
+            throw pdfTooLarge(pdfName, pdfSize);
+        }
+
+        if (maxEnvelopeSize > 0 && totalSize.addAndGet(read) > maxEnvelopeSize) {
+            throw new FileSizeExceedMaxUploadLimit(
+                "Envelope pdfs size exceeds the max limit=" + maxEnvelopeSize + " at " + pdfName
+            );
+        }
+    }
+
+    private FileSizeExceedMaxUploadLimit pdfTooLarge(String pdfName, long size) {
+        return new FileSizeExceedMaxUploadLimit(
+            "Pdf " + pdfName + " size =" + size + " exceeds the max limit=" + maxPdfSize
+        );
+    }
+
+    private class LimitedInputStream extends FilterInputStream {
+
+        private final String pdfName;
+        private long pdfSize;
+
+        LimitedInputStream(InputStream in, String pdfName) {
+            super(in);
+            this.pdfName = pdfName;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read >= 0) {
+                counted(1);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                counted(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long length) throws IOException {
+            long skipped = super.skip(length);
+            counted(skipped);
+            return skipped;
+        }
+
+        @Override
+        public void close() {
+            // the zip stream is closed by whoever opened it
+        }
+
+        private void counted(long read) {
+            pdfSize += read;
+            count(pdfName, pdfSize, read);
+        }
+    }
+}
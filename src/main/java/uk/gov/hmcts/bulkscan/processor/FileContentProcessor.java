@@ -1,9 +1,14 @@
 package uk.gov.hmcts.bulkscan.processor;
 
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import uk.gov.hmcts.bulkscan.blob.EnvelopeBlobSource;
+import uk.gov.hmcts.bulkscan.blob.EnvelopeBlobSourceFactory;
 import uk.gov.hmcts.bulkscan.service.EnvelopeHandler;
 import uk.gov.hmcts.bulkscan.type.BulkScanEnvelope;
 import uk.gov.hmcts.bulkscan.type.IServiceOcrValidator;
@@ -11,7 +16,12 @@ import uk.gov.hmcts.bulkscan.type.InputEnvelope;
 import uk.gov.hmcts.bulkscan.type.ProcessedEnvelopeContents;
 import uk.gov.hmcts.bulkscan.type.ZipFileContentDetail;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipInputStream;
 
 import static java.util.stream.Collectors.joining;
@@ -26,14 +36,120 @@ public class FileContentProcessor {
 
     private final EnvelopeHandler envelopeHandler;
 
+    private final EnvelopeBlobSourceFactory blobSourceFactory;
+
+    private final Timer extractionTime;
+
+    private final Timer metafileValidationTime;
+
+    // extract the pdfs while reading the metadata instead of downloading the zip a second time
+    private final boolean singleDownload;
+
+    // read the metadata through the zip central directory with range requests, before any pdf is downloaded
+    private final boolean metadataFirst;
+
+    // save the zip to local disk first, then inflate its pdfs in parallel
+    private final boolean parallelExtraction;
+
     public FileContentProcessor(
         ZipFileProcessor zipFileProcessor,
         EnvelopeProcessor envelopeProcessor,
-        EnvelopeHandler envelopeHandler
+        EnvelopeHandler envelopeHandler,
+        EnvelopeBlobSourceFactory blobSourceFactory,
+        MeterRegistry meterRegistry,
+        @Value("${bulk-scan.service-name}") String serviceName,
+        @Value("${bulk-scan.single-download.enabled:false}") boolean singleDownload,
+        @Value("${bulk-scan.metadata-first.enabled:false}") boolean metadataFirst,
+        @Value("${bulk-scan.extraction.parallel.enabled:false}") boolean parallelExtraction
     ) {
         this.zipFileProcessor = zipFileProcessor;
         this.envelopeProcessor = envelopeProcessor;
         this.envelopeHandler = envelopeHandler;
+        this.blobSourceFactory = blobSourceFactory;
+        this.singleDownload = singleDownload;
+        this.metadataFirst = metadataFirst;
+        this.parallelExtraction = parallelExtraction;
+
+        if (metadataFirst && (singleDownload || parallelExtraction)) {
+            log.warn("Metadata first is enabled, single download and parallel extraction settings are ignored");
+        } else if (parallelExtraction && singleDownload) {
+            log.warn("Parallel extraction is enabled, single download setting is ignored");
+        }
+
+        this.extractionTime = Timer.builder("bulk_scan.envelope.extraction")
+            .tag("service", serviceName)
+            .description("Time taken to read the metadata and extract the pdfs of an envelope zip file")
+            .register(meterRegistry);
+        this.metafileValidationTime = Timer.builder("bulk_scan.metafile.validation")
+            .tag("service", serviceName)
+            .description("Time taken to validate the metafile of an envelope against the schema and parse it")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Downloads the envelope and validates its content.
+     *
+     * @param envelope     envelope to process
+     * @param serviceName  service the envelope belongs to
+     * @param ocrValidator service OCR validator
+     * @return validated envelope contents
+     */
+    public ProcessedEnvelopeContents processEnvelope(
+        BulkScanEnvelope envelope,
+        String serviceName,
+        IServiceOcrValidator ocrValidator
+    ) throws IOException, ProcessingException {
+        zipFileProcessor.checkEnvelopeSizeAgainstUploadLimit(envelope.getFileName(), envelope.getContentLength());
+        EnvelopeBlobSource blobSource = blobSourceFactory.create(envelope);
+
+        if (metadataFirst) {
+            try (SeekableByteChannel zipChannel = blobSource.openChannel()) {
+                return processZipFileContent(zipChannel, envelope, serviceName, ocrValidator);
+            }
+        }
+
+        if (parallelExtraction) {
+            return processSpooledZipFile(blobSource, envelope, serviceName, ocrValidator);
+        }
+
+        try (ZipInputStream zis = new ZipInputStream(blobSource.openStream())) {
+
+            var processedEnvelope = processZipFileContent(
+                zis,
+                envelope,
+                serviceName,
+                ocrValidator
+            );
+
+            zis.closeEntry();
+            return processedEnvelope;
+        }
+    }
+
+    /**
+     * Deletes the pdfs extracted for the envelope, when it is not handed to the service.
+     *
+     * @param envelope envelope the pdfs were extracted from
+     */
+    public void deleteExtractedFiles(BulkScanEnvelope envelope) {
+        zipFileProcessor.deleteZipExtracted(envelope.getFileName());
+    }
+
+    public ProcessedEnvelopeContents processZipFileContent(
+        SeekableByteChannel zipChannel,
+        BulkScanEnvelope envelope,
+        String serviceName,
+        IServiceOcrValidator ocrValidator
+    ) throws IOException, ProcessingException {
+        return processZipContentDetail(
+            timed(
+                extractionTime,
+                () -> zipFileProcessor.getZipContentDetailFromCentralDirectory(zipChannel, envelope.getFileName())
+            ),
+            envelope,
+            serviceName,
+            ocrValidator
+        );
     }
 
     public ProcessedEnvelopeContents processZipFileContent(
@@ -43,9 +159,65 @@ public class FileContentProcessor {
         IServiceOcrValidator ocrValidator
     ) throws IOException, ProcessingException {
         var zipFilename = envelope.getFileName();
-        ZipFileContentDetail zipDetail = zipFileProcessor.getZipContentDetail(zis, zipFilename);
 
-        InputEnvelope inputEnvelope = envelopeProcessor.parseEnvelope(zipDetail.getMetadata(), zipFilename);
+        if (!singleDownload) {
+            return processZipContentDetail(
+                timed(extractionTime, () -> zipFileProcessor.getZipContentDetail(zis, zipFilename)),
+                envelope,
+                serviceName,
+                ocrValidator
+            );
+        }
+
+        try {
+            ZipFileContentDetail zipDetail =
+                timed(extractionTime, () -> zipFileProcessor.getZipContentDetailAndExtractPdfs(zis, zipFilename));
+            return processZipContentDetail(zipDetail, envelope, serviceName, ocrValidator);
+        } catch (IOException | ProcessingException | RuntimeException exception) {
+            // envelope is rejected so nobody is going to pick up the extracted pdfs
+            zipFileProcessor.deleteZipExtracted(zipFilename);
+            throw exception;
+        }
+    }
+
+    private ProcessedEnvelopeContents processSpooledZipFile(
+        EnvelopeBlobSource blobSource,
+        BulkScanEnvelope envelope,
+        String serviceName,
+        IServiceOcrValidator ocrValidator
+    ) throws IOException, ProcessingException {
+        var zipFilename = envelope.getFileName();
+        File spooledZipFile;
+        try (InputStream content = blobSource.openStream()) {
+            spooledZipFile = zipFileProcessor.spoolZipFile(content, zipFilename);
+        }
+
+        try {
+            ZipFileContentDetail zipDetail = timed(
+                extractionTime,
+                () -> zipFileProcessor.getZipContentDetailAndExtractPdfsInParallel(spooledZipFile, zipFilename)
+            );
+            return processZipContentDetail(zipDetail, envelope, serviceName, ocrValidator);
+        } catch (IOException | ProcessingException | RuntimeException exception) {
+            // envelope is rejected so nobody is going to pick up the extracted pdfs
+            zipFileProcessor.deleteZipExtracted(zipFilename);
+            throw exception;
+        } finally {
+            Files.deleteIfExists(spooledZipFile.toPath());
+        }
+    }
+
+    private ProcessedEnvelopeContents processZipContentDetail(
+        ZipFileContentDetail zipDetail,
+        BulkScanEnvelope envelope,
+        String serviceName,
+        IServiceOcrValidator ocrValidator
+    ) throws IOException, ProcessingException {
+        var zipFilename = envelope.getFileName();
+        InputEnvelope inputEnvelope = timed(
+            metafileValidationTime,
+            () -> envelopeProcessor.parseEnvelope(zipDetail.getMetadata(), zipFilename)
+        );
 
         log.info(
             "Parsed envelope. File name: {}. Container: {}. Payment DCNs: {}. Document DCNs: {}, caseNumber {}",
@@ -63,7 +235,27 @@ public class FileContentProcessor {
             ocrValidator
         );
 
-        return new ProcessedEnvelopeContents(envelope, zipDetail, inputEnvelope, warnings, zipFileProcessor);
+        return new ProcessedEnvelopeContents(
+            envelope,
+            zipDetail,
+            inputEnvelope,
+            warnings,
+            zipFileProcessor,
+            blobSourceFactory.create(envelope)
+        );
+    }
+
+    private static <T> T timed(Timer timer, Step<T> step) throws IOException, ProcessingException {
+        long start = System.nanoTime();
+        try {
+            return step.run();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
-}
 
+    @FunctionalInterface
+    private interface Step<T> {
+        T run() throws IOException, ProcessingException;
+    }
+}
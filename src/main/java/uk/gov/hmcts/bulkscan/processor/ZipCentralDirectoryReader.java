@@ -0,0 +1,188 @@
+package uk.gov.hmcts.bulkscan.processor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Reads a zip file through its central directory, so the list of entries is known and single
+ * entries can be read without going through the data of the others.
+ * Only what bulk scan envelopes need is supported: no ZIP64, no encryption, stored or deflated entries.
+ */
+public final class ZipCentralDirectoryReader {
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_ENTRY_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int CENTRAL_DIRECTORY_ENTRY_SIZE = 46;
+    private static final int LOCAL_HEADER_SIZE = 30;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+
+    /**
+     * Entry of the central directory.
+     *
+     * @param name             name of the entry
+     * @param method           compression method
+     * @param compressedSize   size of the entry data in the zip
+     * @param size             size of the entry once inflated
+     * @param localHeaderOffset position of the entry local header in the zip
+     */
+    public record Entry(String name, int method, long compressedSize, long size, long localHeaderOffset) {
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+
+    private ZipCentralDirectoryReader() {
+        // utility class constructor
+    }
+
+    /**
+     * Lists the entries of the zip from its central directory.
+     *
+     * @param channel zip file
+     * @return entries in central directory order
+     * @throws ZipException when the zip is invalid or uses unsupported features
+     */
+    public static List<Entry> readEntries(SeekableByteChannel channel) throws IOException {
+        long zipSize = channel.size();
+        int tailSize = (int) Math.min(zipSize, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+        ByteBuffer tail = read(channel, zipSize - tailSize, tailSize);
+
+        int endOfCentralDirectory = findEndOfCentralDirectory(tail);
+        int entryCount = Short.toUnsignedInt(tail.getShort(endOfCentralDirectory + 10));
+        long centralDirectorySize = Integer.toUnsignedLong(tail.getInt(endOfCentralDirectory + 12));
+        long centralDirectoryOffset = Integer.toUnsignedLong(tail.getInt(endOfCentralDirectory + 16));
+
+        if (entryCount == 0xFFFF || centralDirectoryOffset == ZIP64_MARKER) {
+            throw new ZipException("ZIP64 archives are not supported");
+        }
+        if (centralDirectoryOffset + centralDirectorySize > zipSize) {
+            throw new ZipException("Central directory is outside of the zip file");
+        }
+
+        ByteBuffer centralDirectory = read(channel, centralDirectoryOffset, (int) centralDirectorySize);
+        List<Entry> entries = new ArrayList<>(entryCount);
+
+        for (int i = 0; i < entryCount; i++) {
+            entries.add(readEntry(centralDirectory));
+        }
+
+        return entries;
+    }
+
+    /**
+     * Reads the whole content of an entry into memory. Meant for small entries such as the metadata file.
+     *
+     * @param channel zip file
+     * @param entry   entry to read
+     * @return inflated content of the entry
+     */
+    public static byte[] readContent(SeekableByteChannel channel, Entry entry) throws IOException {
+        try (InputStream content = openContent(channel, entry)) {
+            return content.readNBytes((int) entry.size());
+        }
+    }
+
+    /**
+     * Position of the entry data in the zip, right after its local header.
+     *
+     * @param channel zip file
+     * @param entry   entry to locate
+     * @return offset of the first byte of the entry data
+     */
+    public static long dataOffset(SeekableByteChannel channel, Entry entry) throws IOException {
+        ByteBuffer localHeader = read(channel, entry.localHeaderOffset(), LOCAL_HEADER_SIZE);
+        if (localHeader.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header for entry " + entry.name());
+        }
+
+        int nameLength = Short.toUnsignedInt(localHeader.getShort(26));
+        int extraLength = Short.toUnsignedInt(localHeader.getShort(28));
+
+        return entry.localHeaderOffset() + LOCAL_HEADER_SIZE + nameLength + extraLength;
+    }
+
+    private static InputStream openContent(SeekableByteChannel channel, Entry entry) throws IOException {
+        ByteBuffer data = read(channel, dataOffset(channel, entry), (int) entry.compressedSize());
+        InputStream compressed = new ByteArrayInputStream(data.array(), 0, data.limit());
+
+        return switch (entry.method()) {
+            case STORED -> compressed;
+            case DEFLATED -> new InflaterInputStream(compressed, new Inflater(true));
+            default -> throw new ZipException(
+                "Unsupported compression method " + entry.method() + " for entry " + entry.name()
+            );
+        };
+    }
+
+    private static Entry readEntry(ByteBuffer centralDirectory) throws ZipException {
+        int start = centralDirectory.position();
+        if (centralDirectory.remaining() < CENTRAL_DIRECTORY_ENTRY_SIZE
+            || centralDirectory.getInt(start) != CENTRAL_DIRECTORY_ENTRY_SIGNATURE) {
+            throw new ZipException("Invalid central directory entry");
+        }
+
+        int method = Short.toUnsignedInt(centralDirectory.getShort(start + 10));
+        long compressedSize = Integer.toUnsignedLong(centralDirectory.getInt(start + 20));
+        long size = Integer.toUnsignedLong(centralDirectory.getInt(start + 24));
+        int nameLength = Short.toUnsignedInt(centralDirectory.getShort(start + 28));
+        int extraLength = Short.toUnsignedInt(centralDirectory.getShort(start + 30));
+        int commentLength = Short.toUnsignedInt(centralDirectory.getShort(start + 32));
+        long localHeaderOffset = Integer.toUnsignedLong(centralDirectory.getInt(start + 42));
+
+        if (compressedSize == ZIP64_MARKER || size == ZIP64_MARKER || localHeaderOffset == ZIP64_MARKER) {
+            throw new ZipException("ZIP64 entries are not supported");
+        }
+
+        byte[] name = new byte[nameLength];
+        centralDirectory.position(start + CENTRAL_DIRECTORY_ENTRY_SIZE);
+        centralDirectory.get(name);
+        centralDirectory.position(start + CENTRAL_DIRECTORY_ENTRY_SIZE + nameLength + extraLength + commentLength);
+
+        return new Entry(
+            new String(name, StandardCharsets.UTF_8),
+            method,
+            compressedSize,
+            size,
+            localHeaderOffset
+        );
+    }
+
+    private static int findEndOfCentralDirectory(ByteBuffer tail) throws ZipException {
+        // the record is followed by a comment of unknown length, so search backwards for its signature
+        for (int position = tail.limit() - END_OF_CENTRAL_DIRECTORY_SIZE; position >= 0; position--) {
+            if (tail.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                return position;
+            }
+        }
+        throw new ZipException("End of central directory not found, not a zip file");
+    }
+
+    private static ByteBuffer read(SeekableByteChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        channel.position(offset);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new ZipException("Unexpected end of zip file");
+            }
+        }
+        return buffer.flip();
+    }
+}
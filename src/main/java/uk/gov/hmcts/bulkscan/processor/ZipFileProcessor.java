@@ -1,35 +1,125 @@
 package uk.gov.hmcts.bulkscan.processor;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import uk.gov.hmcts.bulkscan.exception.FileNameIrregularitiesException;
 import uk.gov.hmcts.bulkscan.exception.FileSizeExceedMaxUploadLimit;
+import uk.gov.hmcts.bulkscan.exception.MetadataNotFoundException;
 import uk.gov.hmcts.bulkscan.exception.NonPdfFileFoundException;
 import uk.gov.hmcts.bulkscan.type.ZipFileContentDetail;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
+import javax.annotation.PreDestroy;
 
 import static com.google.common.io.ByteStreams.toByteArray;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 @Component
 public class ZipFileProcessor {
     private static final long MAX_PDF_SIZE = 314_572_800; //300 mb
+    private static final String NO_METADATA = "No metadata file found in the zip file";
 
     private static final Logger log = LoggerFactory.getLogger(ZipFileProcessor.class);
     public final String downloadPath;
 
-    public ZipFileProcessor(@Value("${tmp-folder-path-for-download}") String downloadPath) {
+    // copy buffer reused by each thread writing pdfs of a streamed zip
+    private final ThreadLocal<byte[]> copyBuffers;
+
+    // inflates the pdfs of a spooled envelope in direct memory
+    private final DirectEntryInflater entryInflater;
+
+    // limit on the total size of the pdfs of an envelope, 0 or less for no limit
+    private final long maxEnvelopeSize;
+
+    private final int parallelism;
+
+    // writes the pdfs of a spooled envelope in parallel, only created once parallel extraction is used
+    private ExecutorService extractionPool;
+
+    /**
+     * Kept for services building the processor themselves, with the default extraction settings.
+     *
+     * @param downloadPath folder the envelope pdfs are extracted to
+     */
+    public ZipFileProcessor(String downloadPath) {
+        this(downloadPath, 256, 0, 4);
+    }
+
+    @Autowired
+    public ZipFileProcessor(
+        @Value("${tmp-folder-path-for-download}") String downloadPath,
+        @Value("${bulk-scan.extraction.buffer-size-kb:256}") int bufferSizeKb,
+        @Value("${bulk-scan.extraction.max-envelope-size-mb:0}") long maxEnvelopeSizeMb,
+        @Value("${bulk-scan.extraction.parallelism:4}") int parallelism
+    ) {
         this.downloadPath = downloadPath + File.separator;
+        int bufferSize = bufferSizeKb * 1024;
+        this.copyBuffers = ThreadLocal.withInitial(() -> new byte[bufferSize]);
+        this.entryInflater = new DirectEntryInflater(bufferSize);
+        this.maxEnvelopeSize = maxEnvelopeSizeMb * 1024 * 1024;
+        this.parallelism = parallelism;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (extractionPool != null) {
+            extractionPool.shutdown();
+        }
+    }
+
+    // the tasks block on file IO, so they get a fixed number of plain threads rather than a ForkJoinPool
+    private synchronized ExecutorService extractionPool() {
+        if (extractionPool == null) {
+            extractionPool = Executors.newFixedThreadPool(
+                parallelism,
+                new ThreadFactoryBuilder().setNameFormat("bulk-scan-extraction-%d").setDaemon(true).build()
+            );
+        }
+        return extractionPool;
+    }
+
+    /**
+     * Rejects an envelope before it is downloaded when its zip alone is over the envelope size limit.
+     *
+     * @param zipFileName   name of the envelope zip file
+     * @param contentLength size of the zip file, 0 or less when unknown
+     */
+    public void checkEnvelopeSizeAgainstUploadLimit(String zipFileName, long contentLength) {
+        if (maxEnvelopeSize > 0 && contentLength > maxEnvelopeSize) {
+            log.info("Envelope size exceeds the max upload size limit, {} {} ", zipFileName, contentLength);
+            throw new FileSizeExceedMaxUploadLimit("Envelope size =" + contentLength
+                + " exceeds the max limit=" + maxEnvelopeSize);
+        }
     }
 
     public Map<String, File> extractPdfFiles(
@@ -99,32 +189,333 @@ public class ZipFileProcessor {
         return new ZipFileContentDetail(metadata, pdfs);
     }
 
+    /**
+     * Reads the metadata and lists the pdfs from the zip central directory, without reading the pdfs data.
+     *
+     * @param zipChannel  zip file of the envelope
+     * @param zipFileName name of the envelope zip file
+     * @return metadata and pdf names
+     */
+    public ZipFileContentDetail getZipContentDetailFromCentralDirectory(
+        SeekableByteChannel zipChannel,
+        String zipFileName
+    ) throws IOException {
+
+        List<String> pdfs = new ArrayList<>();
+        ZipCentralDirectoryReader.Entry metadataEntry = null;
+
+        for (ZipCentralDirectoryReader.Entry entry : ZipCentralDirectoryReader.readEntries(zipChannel)) {
+            if (!entry.isDirectory()) {
+                switch (FilenameUtils.getExtension(entry.name())) {
+                    case "json" -> metadataEntry = entry;
+                    case "pdf" -> pdfs.add(entry.name());
+                    default ->
+                        // contract breakage
+                        throw new NonPdfFileFoundException(zipFileName, entry.name());
+                }
+            }
+        }
+
+        byte[] metadata = null;
+        if (metadataEntry != null) {
+            metadata = ZipCentralDirectoryReader.readContent(zipChannel, metadataEntry);
+            log.info(
+                "File: {}, Meta data size: {}",
+                zipFileName,
+                FileUtils.byteCountToDisplaySize(metadata.length)
+            );
+        }
+
+        log.info("PDFs found in {}: {}", zipFileName, pdfs.size());
+
+        return new ZipFileContentDetail(metadata, pdfs);
+    }
+
+    /**
+     * Reads the metadata and saves the pdfs to the temp folder in a single pass over the zip,
+     * so the envelope does not have to be downloaded again to extract its files.
+     * The temp folder is cleaned up if the zip breaks the contract or the pdfs exceed the upload limit.
+     *
+     * @param extractedZis zip stream of the envelope
+     * @param zipFileName  name of the envelope zip file
+     * @return metadata, pdf names and the pdfs saved to the temp folder
+     */
+    public ZipFileContentDetail getZipContentDetailAndExtractPdfs(
+        ZipInputStream extractedZis,
+        String zipFileName
+    ) throws IOException {
+
+        ZipEntry zipEntry;
+
+        List<String> pdfNames = new ArrayList<>();
+        Map<String, File> pdfs = new HashMap<>();
+        byte[] metadata = null;
+        String folderPath = downloadPath + zipFileName;
+        var sizeLimit = new ExtractionSizeLimit(MAX_PDF_SIZE, maxEnvelopeSize);
+
+        try {
+            while ((zipEntry = extractedZis.getNextEntry()) != null) {
+                if (!zipEntry.isDirectory()) {
+                    switch (FilenameUtils.getExtension(zipEntry.getName())) {
+                        case "json" -> {
+                            metadata = toByteArray(extractedZis);
+                            log.info(
+                                "File: {}, Meta data size: {}",
+                                zipFileName,
+                                FileUtils.byteCountToDisplaySize(metadata.length)
+                            );
+                        }
+                        case "pdf" -> {
+                            pdfNames.add(zipEntry.getName());
+                            pdfs.put(
+                                zipEntry.getName(),
+                                savePdf(extractedZis, zipEntry, zipFileName, folderPath, sizeLimit)
+                            );
+                        }
+                        default ->
+                            // contract breakage
+                            throw new NonPdfFileFoundException(zipFileName, zipEntry.getName());
+                    }
+                }
+            }
+            if (metadata == null) {
+                throw new MetadataNotFoundException(NO_METADATA);
+            }
+            checkFileSizeAgainstUploadLimit(pdfs);
+        } catch (IOException | RuntimeException exception) {
+            deleteZipExtracted(zipFileName);
+            throw exception;
+        }
+
+        log.info("Zip file {} has {} pdfs: {}. Saved to {} ", zipFileName, pdfs.size(), pdfs, folderPath);
+
+        return new ZipFileContentDetail(metadata, pdfNames, pdfs);
+    }
+
+    /**
+     * Saves the whole envelope zip to the temp folder, so its entries can then be read in any order.
+     *
+     * @param content     zip file content
+     * @param zipFileName name of the envelope zip file
+     * @return saved zip file, to be deleted by the caller
+     */
+    public File spoolZipFile(InputStream content, String zipFileName) throws IOException {
+        var zipFile = new File(downloadPath + zipFileName + ".download");
+        long zipSize;
+        try (FileChannel channel = openTargetFile(zipFile.toPath())) {
+            zipSize = copy(content, channel);
+        }
+        log.info("Zip file {} saved to {}, size: {}", zipFileName, zipFile, FileUtils.byteCountToDisplaySize(zipSize));
+        return zipFile;
+    }
+
+    /**
+     * Reads the metadata and saves the pdfs of a zip file already on local disk to the temp folder,
+     * inflating the pdfs in parallel.
+     * The temp folder is cleaned up if the zip breaks the contract or the pdfs exceed the upload limit.
+     *
+     * @param spooledZipFile zip file of the envelope on local disk
+     * @param zipFileName    name of the envelope zip file
+     * @return metadata, pdf names and the pdfs saved to the temp folder
+     */
+    public ZipFileContentDetail getZipContentDetailAndExtractPdfsInParallel(
+        File spooledZipFile,
+        String zipFileName
+    ) throws IOException {
+
+        List<String> pdfNames = new ArrayList<>();
+        Map<String, File> pdfs = new HashMap<>();
+        byte[] metadata = null;
+        String folderPath = downloadPath + zipFileName;
+        var sizeLimit = new ExtractionSizeLimit(MAX_PDF_SIZE, maxEnvelopeSize);
+
+        try (FileChannel zipChannel = FileChannel.open(spooledZipFile.toPath(), READ)) {
+            List<ZipCentralDirectoryReader.Entry> pdfEntries = new ArrayList<>();
+            Set<String> pdfFileNames = new HashSet<>();
+            Set<String> duplicatePdfFileNames = new LinkedHashSet<>();
+            for (ZipCentralDirectoryReader.Entry entry : ZipCentralDirectoryReader.readEntries(zipChannel)) {
+                if (!entry.isDirectory()) {
+                    switch (FilenameUtils.getExtension(entry.name())) {
+                        case "json" -> {
+                            metadata = ZipCentralDirectoryReader.readContent(zipChannel, entry);
+                            log.info(
+                                "File: {}, Meta data size: {}",
+                                zipFileName,
+                                FileUtils.byteCountToDisplaySize(metadata.length)
+                            );
+                        }
+                        case "pdf" -> {
+                            if (!pdfFileNames.add(FilenameUtils.getName(entry.name()))) {
+                                duplicatePdfFileNames.add(FilenameUtils.getName(entry.name()));
+                            }
+                            pdfEntries.add(entry);
+                        }
+                        default ->
+                            // contract breakage
+                            throw new NonPdfFileFoundException(zipFileName, entry.name());
+                    }
+                }
+            }
+            if (metadata == null) {
+                throw new MetadataNotFoundException(NO_METADATA);
+            }
+            // pdfs are saved under their base name, two of them written at once would end up in the same file
+            if (!duplicatePdfFileNames.isEmpty()) {
+                throw new FileNameIrregularitiesException(
+                    "Duplicate pdf file names in zip file: " + String.join(", ", duplicatePdfFileNames)
+                );
+            }
+
+            // located up front, the pdfs are then only read with absolute positions
+            List<Long> dataOffsets = new ArrayList<>(pdfEntries.size());
+            for (ZipCentralDirectoryReader.Entry pdfEntry : pdfEntries) {
+                sizeLimit.checkRecordedSize(pdfEntry.name(), pdfEntry.size());
+                dataOffsets.add(ZipCentralDirectoryReader.dataOffset(zipChannel, pdfEntry));
+            }
+
+            ExecutorService pool = extractionPool();
+            List<Future<File>> savedPdfs = new ArrayList<>(pdfEntries.size());
+            for (int i = 0; i < pdfEntries.size(); i++) {
+                ZipCentralDirectoryReader.Entry pdfEntry = pdfEntries.get(i);
+                long dataOffset = dataOffsets.get(i);
+                savedPdfs.add(pool.submit(
+                    () -> inflatePdf(zipChannel, pdfEntry, dataOffset, zipFileName, folderPath, sizeLimit)
+                ));
+            }
+            List<File> pdfFiles = awaitSavedPdfs(savedPdfs);
+            for (int i = 0; i < pdfEntries.size(); i++) {
+                pdfNames.add(pdfEntries.get(i).name());
+                pdfs.put(pdfEntries.get(i).name(), pdfFiles.get(i));
+            }
+            checkFileSizeAgainstUploadLimit(pdfs);
+        } catch (IOException | RuntimeException exception) {
+            deleteZipExtracted(zipFileName);
+            throw exception;
+        }
+
+        log.info("Zip file {} has {} pdfs: {}. Saved to {} ", zipFileName, pdfs.size(), pdfs, folderPath);
+
+        return new ZipFileContentDetail(metadata, pdfNames, pdfs);
+    }
+
+    // waits for every pdf, even after a failure, so none is still being written when the folder is cleaned up
+    private static List<File> awaitSavedPdfs(List<Future<File>> savedPdfs) throws IOException {
+        List<File> pdfFiles = new ArrayList<>(savedPdfs.size());
+        Throwable failure = null;
+
+        for (Future<File> savedPdf : savedPdfs) {
+            try {
+                pdfFiles.add(savedPdf.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while extracting pdfs", e);
+            } catch (ExecutionException e) {
+                failure = failure == null ? e.getCause() : failure;
+            }
+        }
+
+        if (failure instanceof IOException ioException) {
+            throw ioException;
+        }
+        if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (failure != null) {
+            throw new IOException("Failed to extract pdf", failure);
+        }
+        return pdfFiles;
+    }
+
     private Map<String, File> createPdfAndSaveToTemp(
         ZipInputStream extractedZis,
         String zipFileName
     ) throws IOException {
 
         ZipEntry zipEntry;
-        Map<String, File> pdfs = new java.util.HashMap<String, File>();
+        Map<String, File> pdfs = new HashMap<>();
         String folderPath =  downloadPath + zipFileName;
+        var sizeLimit = new ExtractionSizeLimit(MAX_PDF_SIZE, maxEnvelopeSize);
 
-        while ((zipEntry = extractedZis.getNextEntry()) != null) {
-            if ("pdf".equals(FilenameUtils.getExtension(zipEntry.getName()))) {
-                String filePath =
-                    folderPath + File.separator + FilenameUtils.getName(zipEntry.getName());
-                var pdfFile = new File(filePath);
-                FileUtils.copyToFile(extractedZis, pdfFile);
-                pdfs.put(zipEntry.getName(), pdfFile);
-                log.info(
-                    "ZipFile:{}, has {}, pdf size: {}",
-                    zipFileName,
-                    zipEntry.getName(),
-                    FileUtils.byteCountToDisplaySize(Files.size(pdfFile.toPath()))
-                );
+        try {
+            while ((zipEntry = extractedZis.getNextEntry()) != null) {
+                if ("pdf".equals(FilenameUtils.getExtension(zipEntry.getName()))) {
+                    pdfs.put(zipEntry.getName(), savePdf(extractedZis, zipEntry, zipFileName, folderPath, sizeLimit));
+                }
             }
+        } catch (FileSizeExceedMaxUploadLimit exception) {
+            log.info("PDF size exceeds the max upload size limit, {}", exception.getMessage());
+            deleteZipExtracted(zipFileName);
+            throw exception;
         }
         log.info("Zip file {} has {} pdfs: {}. Saved to {} ", zipFileName, pdfs.size(), pdfs, folderPath);
 
         return pdfs;
     }
+
+    private File savePdf(
+        InputStream content,
+        ZipEntry zipEntry,
+        String zipFileName,
+        String folderPath,
+        ExtractionSizeLimit sizeLimit
+    ) throws IOException {
+        sizeLimit.checkRecordedSize(zipEntry.getName(), zipEntry.getSize());
+        Path pdfFile = pdfPath(folderPath, zipEntry.getName());
+        long pdfSize;
+        try (FileChannel channel = openTargetFile(pdfFile)) {
+            pdfSize = copy(sizeLimit.limit(content, zipEntry.getName()), channel);
+        }
+        logSavedPdf(zipFileName, zipEntry.getName(), pdfSize);
+        return pdfFile.toFile();
+    }
+
+    private File inflatePdf(
+        FileChannel zipChannel,
+        ZipCentralDirectoryReader.Entry entry,
+        long dataOffset,
+        String zipFileName,
+        String folderPath,
+        ExtractionSizeLimit sizeLimit
+    ) throws IOException {
+        Path pdfFile = pdfPath(folderPath, entry.name());
+        long pdfSize;
+        try (FileChannel channel = openTargetFile(pdfFile)) {
+            pdfSize = entryInflater.inflate(zipChannel, entry, dataOffset, channel, sizeLimit);
+        }
+        logSavedPdf(zipFileName, entry.name(), pdfSize);
+        return pdfFile.toFile();
+    }
+
+    private static Path pdfPath(String folderPath, String entryName) {
+        return Path.of(folderPath, FilenameUtils.getName(entryName));
+    }
+
+    private static FileChannel openTargetFile(Path pdfFile) throws IOException {
+        Files.createDirectories(pdfFile.getParent());
+        return FileChannel.open(pdfFile, CREATE, WRITE, TRUNCATE_EXISTING);
+    }
+
+    private static void logSavedPdf(String zipFileName, String pdfName, long pdfSize) {
+        log.info(
+            "ZipFile:{}, has {}, pdf size: {}",
+            zipFileName,
+            pdfName,
+            FileUtils.byteCountToDisplaySize(pdfSize)
+        );
+    }
+
+    // a streamed zip is only readable into a heap array, the buffer is reused rather than allocated for every pdf
+    private long copy(InputStream content, FileChannel channel) throws IOException {
+        byte[] buffer = copyBuffers.get();
+        ByteBuffer chunk = ByteBuffer.wrap(buffer);
+        long written = 0;
+        int read;
+        while ((read = content.read(buffer)) != -1) {
+            chunk.clear().limit(read);
+            while (chunk.hasRemaining()) {
+                written += channel.write(chunk);
+            }
+        }
+        return written;
+    }
 }
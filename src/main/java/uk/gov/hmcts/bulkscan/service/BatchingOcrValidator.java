@@ -0,0 +1,145 @@
+package uk.gov.hmcts.bulkscan.service;
+
+import uk.gov.hmcts.bulkscan.exception.OcrValidatorUnavailableException;
+import uk.gov.hmcts.bulkscan.type.FormData;
+import uk.gov.hmcts.bulkscan.type.IServiceOcrValidator;
+import uk.gov.hmcts.bulkscan.type.OcrValidationRequest;
+import uk.gov.hmcts.bulkscan.type.OcrValidationResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Collects the OCR validations of envelopes processed at the same time and sends them to the service validator
+ * together, through {@link IServiceOcrValidator#validateEnvelopes}.
+ *
+ * <p>
+ * The first validation of a batch waits for others to join it until the batch is full or the linger time is over,
+ * then validates the whole batch on its own thread. Only envelopes processed in parallel end up in the same batch.
+ * </p>
+ */
+public class BatchingOcrValidator implements IServiceOcrValidator {
+
+    private final IServiceOcrValidator delegate;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchTaken = lock.newCondition();
+    private Batch current = new Batch();
+
+    public BatchingOcrValidator(IServiceOcrValidator delegate, int maxBatchSize, long lingerMillis) {
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+    }
+
+    @Override
+    public OcrValidationResult validateEnvelope(String formType, FormData docWithOcr) {
+        var validation = new Validation(new OcrValidationRequest(formType, docWithOcr));
+        Batch toValidate = null;
+
+        lock.lock();
+        try {
+            Batch batch = current;
+            batch.validations.add(validation);
+            if (batch.validations.size() >= maxBatchSize) {
+                toValidate = take(batch);
+            } else if (batch.validations.size() == 1) {
+                // first of the batch, waits for others to join
+                long remaining = lingerNanos;
+                boolean interrupted = false;
+                while (!batch.taken && remaining > 0) {
+                    try {
+                        remaining = batchTaken.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                        remaining = 0;
+                    }
+                }
+                if (!batch.taken) {
+                    toValidate = take(batch);
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (toValidate != null) {
+            validate(toValidate);
+        }
+        return result(validation);
+    }
+
+    @Override
+    public List<OcrValidationResult> validateEnvelopes(List<OcrValidationRequest> requests) {
+        return delegate.validateEnvelopes(requests);
+    }
+
+    // called with the lock held
+    private Batch take(Batch batch) {
+        batch.taken = true;
+        current = new Batch();
+        batchTaken.signalAll();
+        return batch;
+    }
+
+    private void validate(Batch batch) {
+        try {
+            List<OcrValidationResult> results = delegate.validateEnvelopes(
+                batch.validations.stream().map(validation -> validation.request).collect(toList())
+            );
+            if (results == null || results.size() != batch.validations.size()) {
+                throw new IllegalStateException(
+                    "OCR validator returned " + (results == null ? "no" : results.size()) + " results for "
+                        + batch.validations.size() + " envelopes"
+                );
+            }
+            for (int i = 0; i < results.size(); i++) {
+                batch.validations.get(i).result.complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            batch.validations.forEach(validation -> validation.result.completeExceptionally(e));
+        }
+    }
+
+    private static OcrValidationResult result(Validation validation) {
+        try {
+            return validation.result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OcrValidatorUnavailableException("Interrupted while waiting for OCR validation", e);
+        }
+    }
+
+    private static class Batch {
+
+        private final List<Validation> validations = new ArrayList<>();
+        private boolean taken;
+    }
+
+    private static class Validation {
+
+        private final OcrValidationRequest request;
+        private final CompletableFuture<OcrValidationResult> result = new CompletableFuture<>();
+
+        private Validation(OcrValidationRequest request) {
+            this.request = request;
+        }
+    }
+}
@@ -1,28 +1,42 @@
 package uk.gov.hmcts.bulkscan.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import uk.gov.hmcts.bulkscan.client.BulkScanClientApi;
 import uk.gov.hmcts.bulkscan.enums.EnvelopeProcessStatus;
 import uk.gov.hmcts.bulkscan.exception.BulkScanServerException;
+import uk.gov.hmcts.bulkscan.exception.ConnectionUnavailableException;
 import uk.gov.hmcts.bulkscan.exception.EnvelopeRejectionException;
+import uk.gov.hmcts.bulkscan.exception.OcrValidatorUnavailableException;
+import uk.gov.hmcts.bulkscan.lease.InMemoryEnvelopeLeaseManager;
+import uk.gov.hmcts.bulkscan.outbox.InMemoryProcessAttemptOutbox;
 import uk.gov.hmcts.bulkscan.processor.FileContentProcessor;
 import uk.gov.hmcts.bulkscan.type.BulkScanEnvelope;
+import uk.gov.hmcts.bulkscan.type.BulkScanEnvelopeProcessingResponse;
 import uk.gov.hmcts.bulkscan.type.BulkScanEnvelopesResponse;
 import uk.gov.hmcts.bulkscan.type.EnvelopeProcessAttempt;
+import uk.gov.hmcts.bulkscan.type.IEnvelopeLeaseManager;
 import uk.gov.hmcts.bulkscan.type.IEnvelopeReceiver;
 import uk.gov.hmcts.bulkscan.type.IServiceOcrValidator;
+import uk.gov.hmcts.bulkscan.type.ProcessedEnvelopeContents;
+import uk.gov.hmcts.bulkscan.validation.OcrValidationGuard;
 import uk.gov.hmcts.reform.authorisation.generators.AuthTokenGenerator;
 
-import java.io.BufferedInputStream;
 import java.net.MalformedURLException;
-import java.net.URL;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.zip.ZipInputStream;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Collections.emptyList;
 
@@ -30,29 +44,149 @@ import static java.util.Collections.emptyList;
 @Slf4j
 public class BulkScanClientService {
 
+    // tags the meters of a service built without the bulk-scan properties
+    private static final String DEFAULT_SERVICE_NAME = "default";
+
     private final BulkScanClientApi bulkScanClient;
     private final FileContentProcessor fileContentProcessor;
     private final IEnvelopeReceiver envelopeReceiver;
-    private final AuthTokenGenerator authTokenGenerator;
+    private final ServiceAuthTokenCache serviceAuthTokenCache;
     private final IServiceOcrValidator ocrValidator;
+    private final EnvelopeWorkerPool envelopeWorkerPool;
+    private final IEnvelopeLeaseManager envelopeLeaseManager;
+    private final ProcessAttemptReporter processAttemptReporter;
+
+    private final Timer fetchedEnvelopes;
+    private final Timer failedEnvelopeFetches;
+    private final Timer receivedEnvelopes;
+    private final Timer failedEnvelopeReceipts;
 
+    /**
+     * Kept for services building the client service themselves. Envelopes are processed one at a time on the calling
+     * thread, with leases and pending attempts kept in memory and meters registered with the global registry.
+     *
+     * @param bulkScanClient       client of the bulk scan processor
+     * @param fileContentProcessor downloads and reads the envelopes
+     * @param envelopeReceiver     service receiving the envelopes
+     * @param authTokenGenerator   generates the service auth token
+     * @param ocrValidator         service OCR validator
+     * @deprecated the service is meant to be created by Spring, which configures it from the bulk-scan properties
+     */
+    @Deprecated
     public BulkScanClientService(
         BulkScanClientApi bulkScanClient,
         FileContentProcessor fileContentProcessor,
         IEnvelopeReceiver envelopeReceiver,
         AuthTokenGenerator authTokenGenerator,
         IServiceOcrValidator ocrValidator
+    ) {
+        this(
+            bulkScanClient,
+            fileContentProcessor,
+            envelopeReceiver,
+            new ServiceAuthTokenCache(authTokenGenerator, Metrics.globalRegistry, DEFAULT_SERVICE_NAME, 60),
+            ocrValidator
+        );
+    }
+
+    private BulkScanClientService(
+        BulkScanClientApi bulkScanClient,
+        FileContentProcessor fileContentProcessor,
+        IEnvelopeReceiver envelopeReceiver,
+        ServiceAuthTokenCache serviceAuthTokenCache,
+        IServiceOcrValidator ocrValidator
+    ) {
+        this(
+            bulkScanClient,
+            fileContentProcessor,
+            envelopeReceiver,
+            serviceAuthTokenCache,
+            ocrValidator,
+            new OcrValidationGuard(false, 30_000, 10, 0, 50, 20, 10, 60_000),
+            new EnvelopeWorkerPool(1, 10, System.getProperty("java.io.tmpdir"), 1024, 256, false, 100),
+            new InMemoryEnvelopeLeaseManager(Duration.ofMinutes(30), Clock.systemUTC()),
+            new ProcessAttemptReporter(
+                bulkScanClient,
+                serviceAuthTokenCache,
+                new InMemoryProcessAttemptOutbox(),
+                Metrics.globalRegistry,
+                DEFAULT_SERVICE_NAME,
+                false,
+                1000,
+                50,
+                5,
+                1000,
+                30
+            ),
+            Metrics.globalRegistry,
+            DEFAULT_SERVICE_NAME,
+            false,
+            20,
+            50
+        );
+    }
+
+    @Autowired
+    public BulkScanClientService(
+        BulkScanClientApi bulkScanClient,
+        FileContentProcessor fileContentProcessor,
+        IEnvelopeReceiver envelopeReceiver,
+        ServiceAuthTokenCache serviceAuthTokenCache,
+        IServiceOcrValidator ocrValidator,
+        OcrValidationGuard ocrValidationGuard,
+        EnvelopeWorkerPool envelopeWorkerPool,
+        IEnvelopeLeaseManager envelopeLeaseManager,
+        ProcessAttemptReporter processAttemptReporter,
+        MeterRegistry meterRegistry,
+        @Value("${bulk-scan.service-name}") String serviceName,
+        @Value("${bulk-scan.ocr-validation.batch.enabled:false}") boolean batchOcrValidation,
+        @Value("${bulk-scan.ocr-validation.batch.max-size:20}") int ocrValidationBatchSize,
+        @Value("${bulk-scan.ocr-validation.batch.linger-millis:50}") long ocrValidationLingerMillis
     ) {
         this.bulkScanClient = bulkScanClient;
         this.fileContentProcessor = fileContentProcessor;
         this.envelopeReceiver = envelopeReceiver;
-        this.authTokenGenerator = authTokenGenerator;
-        this.ocrValidator = ocrValidator;
+        this.serviceAuthTokenCache = serviceAuthTokenCache;
+        // validations of envelopes processed in parallel are sent to the service validator together
+        this.ocrValidator = batchOcrValidation
+            ? batching(ocrValidator, ocrValidationGuard, envelopeWorkerPool, ocrValidationBatchSize, ocrValidationLingerMillis)
+            : ocrValidator;
+        this.envelopeWorkerPool = envelopeWorkerPool;
+        this.envelopeLeaseManager = envelopeLeaseManager;
+        this.processAttemptReporter = processAttemptReporter;
+
+        this.fetchedEnvelopes = fetchTimer(meterRegistry, serviceName, "success");
+        this.failedEnvelopeFetches = fetchTimer(meterRegistry, serviceName, "error");
+        this.receivedEnvelopes = receiverTimer(meterRegistry, serviceName, "success");
+        this.failedEnvelopeReceipts = receiverTimer(meterRegistry, serviceName, "error");
+    }
+
+    private static IServiceOcrValidator batching(
+        IServiceOcrValidator ocrValidator,
+        OcrValidationGuard ocrValidationGuard,
+        EnvelopeWorkerPool envelopeWorkerPool,
+        int maxBatchSize,
+        long lingerMillis
+    ) {
+        if (!envelopeWorkerPool.processesInParallel()) {
+            // every validation would wait for the linger time and still be sent on its own
+            log.warn("OCR validation batching is disabled, envelopes are processed one at a time");
+            return ocrValidator;
+        }
+
+        // the guard lets no more validations through at once, a larger batch would never fill up
+        int batchSize = ocrValidationGuard.isEnabled()
+            ? Math.min(maxBatchSize, ocrValidationGuard.getMaxConcurrent())
+            : maxBatchSize;
+        if (batchSize < maxBatchSize) {
+            log.info("OCR validation batches limited to {}, the validations allowed at once", batchSize);
+        }
+        return new BatchingOcrValidator(ocrValidator, batchSize, lingerMillis);
     }
 
     public List<BulkScanEnvelope> getNewScanList(String serviceName) {
         log.info("Checking for new scanned files...");
-        var envelopeResponse = bulkScanClient.getPendingEnvelopes(authTokenGenerator.generate(), serviceName);
+        var envelopeResponse = fetchPendingEnvelopes(serviceName);
         if (!envelopeResponse.getStatusCode().equals(HttpStatus.OK)) {
             throw new BulkScanServerException(
                 String.format("Error retrieving new scanned files. HTTP Response %s: {}, Body: %s",
@@ -65,113 +199,173 @@ public class BulkScanClientService {
             .orElse(emptyList());
     }
 
+    private ResponseEntity<BulkScanEnvelopesResponse> fetchPendingEnvelopes(String serviceName) {
+        String serviceAuthToken = serviceAuthTokenCache.getToken();
+        long start = System.nanoTime();
+        Timer timer = failedEnvelopeFetches;
+        try {
+            var envelopeResponse = bulkScanClient.getPendingEnvelopes(serviceAuthToken, serviceName);
+            if (envelopeResponse.getStatusCode().equals(HttpStatus.OK)) {
+                timer = fetchedEnvelopes;
+            }
+            return envelopeResponse;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
     public void processEnvelopes(
         String serviceName,
         List<BulkScanEnvelope> envelopes
     ) {
+        envelopeWorkerPool.processAll(serviceName, envelopes, envelope -> processEnvelope(serviceName, envelope));
+    }
+
+    private void processEnvelope(String serviceName, BulkScanEnvelope envelope) {
+        if (processAttemptReporter.resendPendingAttempt(envelope.getEtag())) {
+            // already processed, only the attempt failed to be recorded
+            return;
+        }
+
+        if (!envelopeLeaseManager.tryAcquire(envelope.getEtag())) {
+            log.info("File '{}' is being processed by another instance, skipping", envelope.getFileName());
+            return;
+        }
+
+        log.info("Processing file '{}'", envelope.getFileName());
+        log.info("Url: {}", envelope.getUrl());
+
+        try {
+            var processedEnvelope = fileContentProcessor.processEnvelope(
+                envelope,
+                serviceName,
+                ocrValidator
+            );
 
-        envelopes.forEach(envelope -> {
-            log.info("Processing file '{}'", envelope.getFileName());
-            log.info("Url: {}", envelope.getUrl());
-
-            try {
-                URL url = new URL(envelope.getUrl());
-
-                try (ZipInputStream zis = new ZipInputStream(new BufferedInputStream(url.openStream(), 1024))) {
-
-                    var processedEnvelope = fileContentProcessor.processZipFileContent(
-                        zis,
-                        envelope,
-                        serviceName,
-                        ocrValidator
-                    );
-
-                    zis.closeEntry();
-                    zis.close();
-
-                    var response = envelopeReceiver.onEnvelopeReceived(processedEnvelope);
-
-                    recordProcessingAttempt(
-                        authTokenGenerator.generate(),
-                        new EnvelopeProcessAttempt(
-                            UUID.randomUUID(),
-                            response.envelopeETag(),
-                            serviceName,
-                            new Date().toString(),
-                            response.description(),
-                            emptyList(),
-                            emptyList(),
-                            response.status()
-                        )
-                    );
-                }
-
-            } catch (EnvelopeRejectionException e) {
-                log.warn("Rejected file {} from container {} - invalid", envelope.getFileName(), serviceName, e);
-                recordProcessingAttempt(
-                    authTokenGenerator.generate(),
-                    new EnvelopeProcessAttempt(
-                        UUID.randomUUID(),
-                        envelope.getEtag(),
-                        serviceName,
-                        new Date().toString(),
-                        "Rejected Envelope " + e.getClass().getName(),
-                        emptyList(),
-                        List.of(e.getMessage()),
-                        EnvelopeProcessStatus.ERRORS
-                    )
-                );
-            } catch (MalformedURLException e) {
-                log.error("Url '{}' is malformed.", envelope.getUrl());
-                log.error(e.getMessage());
-                log.error("Failed to process file {} from container {}", envelope.getFileName(), serviceName, e);
-                recordProcessingAttempt(
-                    authTokenGenerator.generate(),
-                    new EnvelopeProcessAttempt(
-                        UUID.randomUUID(),
-                        envelope.getEtag(),
-                        serviceName,
-                        new Date().toString(),
-                        "Bad url for retrieving envelope "  + envelope.getUrl(),
-                        emptyList(),
-                        List.of(e.getMessage()),
-                        EnvelopeProcessStatus.FATAL
-                    )
-                );
-            } catch (Exception e) {
-                log.error(e.getMessage());
-                log.error("Failed to process file {} from container {}", envelope.getFileName(), serviceName, e);
-                recordProcessingAttempt(
-                    authTokenGenerator.generate(),
-                    new EnvelopeProcessAttempt(
-                        UUID.randomUUID(),
-                        envelope.getEtag(),
-                        serviceName,
-                        new Date().toString(),
-                        "Error processing Envelope",
-                        emptyList(),
-                        List.of(e.getMessage()),
-                        EnvelopeProcessStatus.FATAL
-                    )
-                );
+            if (!envelopeLeaseManager.renew(envelope.getEtag())) {
+                log.warn("Lease on file {} from container {} lost while it was processed, leaving it to the "
+                    + "instance which claimed it", envelope.getFileName(), serviceName);
+                fileContentProcessor.deleteExtractedFiles(envelope);
+                return;
             }
-        });
-    }
 
-    public void recordProcessingAttempt(String serviceAuthToken, EnvelopeProcessAttempt processAttempt) {
-        log.info("Recording Processing Attempt of Envelope {}", processAttempt.envelopeId);
-        var response = bulkScanClient.recordEnvelopeProcessingAttempt(
-            serviceAuthToken,
-            processAttempt.serviceName,
-            processAttempt.envelopeId,
-            processAttempt.attemptId,
-            processAttempt
-        );
-        if (!response.getStatusCode().equals(HttpStatus.OK)) {
-            log.info("Successfully recorded processing attempt of Envelope {} Attempt Id {}",
-                processAttempt.envelopeId,
-                processAttempt.attemptId
+            var response = receive(processedEnvelope);
+
+            processAttemptReporter.report(
+                new EnvelopeProcessAttempt(
+                    UUID.randomUUID(),
+                    response.envelopeETag(),
+                    serviceName,
+                    new Date().toString(),
+                    response.description(),
+                    emptyList(),
+                    emptyList(),
+                    response.status()
+                )
+            );
+
+        } catch (EnvelopeRejectionException e) {
+            log.warn("Rejected file {} from container {} - invalid", envelope.getFileName(), serviceName, e);
+            processAttemptReporter.report(
+                new EnvelopeProcessAttempt(
+                    UUID.randomUUID(),
+                    envelope.getEtag(),
+                    serviceName,
+                    new Date().toString(),
+                    "Rejected Envelope " + e.getClass().getName(),
+                    emptyList(),
+                    e.getErrors(),
+                    EnvelopeProcessStatus.ERRORS
+                )
             );
+        } catch (OcrValidatorUnavailableException e) {
+            log.error("OCR validation of file {} from container {} unavailable", envelope.getFileName(), serviceName, e);
+            envelopeLeaseManager.release(envelope.getEtag());
+            processAttemptReporter.report(
+                new EnvelopeProcessAttempt(
+                    UUID.randomUUID(),
+                    envelope.getEtag(),
+                    serviceName,
+                    new Date().toString(),
+                    "OCR validation unavailable",
+                    emptyList(),
+                    List.of(e.getMessage()),
+                    EnvelopeProcessStatus.FATAL
+                )
+            );
+        } catch (ConnectionUnavailableException e) {
+            // not a failure of the envelope, the next poll finds it again
+            log.warn("No connection free to download file {} from container {}, leaving it for a later poll",
+                envelope.getFileName(),
+                serviceName
+            );
+            envelopeLeaseManager.release(envelope.getEtag());
+        } catch (MalformedURLException e) {
+            log.error("Url '{}' is malformed.", envelope.getUrl());
+            log.error(e.getMessage());
+            log.error("Failed to process file {} from container {}", envelope.getFileName(), serviceName, e);
+            // fatal attempts are retried, let any instance pick the envelope up again
+            envelopeLeaseManager.release(envelope.getEtag());
+            processAttemptReporter.report(
+                new EnvelopeProcessAttempt(
+                    UUID.randomUUID(),
+                    envelope.getEtag(),
+                    serviceName,
+                    new Date().toString(),
+                    "Bad url for retrieving envelope "  + envelope.getUrl(),
+                    emptyList(),
+                    List.of(e.getMessage()),
+                    EnvelopeProcessStatus.FATAL
+                )
+            );
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            log.error("Failed to process file {} from container {}", envelope.getFileName(), serviceName, e);
+            envelopeLeaseManager.release(envelope.getEtag());
+            processAttemptReporter.report(
+                new EnvelopeProcessAttempt(
+                    UUID.randomUUID(),
+                    envelope.getEtag(),
+                    serviceName,
+                    new Date().toString(),
+                    "Error processing Envelope",
+                    emptyList(),
+                    List.of(e.getMessage()),
+                    EnvelopeProcessStatus.FATAL
+                )
+            );
+        }
+    }
+
+    private BulkScanEnvelopeProcessingResponse receive(ProcessedEnvelopeContents processedEnvelope) {
+        long start = System.nanoTime();
+        Timer timer = failedEnvelopeReceipts;
+        try {
+            var response = envelopeReceiver.onEnvelopeReceived(processedEnvelope);
+            timer = receivedEnvelopes;
+            return response;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
+
+    public void recordProcessingAttempt(String serviceAuthToken, EnvelopeProcessAttempt processAttempt) {
+        processAttemptReporter.send(serviceAuthToken, processAttempt);
+    }
+
+    private static Timer fetchTimer(MeterRegistry meterRegistry, String serviceName, String outcome) {
+        return Timer.builder("bulk_scan.envelopes.fetch")
+            .tag("service", serviceName)
+            .tag("outcome", outcome)
+            .description("Requests for the envelopes pending processing by outcome")
+            .register(meterRegistry);
+    }
+
+    private static Timer receiverTimer(MeterRegistry meterRegistry, String serviceName, String outcome) {
+        return Timer.builder("bulk_scan.envelope.receiver")
+            .tag("service", serviceName)
+            .tag("outcome", outcome)
+            .description("Time taken by the service to receive a processed envelope by outcome")
+            .register(meterRegistry);
+    }
 }
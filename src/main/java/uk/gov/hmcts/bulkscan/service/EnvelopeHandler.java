@@ -41,11 +41,7 @@ public class EnvelopeHandler {
         InputEnvelope inputEnvelope,
         IServiceOcrValidator ocrValidator
     ) {
-        envelopeValidator.assertZipFilenameMatchesWithMetadata(inputEnvelope, zipFilename);
-        envelopeValidator.assertEnvelopeContainsOcrDataIfRequired(inputEnvelope);
-        envelopeValidator.assertEnvelopeHasPdfs(inputEnvelope, pdfs);
-        envelopeValidator.assertDocumentControlNumbersAreUnique(inputEnvelope);
-        envelopeValidator.assertEnvelopeContainsDocsOfAllowedTypesOnly(inputEnvelope);
+        envelopeValidator.assertEnvelopeIsValid(inputEnvelope, zipFilename, pdfs);
 
         return bulkScanOcrValidator.assertOcrDataIsValid(
             inputEnvelope,
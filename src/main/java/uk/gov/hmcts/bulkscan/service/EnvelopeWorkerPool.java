@@ -0,0 +1,209 @@
+package uk.gov.hmcts.bulkscan.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.bulkscan.type.BulkScanEnvelope;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.annotation.PreDestroy;
+
+/**
+ * Runs the processing of a batch of envelopes on a bounded pool of workers per service.
+ * With a single worker (the default) envelopes are processed one after another on the calling thread.
+ *
+ * <p>
+ * Submitting slows down when the pool queue is full (the calling thread processes the envelope itself)
+ * or when the download folder or the heap is running out of space, until in-flight envelopes complete.
+ * </p>
+ *
+ * <p>
+ * When virtual threads are enabled and the JDK supports them, each envelope runs on its own virtual thread
+ * instead, capped by the configured maximum concurrency.
+ * </p>
+ */
+@Component
+@Slf4j
+public class EnvelopeWorkerPool {
+
+    private static final long MB = 1024L * 1024L;
+    private static final long CAPACITY_WAIT_MILLIS = 500;
+
+    private final int workers;
+    private final int queueSize;
+    private final File downloadFolder;
+    private final long minFreeDiskSpace;
+    private final long minFreeHeap;
+
+    private final Map<String, ExecutorService> executors = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // null unless virtual threads are enabled and available on the running JDK
+    private final ExecutorService virtualThreadExecutor;
+    private final Semaphore permits;
+
+    public EnvelopeWorkerPool(
+        @Value("${bulk-scan.processing.workers:1}") int workers,
+        @Value("${bulk-scan.processing.queue-size:10}") int queueSize,
+        @Value("${tmp-folder-path-for-download}") String downloadPath,
+        @Value("${bulk-scan.processing.min-free-disk-space-mb:1024}") long minFreeDiskSpaceMb,
+        @Value("${bulk-scan.processing.min-free-heap-mb:256}") long minFreeHeapMb,
+        @Value("${bulk-scan.processing.virtual-threads.enabled:false}") boolean virtualThreads,
+        @Value("${bulk-scan.processing.virtual-threads.max-concurrency:100}") int maxVirtualThreads
+    ) {
+        this.workers = workers;
+        this.queueSize = queueSize;
+        this.downloadFolder = new File(downloadPath);
+        this.minFreeDiskSpace = minFreeDiskSpaceMb * MB;
+        this.minFreeHeap = minFreeHeapMb * MB;
+        this.virtualThreadExecutor = virtualThreads ? newVirtualThreadExecutor().orElse(null) : null;
+        this.permits = new Semaphore(virtualThreadExecutor == null ? Integer.MAX_VALUE : maxVirtualThreads);
+
+        if (virtualThreads && virtualThreadExecutor == null) {
+            log.warn("Virtual threads are not supported by this JDK, using {} envelope workers", workers);
+        }
+    }
+
+    /**
+     * Whether envelopes of a batch can be processed at the same time.
+     *
+     * @return false when they are processed one after another on the calling thread
+     */
+    public boolean processesInParallel() {
+        return virtualThreadExecutor != null || workers > 1;
+    }
+
+    /**
+     * Processes all envelopes and waits for them to complete,
+     * so the next poll does not pick up envelopes which are still in progress.
+     *
+     * @param serviceName service the envelopes belong to
+     * @param envelopes   envelopes to process
+     * @param processor   processing of a single envelope, expected to handle its own errors
+     */
+    public void processAll(
+        String serviceName,
+        List<BulkScanEnvelope> envelopes,
+        Consumer<BulkScanEnvelope> processor
+    ) {
+        if (!processesInParallel()) {
+            envelopes.forEach(processor);
+            return;
+        }
+
+        ExecutorService executor = virtualThreadExecutor != null
+            ? virtualThreadExecutor
+            : executors.computeIfAbsent(serviceName, this::createExecutor);
+        List<Future<?>> futures = new ArrayList<>(envelopes.size());
+
+        for (BulkScanEnvelope envelope : envelopes) {
+            awaitCapacity();
+            if (!acquirePermit()) {
+                break;
+            }
+            inFlight.incrementAndGet();
+            futures.add(executor.submit(() -> {
+                try {
+                    processor.accept(envelope);
+                } finally {
+                    inFlight.decrementAndGet();
+                    permits.release();
+                }
+            }));
+        }
+
+        awaitCompletion(serviceName, futures);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ExecutorService::shutdown);
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.shutdown();
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor is only available from Java 21, the library is built for 17
+    private static Optional<ExecutorService> newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return Optional.of((ExecutorService) factory.invoke(null));
+        } catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+
+    private ExecutorService createExecutor(String serviceName) {
+        log.info("Starting {} envelope workers for service {}", workers, serviceName);
+        return new ThreadPoolExecutor(
+            workers,
+            workers,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            new ThreadFactoryBuilder().setNameFormat("bulk-scan-" + serviceName + "-worker-%d").build(),
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    private boolean acquirePermit() {
+        try {
+            permits.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void awaitCapacity() {
+        while (inFlight.get() > 0 && !hasCapacity()) {
+            log.info("Low on disk space or memory, waiting for {} envelopes to complete", inFlight.get());
+            try {
+                TimeUnit.MILLISECONDS.sleep(CAPACITY_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private boolean hasCapacity() {
+        Runtime runtime = Runtime.getRuntime();
+        long freeHeap = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        long freeDiskSpace = downloadFolder.exists() ? downloadFolder.getUsableSpace() : Long.MAX_VALUE;
+
+        return freeHeap >= minFreeHeap && freeDiskSpace >= minFreeDiskSpace;
+    }
+
+    private void awaitCompletion(String serviceName, List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                log.error("Failed to process envelope for service {}", serviceName, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while waiting for envelopes of service {} to complete", serviceName);
+                return;
+            }
+        }
+    }
+}
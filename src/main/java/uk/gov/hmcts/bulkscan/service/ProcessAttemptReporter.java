@@ -0,0 +1,457 @@
+package uk.gov.hmcts.bulkscan.service;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.bulkscan.client.BulkScanClientApi;
+import uk.gov.hmcts.bulkscan.enums.EnvelopeProcessStatus;
+import uk.gov.hmcts.bulkscan.exception.BulkScanServerException;
+import uk.gov.hmcts.bulkscan.exception.ProcessAttemptRejectedException;
+import uk.gov.hmcts.bulkscan.type.EnvelopeProcessAttempt;
+import uk.gov.hmcts.bulkscan.type.IProcessAttemptOutbox;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.PreDestroy;
+
+/**
+ * Records envelope processing attempts with the bulk scan API.
+ *
+ * <p>
+ * When asynchronous reporting is enabled, attempts are queued and sent in batches by a dedicated sender thread,
+ * retrying failed requests with an increasing delay, so envelope processing does not wait for the bulk scan API.
+ * Only the latest attempt queued for an envelope is sent. Attempts still queued on shutdown are sent before
+ * the application stops. Otherwise attempts are sent straight away on the processing thread.
+ * </p>
+ *
+ * <p>
+ * Every attempt is kept in the {@link IProcessAttemptOutbox} until it is recorded. An envelope polled again while
+ * its attempt is still in the outbox has the attempt sent again instead of being processed again. Attempts left in
+ * the outbox by the last run are sent again on startup, whether reporting is asynchronous or not. An attempt the
+ * bulk scan API refuses with a client error is dropped from the outbox, as sending it again would be refused too.
+ * </p>
+ */
+@Component
+@Slf4j
+public class ProcessAttemptReporter {
+
+    private static final String SEND_METRIC = "bulk_scan.attempts.send";
+
+    private final BulkScanClientApi bulkScanClient;
+    private final ServiceAuthTokenCache serviceAuthTokenCache;
+    private final IProcessAttemptOutbox outbox;
+    private final boolean async;
+    private final int queueSize;
+    private final int batchSize;
+    private final int maxRetries;
+    private final long retryDelayMillis;
+    private final long shutdownTimeoutMillis;
+
+    // queued attempts by envelope etag, oldest first
+    private final Map<String, EnvelopeProcessAttempt> queue = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition attemptsQueued = lock.newCondition();
+    private final Condition queueDrained = lock.newCondition();
+    private boolean sending;
+    private boolean stopping;
+
+    private final Timer sentAttempts;
+    private final Timer failedAttempts;
+    private final Counter droppedAttempts;
+    private final Counter rejectedAttempts;
+    private final Map<EnvelopeProcessStatus, Counter> reportedAttempts = new EnumMap<>(EnvelopeProcessStatus.class);
+
+    // null unless asynchronous reporting is enabled
+    private final Thread sender;
+
+    // sends the attempts left in the outbox by the last run when reporting is not asynchronous, null otherwise
+    private final Thread startupSender;
+
+    public ProcessAttemptReporter(
+        BulkScanClientApi bulkScanClient,
+        ServiceAuthTokenCache serviceAuthTokenCache,
+        IProcessAttemptOutbox outbox,
+        MeterRegistry meterRegistry,
+        @Value("${bulk-scan.service-name}") String serviceName,
+        @Value("${bulk-scan.attempts.async.enabled:false}") boolean async,
+        @Value("${bulk-scan.attempts.queue-size:1000}") int queueSize,
+        @Value("${bulk-scan.attempts.batch-size:50}") int batchSize,
+        @Value("${bulk-scan.attempts.max-retries:5}") int maxRetries,
+        @Value("${bulk-scan.attempts.retry-delay-millis:1000}") long retryDelayMillis,
+        @Value("${bulk-scan.attempts.shutdown-timeout-seconds:30}") long shutdownTimeoutSeconds
+    ) {
+        this.bulkScanClient = bulkScanClient;
+        this.serviceAuthTokenCache = serviceAuthTokenCache;
+        this.outbox = outbox;
+        this.async = async;
+        this.queueSize = queueSize;
+        this.batchSize = batchSize;
+        this.maxRetries = maxRetries;
+        this.retryDelayMillis = retryDelayMillis;
+        this.shutdownTimeoutMillis = TimeUnit.SECONDS.toMillis(shutdownTimeoutSeconds);
+
+        this.sentAttempts = sendTimer(meterRegistry, serviceName, "sent");
+        this.failedAttempts = sendTimer(meterRegistry, serviceName, "failed");
+        this.droppedAttempts = Counter.builder("bulk_scan.attempts.dropped")
+            .tag("service", serviceName)
+            .description("Processing attempts not queued because the queue was full or the application was stopping")
+            .register(meterRegistry);
+        this.rejectedAttempts = Counter.builder("bulk_scan.attempts.rejected")
+            .tag("service", serviceName)
+            .description("Processing attempts refused by the bulk scan API and dropped from the outbox")
+            .register(meterRegistry);
+        for (EnvelopeProcessStatus status : EnvelopeProcessStatus.values()) {
+            reportedAttempts.put(status, Counter.builder("bulk_scan.attempts.reported")
+                .tag("service", serviceName)
+                .tag("status", status.name().toLowerCase(Locale.ROOT))
+                .description("Envelope processing attempts by status")
+                .register(meterRegistry));
+        }
+        Gauge.builder("bulk_scan.attempts.queue.depth", this, ProcessAttemptReporter::getQueueDepth)
+            .tag("service", serviceName)
+            .description("Processing attempts waiting to be sent")
+            .register(meterRegistry);
+
+        if (async) {
+            // attempts not recorded before the last shutdown
+            outbox.pending().forEach(this::enqueue);
+            this.sender = new Thread(this::sendQueuedAttempts, "bulk-scan-attempt-sender");
+            this.sender.setDaemon(true);
+            this.sender.start();
+            this.startupSender = null;
+        } else {
+            this.sender = null;
+            List<EnvelopeProcessAttempt> pending = outbox.pending();
+            if (pending.isEmpty()) {
+                this.startupSender = null;
+            } else {
+                // in the background, so startup does not wait for the bulk scan API
+                this.startupSender = new Thread(() -> sendOnStartup(pending), "bulk-scan-attempt-startup-sender");
+                this.startupSender.setDaemon(true);
+                this.startupSender.start();
+            }
+        }
+    }
+
+    /**
+     * Records the processing attempt, in the background when asynchronous reporting is enabled.
+     * An attempt still queued for the same envelope is replaced. When the queue is full, or the attempt
+     * could not be sent, the attempt is left in the outbox and sent when the envelope is polled again.
+     *
+     * @param processAttempt attempt to record
+     */
+    public void report(EnvelopeProcessAttempt processAttempt) {
+        if (processAttempt.status != null) {
+            reportedAttempts.get(processAttempt.status).increment();
+        }
+        outbox.append(processAttempt);
+
+        if (async) {
+            enqueue(processAttempt);
+        } else {
+            try {
+                sendAndAcknowledge(serviceAuthTokenCache.getToken(), processAttempt);
+            } catch (RuntimeException e) {
+                // the envelope is not processed again while its attempt is in the outbox
+                log.error("Failed to record attempt {} of envelope {}, left in the outbox",
+                    processAttempt.attemptId,
+                    processAttempt.envelopeId,
+                    e
+                );
+            }
+        }
+    }
+
+    /**
+     * Sends the attempt of the envelope again if it has not been recorded yet.
+     *
+     * @param envelopeId etag of the envelope
+     * @return true when the envelope has an attempt not recorded yet, so it does not need processing again
+     */
+    public boolean resendPendingAttempt(String envelopeId) {
+        var pendingAttempt = outbox.findPending(envelopeId);
+        if (pendingAttempt.isEmpty()) {
+            return false;
+        }
+
+        log.info("Attempt {} of envelope {} is not recorded yet, sending it again",
+            pendingAttempt.get().attemptId,
+            envelopeId
+        );
+        if (async) {
+            enqueue(pendingAttempt.get());
+        } else {
+            try {
+                // a refused attempt is dropped, so the envelope is processed again
+                return sendAndAcknowledge(serviceAuthTokenCache.getToken(), pendingAttempt.get());
+            } catch (RuntimeException e) {
+                log.error("Failed to record attempt {} of envelope {}", pendingAttempt.get().attemptId, envelopeId, e);
+            }
+        }
+        return true;
+    }
+
+    private void enqueue(EnvelopeProcessAttempt processAttempt) {
+        lock.lock();
+        try {
+            if (stopping) {
+                log.warn("Not recording attempt {} of envelope {}, shutting down",
+                    processAttempt.attemptId,
+                    processAttempt.envelopeId
+                );
+                droppedAttempts.increment();
+                return;
+            }
+            if (queue.size() >= queueSize && !queue.containsKey(processAttempt.envelopeId)) {
+                log.warn("Processing attempt queue is full, attempt {} of envelope {} left in the outbox",
+                    processAttempt.attemptId,
+                    processAttempt.envelopeId
+                );
+                droppedAttempts.increment();
+                return;
+            }
+            // latest attempt goes to the back of the queue
+            EnvelopeProcessAttempt replaced = queue.remove(processAttempt.envelopeId);
+            if (replaced != null && !replaced.attemptId.equals(processAttempt.attemptId)) {
+                outbox.acknowledge(replaced.attemptId);
+            }
+            queue.put(processAttempt.envelopeId, processAttempt);
+            attemptsQueued.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records the processing attempt on the calling thread.
+     *
+     * @param serviceAuthToken service authorisation token
+     * @param processAttempt   attempt to record
+     */
+    public void send(String serviceAuthToken, EnvelopeProcessAttempt processAttempt) {
+        log.info("Recording Processing Attempt of Envelope {}", processAttempt.envelopeId);
+        var response = bulkScanClient.recordEnvelopeProcessingAttempt(
+            serviceAuthToken,
+            processAttempt.serviceName,
+            processAttempt.envelopeId,
+            processAttempt.attemptId,
+            processAttempt
+        );
+        if (isRefusal(response.getStatusCodeValue())) {
+            throw new ProcessAttemptRejectedException(
+                String.format("Processing attempt %s of envelope %s refused. HTTP Response %s",
+                    processAttempt.attemptId, processAttempt.envelopeId, response.getStatusCode())
+            );
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new BulkScanServerException(
+                String.format("Error recording processing attempt %s of envelope %s. HTTP Response %s",
+                    processAttempt.attemptId, processAttempt.envelopeId, response.getStatusCode())
+            );
+        }
+        log.info("Successfully recorded processing attempt of Envelope {} Attempt Id {}",
+            processAttempt.envelopeId,
+            processAttempt.attemptId
+        );
+    }
+
+    // returns false when the bulk scan API refused the attempt, which is then dropped from the outbox
+    private boolean sendAndAcknowledge(String serviceAuthToken, EnvelopeProcessAttempt processAttempt) {
+        try {
+            send(serviceAuthToken, processAttempt);
+        } catch (ProcessAttemptRejectedException e) {
+            drop(processAttempt, e);
+            return false;
+        } catch (FeignException e) {
+            if (!isRefusal(e.status())) {
+                throw e;
+            }
+            drop(processAttempt, e);
+            return false;
+        }
+        outbox.acknowledge(processAttempt.attemptId);
+        return true;
+    }
+
+    private void drop(EnvelopeProcessAttempt processAttempt, RuntimeException refusal) {
+        log.error("Attempt {} of envelope {} refused by the bulk scan API, dropped from the outbox",
+            processAttempt.attemptId,
+            processAttempt.envelopeId,
+            refusal
+        );
+        rejectedAttempts.increment();
+        outbox.acknowledge(processAttempt.attemptId);
+    }
+
+    // client errors other than a timeout or too many requests are refused again however often they are sent
+    private static boolean isRefusal(int status) {
+        return status >= 400 && status < 500 && status != 408 && status != 429;
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until all attempts queued so far are sent, or the timeout elapses.
+     *
+     * @param timeoutMillis longest time to wait
+     * @return whether every queued attempt was sent
+     */
+    public boolean flush(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            while (!queue.isEmpty() || sending) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                queueDrained.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (startupSender != null) {
+            startupSender.interrupt();
+        }
+        if (sender == null) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            stopping = true;
+            attemptsQueued.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            if (!flush(shutdownTimeoutMillis)) {
+                log.error("Shutting down with {} processing attempts not recorded", getQueueDepth());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sender.interrupt();
+    }
+
+    private void sendQueuedAttempts() {
+        try {
+            while (true) {
+                List<EnvelopeProcessAttempt> batch = takeBatch();
+                if (batch.isEmpty()) {
+                    return;
+                }
+                sendBatch(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // waits for queued attempts, empty once stopping with nothing left to send
+    private List<EnvelopeProcessAttempt> takeBatch() throws InterruptedException {
+        lock.lock();
+        try {
+            sending = false;
+            queueDrained.signalAll();
+            while (queue.isEmpty()) {
+                if (stopping) {
+                    return List.of();
+                }
+                attemptsQueued.await();
+            }
+
+            List<EnvelopeProcessAttempt> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+            Iterator<EnvelopeProcessAttempt> attempts = queue.values().iterator();
+            while (attempts.hasNext() && batch.size() < batchSize) {
+                batch.add(attempts.next());
+                attempts.remove();
+            }
+            sending = true;
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sendOnStartup(List<EnvelopeProcessAttempt> pending) {
+        log.info("Sending {} processing attempts not recorded before the last shutdown", pending.size());
+        try {
+            for (EnvelopeProcessAttempt processAttempt : pending) {
+                sendWithRetries(processAttempt);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sendBatch(List<EnvelopeProcessAttempt> batch) throws InterruptedException {
+        for (EnvelopeProcessAttempt processAttempt : batch) {
+            sendWithRetries(processAttempt);
+        }
+    }
+
+    private void sendWithRetries(EnvelopeProcessAttempt processAttempt) throws InterruptedException {
+        long delayMillis = retryDelayMillis;
+        for (int retry = 0; ; retry++) {
+            long start = System.nanoTime();
+            try {
+                // taken for each send, a batch retried for long can outlive the token
+                boolean recorded = sendAndAcknowledge(serviceAuthTokenCache.getToken(), processAttempt);
+                (recorded ? sentAttempts : failedAttempts).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return;
+            } catch (RuntimeException e) {
+                failedAttempts.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (retry >= maxRetries) {
+                    log.error("Failed to record attempt {} of envelope {}, left in the outbox",
+                        processAttempt.attemptId,
+                        processAttempt.envelopeId,
+                        e
+                    );
+                    return;
+                }
+                log.warn("Failed to record attempt {} of envelope {}, retrying in {} ms",
+                    processAttempt.attemptId,
+                    processAttempt.envelopeId,
+                    delayMillis
+                );
+            }
+            TimeUnit.MILLISECONDS.sleep(delayMillis);
+            delayMillis *= 2;
+        }
+    }
+
+    private static Timer sendTimer(MeterRegistry meterRegistry, String serviceName, String outcome) {
+        return Timer.builder(SEND_METRIC)
+            .tag("service", serviceName)
+            .tag("outcome", outcome)
+            .description("Requests recording processing attempts by outcome")
+            .register(meterRegistry);
+    }
+}
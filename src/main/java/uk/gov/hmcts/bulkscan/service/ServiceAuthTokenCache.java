@@ -0,0 +1,128 @@
+package uk.gov.hmcts.bulkscan.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.authorisation.generators.AuthTokenGenerator;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Reuses the service auth token generated by the {@link AuthTokenGenerator} until shortly before it expires,
+ * as read from the exp claim of the token.
+ *
+ * <p>
+ * Only one caller generates a new token at a time, the others wait for it instead of generating their own.
+ * Tokens without a readable expiry are not reused.
+ * </p>
+ */
+@Component
+@Slf4j
+public class ServiceAuthTokenCache {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final AuthTokenGenerator authTokenGenerator;
+    private final Duration refreshMargin;
+
+    private final Counter generatedTokens;
+    private final Counter cachedTokens;
+
+    private volatile CachedToken cachedToken;
+
+    public ServiceAuthTokenCache(
+        AuthTokenGenerator authTokenGenerator,
+        MeterRegistry meterRegistry,
+        @Value("${bulk-scan.service-name}") String serviceName,
+        @Value("${bulk-scan.auth.refresh-margin-seconds:60}") long refreshMarginSeconds
+    ) {
+        this.authTokenGenerator = authTokenGenerator;
+        this.refreshMargin = Duration.ofSeconds(refreshMarginSeconds);
+
+        this.generatedTokens = Counter.builder("bulk_scan.auth.tokens.generated")
+            .tag("service", serviceName)
+            .description("Service auth tokens generated")
+            .register(meterRegistry);
+        this.cachedTokens = Counter.builder("bulk_scan.auth.tokens.cached")
+            .tag("service", serviceName)
+            .description("Requests for a service auth token served by the cached token")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached service auth token, generating a new one when it is about to expire.
+     *
+     * @return service auth token
+     */
+    public String getToken() {
+        CachedToken current = cachedToken;
+        if (current != null && current.isFresh()) {
+            cachedTokens.increment();
+            return current.token;
+        }
+
+        synchronized (this) {
+            // another caller may have generated the token while this one waited
+            current = cachedToken;
+            if (current != null && current.isFresh()) {
+                cachedTokens.increment();
+                return current.token;
+            }
+
+            String token = authTokenGenerator.generate();
+            generatedTokens.increment();
+
+            Instant expiry = expiry(token);
+            if (expiry == null) {
+                log.warn("Expiry of the service auth token could not be read, the token is not reused");
+                cachedToken = null;
+            } else {
+                cachedToken = new CachedToken(token, expiry.minus(refreshMargin));
+            }
+            return token;
+        }
+    }
+
+    // reads the exp claim of the jwt, null when the token is not a jwt or has no expiry
+    static Instant expiry(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        String jwt = token.startsWith(BEARER_PREFIX) ? token.substring(BEARER_PREFIX.length()) : token;
+        String[] parts = jwt.split("\\.");
+        if (parts.length < 2) {
+            return null;
+        }
+
+        try {
+            JsonNode expiry = MAPPER.readTree(Base64.getUrlDecoder().decode(parts[1])).get("exp");
+            return expiry != null && expiry.canConvertToLong() ? Instant.ofEpochSecond(expiry.asLong()) : null;
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    private static class CachedToken {
+
+        private final String token;
+        private final Instant refreshAt;
+
+        private CachedToken(String token, Instant refreshAt) {
+            this.token = token;
+            this.refreshAt = refreshAt;
+        }
+
+        private boolean isFresh() {
+            return Instant.now().isBefore(refreshAt);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package uk.gov.hmcts.bulkscan.type;
+
+/**
+ * Claims envelopes so that only one instance of a service processes each of them.
+ * Envelopes are identified by their etag.
+ */
+public interface IEnvelopeLeaseManager {
+
+    /**
+     * Tries to claim the envelope for this instance.
+     *
+     * @param etag etag of the envelope
+     * @return true if the envelope was claimed, false if another claim on it has not expired yet
+     */
+    boolean tryAcquire(String etag);
+
+    /**
+     * Extends the claim of this instance on the envelope, even when it expired, as long as no other instance
+     * claimed the envelope since. Called once an envelope is processed, before it is handed to the service,
+     * so an envelope whose claim was lost is not handed over twice.
+     *
+     * <p>
+     * Implementations which cannot tell who holds a claim keep the default, the envelope must then be processed
+     * within the lease duration.
+     * </p>
+     *
+     * @param etag etag of the envelope
+     * @return true if this instance still holds the claim
+     */
+    default boolean renew(String etag) {
+        return true;
+    }
+
+    /**
+     * Gives up the claim on the envelope, so it can be picked up again straight away.
+     *
+     * @param etag etag of the envelope
+     */
+    void release(String etag);
+}
@@ -0,0 +1,50 @@
+package uk.gov.hmcts.bulkscan.type;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps processing attempts until the bulk scan API has recorded them,
+ * so an envelope is not processed again only because its attempt could not be sent.
+ */
+public interface IProcessAttemptOutbox {
+
+    /**
+     * Stores the attempt before it is sent.
+     *
+     * @param processAttempt attempt to store
+     */
+    void append(EnvelopeProcessAttempt processAttempt);
+
+    /**
+     * Removes the attempt once it has been recorded, or is no longer to be sent.
+     *
+     * @param attemptId id of the attempt
+     */
+    void acknowledge(UUID attemptId);
+
+    /**
+     * Attempts stored and not acknowledged yet, oldest first.
+     *
+     * @return pending attempts
+     */
+    List<EnvelopeProcessAttempt> pending();
+
+    /**
+     * Latest attempt stored for the envelope and not acknowledged yet. Called for every envelope polled, the default
+     * goes through all pending attempts so implementations should look the envelope up instead.
+     *
+     * @param envelopeId etag of the envelope
+     * @return pending attempt of the envelope, if any
+     */
+    default Optional<EnvelopeProcessAttempt> findPending(String envelopeId) {
+        List<EnvelopeProcessAttempt> pending = pending();
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            if (pending.get(i).envelopeId.equals(envelopeId)) {
+                return Optional.of(pending.get(i));
+            }
+        }
+        return Optional.empty();
+    }
+}
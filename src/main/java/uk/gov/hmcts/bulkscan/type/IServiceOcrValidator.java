@@ -1,6 +1,23 @@
 package uk.gov.hmcts.bulkscan.type;
 
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
 public interface IServiceOcrValidator {
 
     OcrValidationResult validateEnvelope(String formType, FormData docWithOcr);
+
+    /**
+     * Validates the OCR data of several envelopes at once. Services validating OCR data with a remote call
+     * can override it to validate the whole batch in a single request.
+     *
+     * @param requests form type and OCR data of each envelope
+     * @return validation results, in the order of the requests
+     */
+    default List<OcrValidationResult> validateEnvelopes(List<OcrValidationRequest> requests) {
+        return requests.stream()
+            .map(request -> validateEnvelope(request.formType(), request.formData()))
+            .collect(toList());
+    }
 }
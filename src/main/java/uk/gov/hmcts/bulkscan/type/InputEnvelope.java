@@ -8,9 +8,10 @@ import uk.gov.hmcts.bulkscan.exception.OcrPresenceException;
 import uk.gov.hmcts.bulkscan.util.InstantDeserializer;
 
 import java.time.Instant;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Stream;
+import java.util.Set;
 
 import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
@@ -43,6 +44,10 @@ public class InputEnvelope {
     // The only document types that can (and must) have OCR data.
     // Note: remove 'SSCS1' once sscs migrates to the new format.
     protected static final List<InputDocumentType> OCR_DOC_TYPES = List.of(FORM, SSCS1);
+    private static final Set<InputDocumentType> OCR_DOC_TYPE_SET = EnumSet.copyOf(OCR_DOC_TYPES);
+
+    // computed on first use, racing threads would only compute the same index twice
+    private volatile OcrIndex ocrIndex;
 
     @JsonCreator
     @SuppressWarnings("PMD.ExcessiveParameterList")
@@ -80,31 +85,30 @@ public class InputEnvelope {
     }
 
     public String getFormType() {
-        return this
-                .scannableItems
-                .stream()
-                .filter(si -> InputDocumentType.FORM.equals(si.documentType))
-                .findFirst()
-                .map(si -> si.documentSubtype)
-                .orElse(null);
+        return ocrIndex().formType;
     }
 
     public Optional<InputScannableItem> findDocWithOcr() {
-        return assertHasProperlySetOcr(this.scannableItems);
+        OcrIndex index = ocrIndex();
+        if (index.violation != null) {
+            throw new OcrPresenceException(index.violation);
+        }
+        return Optional.ofNullable(index.docWithOcr);
     }
 
     public List<OcrDataField> retrieveOcrDataFields() {
-        return findScannableItemsWithOcrData()
-                .map(item -> convertFromInputOcrData(item.ocrData))
-                .findFirst()
-                .orElse(null);
+        InputScannableItem docWithOcr = ocrIndex().docWithOcr;
+        return docWithOcr == null ? null : convertFromInputOcrData(docWithOcr.ocrData);
     }
 
-    private Stream<InputScannableItem> findScannableItemsWithOcrData() {
-        return this
-                .scannableItems
-                .stream()
-                .filter(si -> si.ocrData != null);
+    // scannable items are not changed once the envelope is parsed, so they are only looked through once
+    private OcrIndex ocrIndex() {
+        OcrIndex index = ocrIndex;
+        if (index == null) {
+            index = new OcrIndex(scannableItems);
+            ocrIndex = index;
+        }
+        return index;
     }
 
     private List<OcrDataField> convertFromInputOcrData(InputOcrData inputOcrData) {
@@ -123,28 +127,57 @@ public class InputEnvelope {
         return new OcrDataField(inputField.name.textValue(), value);
     }
 
-    private Optional<InputScannableItem> assertHasProperlySetOcr(List<InputScannableItem> docs) {
-
-        if (docs.stream().filter(doc -> doc.ocrData != null).count() > MULTIPLE_DOC_CHECK) {
-            throw new OcrPresenceException(MULTIPLE_OCR_MSG);
+    /**
+     * What the scannable items tell about OCR, found in a single pass over them.
+     */
+    private static final class OcrIndex {
+
+        private final InputScannableItem docWithOcr;
+        // message of the first failed check, in the order they have always been made
+        private final String violation;
+        private final String formType;
+
+        OcrIndex(List<InputScannableItem> docs) {
+            InputScannableItem firstDocWithOcr = null;
+            InputScannableItem firstForm = null;
+            int docsWithOcr = 0;
+            boolean misplacedOcr = false;
+            boolean missingOcr = false;
+            boolean missingSubtype = false;
+
+            for (InputScannableItem doc : docs) {
+                boolean hasOcr = doc.ocrData != null;
+                boolean ocrDocType = OCR_DOC_TYPE_SET.contains(doc.documentType);
+
+                if (hasOcr) {
+                    docsWithOcr++;
+                    if (firstDocWithOcr == null) {
+                        firstDocWithOcr = doc;
+                    }
+                    misplacedOcr |= !ocrDocType;
+                    // TODO: For SSCS1 we don't receive document subtype as it follows a different contract
+                    missingSubtype |= doc.documentType != SSCS1 && doc.documentSubtype == null;
+                } else {
+                    missingOcr |= ocrDocType;
+                }
+                if (firstForm == null && doc.documentType == FORM) {
+                    firstForm = doc;
+                }
+            }
+
+            this.docWithOcr = firstDocWithOcr;
+            this.formType = firstForm == null ? null : firstForm.documentSubtype;
+            if (docsWithOcr > MULTIPLE_DOC_CHECK) {
+                this.violation = MULTIPLE_OCR_MSG;
+            } else if (misplacedOcr) {
+                this.violation = MISPLACED_OCR_MSG;
+            } else if (missingOcr) {
+                this.violation = MISSING_OCR_MSG;
+            } else if (missingSubtype) {
+                this.violation = MISSING_DOC_SUBTYPE_MSG;
+            } else {
+                this.violation = null;
+            }
         }
-        if (docs.stream().anyMatch(doc -> !OCR_DOC_TYPES.contains(doc.documentType) && doc.ocrData != null)) {
-            throw new OcrPresenceException(MISPLACED_OCR_MSG);
-        }
-        if (docs.stream().anyMatch(doc -> OCR_DOC_TYPES.contains(doc.documentType) && doc.ocrData == null)) {
-            throw new OcrPresenceException(MISSING_OCR_MSG);
-        }
-        // TODO: For SSCS1 we don't receive document subtype as it follows a different contract
-        if (docs.stream().anyMatch(
-                doc -> doc.documentType != SSCS1 && doc.documentSubtype == null && doc.ocrData != null
-        )) {
-            throw new OcrPresenceException(MISSING_DOC_SUBTYPE_MSG);
-        }
-
-        return docs
-                .stream()
-                .filter(it -> it.ocrData != null)
-                .findFirst();
     }
 }
-
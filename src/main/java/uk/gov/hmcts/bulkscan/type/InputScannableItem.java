@@ -4,7 +4,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import uk.gov.hmcts.bulkscan.util.InstantDeserializer;
-import uk.gov.hmcts.bulkscan.util.OcrDataDeserializer;
+import uk.gov.hmcts.bulkscan.util.LazyOcrDataDeserializer;
 
 import java.time.Instant;
 
@@ -33,7 +33,7 @@ public class InputScannableItem {
         @JsonProperty("next_action") String nextAction,
         @JsonDeserialize(using = InstantDeserializer.class)
         @JsonProperty("next_action_date") Instant nextActionDate,
-        @JsonDeserialize(using = OcrDataDeserializer.class)
+        @JsonDeserialize(using = LazyOcrDataDeserializer.class)
         @JsonProperty("ocr_data") InputOcrData ocrData,
         @JsonProperty("file_name") String fileName,
         @JsonProperty("notes") String notes,
@@ -0,0 +1,4 @@
+package uk.gov.hmcts.bulkscan.type;
+
+public record OcrValidationRequest(String formType, FormData formData) {
+}
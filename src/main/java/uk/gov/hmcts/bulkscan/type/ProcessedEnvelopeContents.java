@@ -1,13 +1,17 @@
 package uk.gov.hmcts.bulkscan.type;
 
 import lombok.extern.slf4j.Slf4j;
+import uk.gov.hmcts.bulkscan.blob.EnvelopeBlobSource;
 import uk.gov.hmcts.bulkscan.processor.ZipFileProcessor;
 
 import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Collections;
+import java.nio.channels.SeekableByteChannel;
 import java.util.Map;
 import java.util.Optional;
 import java.util.zip.ZipInputStream;
@@ -20,19 +24,37 @@ public class ProcessedEnvelopeContents {
     private final InputEnvelope inputEnvelope;
     private final Optional<OcrValidationWarnings> warnings;
     private final ZipFileProcessor zipFileProcessor;
+    private final EnvelopeBlobSource blobSource;
+    // null until the pdfs are extracted
     private Map<String, File> extractedFiles;
 
+    /**
+     * Kept for services building the contents themselves, the pdfs are downloaded again from the envelope url
+     * without resuming a broken download.
+     *
+     * @deprecated pass the {@link EnvelopeBlobSource} of the envelope instead
+     */
+    @Deprecated
     public ProcessedEnvelopeContents(BulkScanEnvelope envelope,
                                      ZipFileContentDetail zipDetail,
                                      InputEnvelope inputEnvelope,
                                      Optional<OcrValidationWarnings> warnings,
                                      ZipFileProcessor zipFileProcessor) {
+        this(envelope, zipDetail, inputEnvelope, warnings, zipFileProcessor, new UrlBlobSource(envelope));
+    }
+
+    public ProcessedEnvelopeContents(BulkScanEnvelope envelope,
+                                     ZipFileContentDetail zipDetail,
+                                     InputEnvelope inputEnvelope,
+                                     Optional<OcrValidationWarnings> warnings,
+                                     ZipFileProcessor zipFileProcessor,
+                                     EnvelopeBlobSource blobSource) {
         this.envelope = envelope;
         this.zipDetail = zipDetail;
         this.inputEnvelope = inputEnvelope;
         this.warnings = warnings;
         this.zipFileProcessor = zipFileProcessor;
-        this.extractedFiles = Collections.<String, File>emptyMap();
+        this.blobSource = blobSource;
     }
 
     public BulkScanEnvelope getEnvelope() {
@@ -51,20 +73,52 @@ public class ProcessedEnvelopeContents {
         return warnings;
     }
 
+    /**
+     * Returns the pdfs of the envelope, downloading them again unless they were extracted with the metadata.
+     *
+     * @return pdfs of the envelope by file name
+     * @throws UncheckedIOException if the pdfs cannot be downloaded or extracted
+     */
     public Map<String, File> getExtractedFiles() throws MalformedURLException {
 
-        if (!extractedFiles.isEmpty()) {
+        if (extractedFiles != null) {
+            return extractedFiles;
+        }
+
+        // already saved to the temp folder when the envelope was first downloaded
+        if (zipDetail.isPdfsExtracted()) {
+            extractedFiles = zipDetail.getExtractedPdfs();
             return extractedFiles;
         }
 
-        URL url = new URL(envelope.getUrl());
-        try (ZipInputStream zis = new ZipInputStream(new BufferedInputStream(url.openStream(), 1024))) {
+        try (ZipInputStream zis = new ZipInputStream(blobSource.openStream())) {
             extractedFiles = zipFileProcessor.extractPdfFiles(zis, inputEnvelope.zipFileName);
-        } catch (Exception e) {
-            log.error(e.getMessage());
+        } catch (IOException e) {
+            zipFileProcessor.deleteZipExtracted(inputEnvelope.zipFileName);
+            throw new UncheckedIOException("Failed to extract pdfs of envelope " + inputEnvelope.zipFileName, e);
+        } catch (RuntimeException e) {
+            zipFileProcessor.deleteZipExtracted(inputEnvelope.zipFileName);
+            throw e;
         }
         return extractedFiles;
     }
 
+    private static final class UrlBlobSource implements EnvelopeBlobSource {
+
+        private final BulkScanEnvelope envelope;
+
+        private UrlBlobSource(BulkScanEnvelope envelope) {
+            this.envelope = envelope;
+        }
+
+        @Override
+        public SeekableByteChannel openChannel() {
+            throw new UnsupportedOperationException("Envelope " + envelope.getFileName() + " can only be streamed");
+        }
 
+        @Override
+        public InputStream openStream() throws IOException {
+            return new BufferedInputStream(new URL(envelope.getUrl()).openStream(), 1024);
+        }
+    }
 }
@@ -1,20 +1,53 @@
 package uk.gov.hmcts.bulkscan.type;
 
+import java.io.File;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class ZipFileContentDetail {
 
+    // null when the zip has no metafile, the envelope is then rejected when it is parsed
     private final byte[] metadata;
 
     public final List<String> pdfFileNames;
 
+    // pdfs already spooled to disk while reading the zip
+    private final Map<String, File> extractedPdfs;
+
+    // false when the pdfs still need extracting, an extracted envelope can hold no pdf at all
+    private final boolean pdfsExtracted;
+
     public ZipFileContentDetail(byte[] metadata, List<String> pdfFileNames) {
-        this.metadata = Arrays.copyOf(metadata, metadata.length);
+        this(metadata, pdfFileNames, Collections.emptyMap(), false);
+    }
+
+    public ZipFileContentDetail(byte[] metadata, List<String> pdfFileNames, Map<String, File> extractedPdfs) {
+        this(metadata, pdfFileNames, extractedPdfs, true);
+    }
+
+    private ZipFileContentDetail(
+        byte[] metadata,
+        List<String> pdfFileNames,
+        Map<String, File> extractedPdfs,
+        boolean pdfsExtracted
+    ) {
+        this.metadata = metadata == null ? null : Arrays.copyOf(metadata, metadata.length);
         this.pdfFileNames = List.copyOf(pdfFileNames);
+        this.extractedPdfs = Map.copyOf(extractedPdfs);
+        this.pdfsExtracted = pdfsExtracted;
     }
 
     public byte[] getMetadata() {
-        return Arrays.copyOf(metadata, metadata.length);
+        return metadata == null ? null : Arrays.copyOf(metadata, metadata.length);
+    }
+
+    public Map<String, File> getExtractedPdfs() {
+        return extractedPdfs;
+    }
+
+    public boolean isPdfsExtracted() {
+        return pdfsExtracted;
     }
 }
@@ -13,10 +13,71 @@ public final class DateFormatter {
     private static final String DATETIME_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATETIME_PATTERN);
 
+    // length of a timestamp with a four digit year, e.g. 2024-02-29T13:45:07.123Z
+    private static final int FIXED_WIDTH_LENGTH = 24;
+    private static final int SECONDS_PER_DAY = 86_400;
+    private static final int NANOS_PER_MILLI = 1_000_000;
+    // days from 0000-03-01 to 1970-01-01, counting from march puts the leap day at the end of the year
+    private static final long DAYS_0000_TO_1970 = 719_468L;
+
     static Instant getInstant(final String timestamp) {
         return LocalDateTime.parse(timestamp, formatter).toInstant(UTC);
     }
 
+    /**
+     * Reads a timestamp in the usual fixed width form of the pattern straight from the characters given,
+     * without creating any object but the instant.
+     *
+     * @param text   characters holding the timestamp
+     * @param offset index of the first character of the timestamp
+     * @param length number of characters of the timestamp
+     * @return the instant, or null when the text is not a plain four digit year timestamp with every field in range,
+     *     in which case it has to be parsed with the formatter
+     */
+    static Instant getInstant(final char[] text, final int offset, final int length) {
+        if (length != FIXED_WIDTH_LENGTH
+            || text[offset + 4] != '-' || text[offset + 7] != '-' || text[offset + 10] != 'T'
+            || text[offset + 13] != ':' || text[offset + 16] != ':' || text[offset + 19] != '.'
+            || text[offset + 23] != 'Z') {
+            return null;
+        }
+
+        return toInstant(
+            digits(text, offset, 4),
+            digits(text, offset + 5, 2),
+            digits(text, offset + 8, 2),
+            digits(text, offset + 11, 2),
+            digits(text, offset + 14, 2),
+            digits(text, offset + 17, 2),
+            digits(text, offset + 20, 3)
+        );
+    }
+
+    /**
+     * Same as {@link #getInstant(char[], int, int)} for a timestamp already held in a string, e.g. by a tree node.
+     *
+     * @param text the timestamp
+     * @return the instant, or null when it has to be parsed with the formatter
+     */
+    static Instant getFixedWidthInstant(final String text) {
+        if (text.length() != FIXED_WIDTH_LENGTH
+            || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+            || text.charAt(13) != ':' || text.charAt(16) != ':' || text.charAt(19) != '.'
+            || text.charAt(23) != 'Z') {
+            return null;
+        }
+
+        return toInstant(
+            digits(text, 0, 4),
+            digits(text, 5, 2),
+            digits(text, 8, 2),
+            digits(text, 11, 2),
+            digits(text, 14, 2),
+            digits(text, 17, 2),
+            digits(text, 20, 3)
+        );
+    }
+
     public static String getSimpleDateTime(final Instant instant) {
         return formatter.format(ZonedDateTime.ofInstant(instant, ZoneId.from(UTC)));
     }
@@ -25,6 +86,73 @@ public final class DateFormatter {
         return DATETIME_PATTERN;
     }
 
+    // null when any field is out of range, the formatter then decides how to resolve or reject it
+    private static Instant toInstant(
+        final int year,
+        final int month,
+        final int day,
+        final int hour,
+        final int minute,
+        final int second,
+        final int millis
+    ) {
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+            || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || millis < 0) {
+            return null;
+        }
+
+        long secondOfDay = hour * 3600L + minute * 60L + second;
+        return Instant.ofEpochSecond(epochDay(year, month, day) * SECONDS_PER_DAY + secondOfDay, millis * NANOS_PER_MILLI);
+    }
+
+    // value of the decimal digits, or -1 when any of the characters is not one
+    private static int digits(final char[] text, final int offset, final int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = text[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int digits(final String text, final int offset, final int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(final int year, final int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static boolean isLeapYear(final int year) {
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+    }
+
+    // days since 1970-01-01 of a proleptic gregorian date with a positive year
+    private static long epochDay(final int year, final int month, final int day) {
+        int marchBasedYear = month > 2 ? year : year - 1;
+        int marchBasedMonth = month > 2 ? month - 3 : month + 9;
+        int era = marchBasedYear / 400;
+        int yearOfEra = marchBasedYear - era * 400;
+        int dayOfYear = (153 * marchBasedMonth + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - DAYS_0000_TO_1970;
+    }
+
     private DateFormatter() {
         // utility class constructor
     }
@@ -21,7 +21,27 @@ public final class InstantDeserializer extends StdDeserializer<Instant> {
     @Override
     public Instant deserialize(JsonParser parser, DeserializationContext ctxt) throws IOException {
 
-        String timestampString = parser.getText();
+        String timestampString;
+        if (parser.hasTextCharacters()) {
+            // a streaming parser, its own buffer is read so the usual timestamps need no string
+            Instant instant = DateFormatter.getInstant(
+                parser.getTextCharacters(),
+                parser.getTextOffset(),
+                parser.getTextLength()
+            );
+            if (instant != null) {
+                return instant;
+            }
+            timestampString = parser.getText();
+        } else {
+            // a parser over a tree, e.g. from treeToValue, already holds the string of the text node,
+            // getTextCharacters would copy it into a new array
+            timestampString = parser.getText();
+            Instant instant = timestampString == null ? null : DateFormatter.getFixedWidthInstant(timestampString);
+            if (instant != null) {
+                return instant;
+            }
+        }
 
         try {
             return DateFormatter.getInstant(timestampString);
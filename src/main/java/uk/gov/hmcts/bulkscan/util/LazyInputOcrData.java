@@ -0,0 +1,70 @@
+package uk.gov.hmcts.bulkscan.util;
+
+import com.fasterxml.jackson.core.ObjectCodec;
+import uk.gov.hmcts.bulkscan.exception.InvalidEnvelopeSchemaException;
+import uk.gov.hmcts.bulkscan.exception.OcrDataParseException;
+import uk.gov.hmcts.bulkscan.type.InputOcrData;
+import uk.gov.hmcts.bulkscan.type.InputOcrDataField;
+
+import java.util.List;
+
+/**
+ * OCR data decoded on the first call to {@link #getFields()}, once for all threads reading it.
+ *
+ * <p>
+ * Invalid OCR data is reported whenever the fields are read, with the exception thrown when the metafile could not be
+ * parsed. The envelope validator reads the fields of every scannable item, so the envelope is still rejected before
+ * it is handed to the service.
+ * </p>
+ */
+class LazyInputOcrData extends InputOcrData {
+
+    private final ObjectCodec codec;
+
+    // released once decoded
+    private String base64EncodedOcrData;
+    private volatile boolean decoded;
+    // cause of the decoding failure, a new exception is thrown on every read
+    private Exception failure;
+
+    LazyInputOcrData(String base64EncodedOcrData, ObjectCodec codec) {
+        this.base64EncodedOcrData = base64EncodedOcrData;
+        this.codec = codec;
+    }
+
+    @Override
+    public List<InputOcrDataField> getFields() {
+        if (!decoded) {
+            decode();
+        }
+        if (failure != null) {
+            throw new InvalidEnvelopeSchemaException(
+                "Error occurred while parsing metafile",
+                new OcrDataParseException(null, "Failed to parse OCR data", failure)
+            );
+        }
+        return super.getFields();
+    }
+
+    @Override
+    public synchronized void setFields(List<InputOcrDataField> fields) {
+        super.setFields(fields);
+        base64EncodedOcrData = null;
+        failure = null;
+        decoded = true;
+    }
+
+    private synchronized void decode() {
+        if (decoded) {
+            return;
+        }
+
+        try {
+            super.setFields(OcrDataDeserializer.parseOcrData(base64EncodedOcrData, codec).getFields());
+        } catch (Exception ex) {
+            failure = ex;
+        }
+        base64EncodedOcrData = null;
+        decoded = true;
+    }
+}
@@ -0,0 +1,29 @@
+package uk.gov.hmcts.bulkscan.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import uk.gov.hmcts.bulkscan.type.InputOcrData;
+
+import java.io.IOException;
+
+/**
+ * Keeps the base64 OCR data as found in the metafile and only decodes it the first time its fields are read,
+ * so envelopes whose OCR data is never looked at, e.g. exceptions, skip decoding it.
+ */
+public class LazyOcrDataDeserializer extends StdDeserializer<InputOcrData> {
+
+    private static final long serialVersionUID = 2204766163911384921L;
+
+    public LazyOcrDataDeserializer() {
+        super(InputOcrData.class);
+    }
+
+    @Override
+    public InputOcrData deserialize(
+        JsonParser jsonParser,
+        DeserializationContext deserializationContext
+    ) throws IOException {
+        return new LazyInputOcrData(jsonParser.getText(), OcrDataDeserializer.codec(jsonParser));
+    }
+}
@@ -1,6 +1,7 @@
 package uk.gov.hmcts.bulkscan.util;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.ObjectCodec;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
@@ -8,8 +9,13 @@ import uk.gov.hmcts.bulkscan.exception.OcrDataParseException;
 import uk.gov.hmcts.bulkscan.type.InputOcrData;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.Base64;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 public class OcrDataDeserializer extends StdDeserializer<InputOcrData> {
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
@@ -25,14 +31,73 @@ public class OcrDataDeserializer extends StdDeserializer<InputOcrData> {
         DeserializationContext deserializationContext
     ) throws OcrDataParseException {
         try {
-            return parseOcrData(jsonParser.getText());
+            return parseOcrData(jsonParser.getText(), codec(jsonParser));
         } catch (Exception ex) {
             throw new OcrDataParseException(jsonParser, "Failed to parse OCR data", ex);
         }
     }
 
-    private InputOcrData parseOcrData(String base64EncodedOcrData) throws IOException {
-        String ocrDataJson = new String(Base64.getDecoder().decode(base64EncodedOcrData));
-        return objectMapper.readValue(ocrDataJson, InputOcrData.class);
+    /**
+     * Decodes the base64 OCR data while parsing it, without holding the decoded bytes or json text in memory.
+     *
+     * @param base64EncodedOcrData OCR data as found in the metafile
+     * @param codec                mapper the OCR data json is read with
+     * @return parsed OCR data
+     */
+    static InputOcrData parseOcrData(String base64EncodedOcrData, ObjectCodec codec) throws IOException {
+        InputStream decoded = Base64.getDecoder().wrap(new AsciiInputStream(base64EncodedOcrData));
+
+        try (Reader ocrDataJson = new InputStreamReader(decoded, UTF_8);
+             JsonParser ocrDataParser = codec.getFactory().createParser(ocrDataJson)) {
+            ocrDataParser.setCodec(codec);
+            return ocrDataParser.readValueAs(InputOcrData.class);
+        }
+    }
+
+    // the mapper reading the metafile, unless the parser was not created by one
+    static ObjectCodec codec(JsonParser jsonParser) {
+        ObjectCodec codec = jsonParser.getCodec();
+        return codec == null ? objectMapper : codec;
+    }
+
+    /**
+     * Reads the characters of the base64 text as bytes, base64 being plain ASCII, instead of copying them to an array.
+     */
+    private static final class AsciiInputStream extends InputStream {
+
+        // not part of the base64 alphabet, so the decoder rejects any non ASCII character
+        private static final byte NON_ASCII = '?';
+
+        private final String text;
+        private int position;
+
+        AsciiInputStream(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read() {
+            return position < text.length() ? toByte(text.charAt(position++)) : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= text.length()) {
+                return -1;
+            }
+
+            int count = Math.min(length, text.length() - position);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = toByte(text.charAt(position++));
+            }
+            return count;
+        }
+
+        private static byte toByte(char character) {
+            return character < 0x80 ? (byte) character : NON_ASCII;
+        }
     }
 }
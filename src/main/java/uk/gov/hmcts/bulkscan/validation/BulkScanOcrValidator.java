@@ -1,7 +1,12 @@
 package uk.gov.hmcts.bulkscan.validation;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import uk.gov.hmcts.bulkscan.exception.OcrValidationException;
 import uk.gov.hmcts.bulkscan.type.FormData;
@@ -10,10 +15,16 @@ import uk.gov.hmcts.bulkscan.type.InputDocumentType;
 import uk.gov.hmcts.bulkscan.type.InputEnvelope;
 import uk.gov.hmcts.bulkscan.type.InputScannableItem;
 import uk.gov.hmcts.bulkscan.type.OcrDataField;
+import uk.gov.hmcts.bulkscan.type.OcrValidationResult;
 import uk.gov.hmcts.bulkscan.type.OcrValidationStatus;
 import uk.gov.hmcts.bulkscan.type.OcrValidationWarnings;
 
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
@@ -24,6 +35,46 @@ public class BulkScanOcrValidator {
 
     private static final Logger log = LoggerFactory.getLogger(BulkScanOcrValidator.class);
 
+    // tags the meters of a validator built without the bulk-scan properties
+    private static final String DEFAULT_SERVICE_NAME = "default";
+
+    private final OcrValidationGuard ocrValidationGuard;
+    private final OcrValidationCache ocrValidationCache;
+
+    private final Map<OcrValidationStatus, Timer> validationTimes = new EnumMap<>(OcrValidationStatus.class);
+    private final Timer failedValidationTime;
+
+    /**
+     * Kept for services building the validator themselves. The service validator is called directly, without the
+     * guard or the cache, and the meters are registered with the global registry.
+     *
+     * @deprecated the validator is meant to be created by Spring, which configures it from the bulk-scan properties
+     */
+    @Deprecated
+    public BulkScanOcrValidator() {
+        this(
+            new OcrValidationGuard(false, 30_000, 10, 0, 50, 20, 10, 60_000),
+            new OcrValidationCache(Metrics.globalRegistry, DEFAULT_SERVICE_NAME, false, 1000, 60),
+            Metrics.globalRegistry,
+            DEFAULT_SERVICE_NAME
+        );
+    }
+
+    @Autowired
+    public BulkScanOcrValidator(
+        OcrValidationGuard ocrValidationGuard,
+        OcrValidationCache ocrValidationCache,
+        MeterRegistry meterRegistry,
+        @Value("${bulk-scan.service-name}") String serviceName
+    ) {
+        this.ocrValidationGuard = ocrValidationGuard;
+        this.ocrValidationCache = ocrValidationCache;
+
+        for (OcrValidationStatus status : OcrValidationStatus.values()) {
+            validationTimes.put(status, validationTimer(meterRegistry, serviceName, status.name().toLowerCase(Locale.ROOT)));
+        }
+        this.failedValidationTime = validationTimer(meterRegistry, serviceName, "failed");
+    }
 
     /**
      * If required, validates the OCR data of the given envelope.
@@ -31,6 +82,8 @@ public class BulkScanOcrValidator {
      * @return Warnings for valid OCR data, to be displayed to the caseworker. Empty if
      *         no validation took place.
      * @throws OcrValidationException if the OCR data is invalid
+     * @throws uk.gov.hmcts.bulkscan.exception.OcrValidatorUnavailableException if the OCR validation service
+     *         could not be called
      */
     public Optional<OcrValidationWarnings> assertOcrDataIsValid(
         InputEnvelope envelope,
@@ -42,7 +95,14 @@ public class BulkScanOcrValidator {
 
         return envelope.findDocWithOcr()
             .map(docWithOcr -> {
-                var res = validator.validateEnvelope(getFormType(docWithOcr), toFormData(docWithOcr));
+                var formType = getFormType(docWithOcr);
+                var formData = toFormData(docWithOcr);
+                var res = ocrValidationCache.get(
+                    validator,
+                    formType,
+                    formData,
+                    () -> timed(() -> ocrValidationGuard.execute(() -> validator.validateEnvelope(formType, formData)))
+                );
                 if (res.status().equals(OcrValidationStatus.ERRORS)) {
                     var errorMessage = "OCR validation service returned OCR-specific errors. "
                         + "Document control number: " + docWithOcr.documentControlNumber + ". "
@@ -88,6 +148,29 @@ public class BulkScanOcrValidator {
             });
     }
 
+    // results found in the cache are not timed, only calls to the service validator
+    private OcrValidationResult timed(Supplier<OcrValidationResult> validation) {
+        long start = System.nanoTime();
+        Timer timer = failedValidationTime;
+        try {
+            OcrValidationResult result = validation.get();
+            if (result != null && result.status() != null) {
+                timer = validationTimes.get(result.status());
+            }
+            return result;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Timer validationTimer(MeterRegistry meterRegistry, String serviceName, String status) {
+        return Timer.builder("bulk_scan.ocr_validation")
+            .tag("service", serviceName)
+            .tag("status", status)
+            .description("Calls to the service OCR validator by status of the result")
+            .register(meterRegistry);
+    }
+
     private FormData toFormData(InputScannableItem doc) {
         return new FormData(
             doc
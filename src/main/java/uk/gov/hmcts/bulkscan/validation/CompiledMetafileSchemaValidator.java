@@ -0,0 +1,354 @@
+package uk.gov.hmcts.bulkscan.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import uk.gov.hmcts.bulkscan.exception.InvalidEnvelopeSchemaException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Validates metafiles with the rules of metafile-schema.json written out as code,
+ * so nothing is interpreted or allocated per keyword at runtime.
+ * Must be kept in line with the schema, {@code SchemaValidatorConformanceTest} checks that both give the same
+ * accept or reject decision.
+ *
+ * <p>
+ * Patterns follow the ECMA 262 semantics of json schema: {@code $} only matches at the very end of the input
+ * and {@code .} matches anything but a line terminator.
+ * </p>
+ */
+public class CompiledMetafileSchemaValidator implements SchemaValidator {
+
+    private static final Pattern DATE_TIME = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{3}Z\\z");
+    private static final Pattern ZIP_FILE_NAME = Pattern.compile(
+        "^\\d+_([012][0-9]|30|31)-([0][0-9]|[1][012])-[2][0][0-9][0-9]-([01][0-9]|[2][0123])-[0-5][0-9]-[0-5][0-9]"
+            + "\\.(test\\.)?zip\\z"
+    );
+    private static final Pattern DIGITS = Pattern.compile("^[0-9]+\\z");
+    private static final Pattern BASE64 = Pattern.compile("^[0-9a-zA-Z=+/]*\\z");
+    private static final Pattern PDF_FILE_NAME = Pattern.compile("^[^\\n\\r\\u2028\\u2029]+\\.pdf\\z");
+
+    private static final int MAX_CASE_NUMBER_LENGTH = 100;
+    private static final int NO_MAX_LENGTH = -1;
+    private static final boolean NULLABLE = true;
+    private static final boolean NOT_NULLABLE = false;
+
+    private static final Set<String> CLASSIFICATIONS = Set.of(
+        "exception",
+        "new_application",
+        "supplementary_evidence",
+        "supplementary_evidence_with_ocr"
+    );
+    private static final Set<String> DOCUMENT_TYPES = Set.of("Cherished", "Other", "SSCS1", "Will", "Coversheet", "Form");
+
+    private static final Set<String> ENVELOPE_PROPERTIES = Set.of(
+        "case_number",
+        "previous_service_case_reference",
+        "po_box",
+        "jurisdiction",
+        "delivery_date",
+        "opening_date",
+        "zip_file_createddate",
+        "zip_file_name",
+        "rescan_for",
+        "envelope_classification",
+        "scannable_items",
+        "payments",
+        "non_scannable_items"
+    );
+    private static final List<String> ENVELOPE_REQUIRED = List.of(
+        "po_box",
+        "jurisdiction",
+        "delivery_date",
+        "opening_date",
+        "zip_file_createddate",
+        "zip_file_name",
+        "envelope_classification",
+        "scannable_items"
+    );
+    private static final Set<String> SCANNABLE_ITEM_PROPERTIES = Set.of(
+        "document_control_number",
+        "scanning_date",
+        "ocr_accuracy",
+        "manual_intervention",
+        "next_action",
+        "next_action_date",
+        "ocr_data",
+        "file_name",
+        "notes",
+        "document_type",
+        "document_sub_type"
+    );
+    private static final List<String> SCANNABLE_ITEM_REQUIRED = List.of(
+        "document_control_number",
+        "scanning_date",
+        "file_name",
+        "document_type",
+        "next_action",
+        "next_action_date"
+    );
+    private static final List<String> PAYMENT_REQUIRED = List.of("document_control_number");
+    private static final Set<String> NON_SCANNABLE_ITEM_PROPERTIES = Set.of("document_control_number", "item_type", "notes");
+    private static final List<String> NON_SCANNABLE_ITEM_REQUIRED = List.of("document_control_number", "item_type");
+
+    @Override
+    public void validate(JsonNode metafile, String zipFileName) {
+        var violations = new Violations();
+
+        if (violations.object(metafile, "", ENVELOPE_PROPERTIES, ENVELOPE_REQUIRED)) {
+            violations.string(metafile, "", "case_number", NULLABLE, null, MAX_CASE_NUMBER_LENGTH);
+            violations.string(metafile, "", "previous_service_case_reference", NULLABLE, null, NO_MAX_LENGTH);
+            violations.string(metafile, "", "po_box", NOT_NULLABLE, null, NO_MAX_LENGTH);
+            violations.string(metafile, "", "jurisdiction", NOT_NULLABLE, null, NO_MAX_LENGTH);
+            violations.string(metafile, "", "delivery_date", NOT_NULLABLE, DATE_TIME, NO_MAX_LENGTH);
+            violations.string(metafile, "", "opening_date", NOT_NULLABLE, DATE_TIME, NO_MAX_LENGTH);
+            violations.string(metafile, "", "zip_file_createddate", NOT_NULLABLE, DATE_TIME, NO_MAX_LENGTH);
+            violations.string(metafile, "", "zip_file_name", NOT_NULLABLE, ZIP_FILE_NAME, NO_MAX_LENGTH);
+            violations.string(metafile, "", "rescan_for", NULLABLE, ZIP_FILE_NAME, NO_MAX_LENGTH);
+            violations.enumeration(metafile, "", "envelope_classification", CLASSIFICATIONS);
+            checkScannableItems(violations, metafile);
+            checkPayments(violations, metafile);
+            checkNonScannableItems(violations, metafile);
+        }
+
+        if (!violations.messages.isEmpty()) {
+            throw new InvalidEnvelopeSchemaException(violations.messages, zipFileName);
+        }
+    }
+
+    private static void checkScannableItems(Violations violations, JsonNode metafile) {
+        JsonNode items = violations.array(metafile, "", "scannable_items", 1);
+        for (int i = 0; items != null && i < items.size(); i++) {
+            JsonNode item = items.get(i);
+            String pointer = "/scannable_items/" + i;
+
+            if (violations.object(item, pointer, SCANNABLE_ITEM_PROPERTIES, SCANNABLE_ITEM_REQUIRED)) {
+                violations.string(item, pointer, "document_control_number", NOT_NULLABLE, DIGITS, NO_MAX_LENGTH);
+                violations.string(item, pointer, "scanning_date", NOT_NULLABLE, DATE_TIME, NO_MAX_LENGTH);
+                violations.string(item, pointer, "ocr_accuracy", NULLABLE, null, NO_MAX_LENGTH);
+                violations.string(item, pointer, "manual_intervention", NULLABLE, null, NO_MAX_LENGTH);
+                violations.string(item, pointer, "next_action", NOT_NULLABLE, null, NO_MAX_LENGTH);
+                violations.string(item, pointer, "next_action_date", NOT_NULLABLE, DATE_TIME, NO_MAX_LENGTH);
+                violations.string(item, pointer, "ocr_data", NULLABLE, BASE64, NO_MAX_LENGTH);
+                violations.string(item, pointer, "file_name", NOT_NULLABLE, PDF_FILE_NAME, NO_MAX_LENGTH);
+                violations.string(item, pointer, "notes", NULLABLE, null, NO_MAX_LENGTH);
+                violations.enumeration(item, pointer, "document_type", DOCUMENT_TYPES);
+                violations.string(item, pointer, "document_sub_type", NULLABLE, null, NO_MAX_LENGTH);
+            }
+        }
+    }
+
+    private static void checkPayments(Violations violations, JsonNode metafile) {
+        JsonNode payments = violations.array(metafile, "", "payments", 0);
+        for (int i = 0; payments != null && i < payments.size(); i++) {
+            JsonNode payment = payments.get(i);
+            String pointer = "/payments/" + i;
+
+            // additional properties are allowed on payments
+            if (violations.object(payment, pointer, null, PAYMENT_REQUIRED)) {
+                violations.string(payment, pointer, "document_control_number", NOT_NULLABLE, DIGITS, NO_MAX_LENGTH);
+            }
+        }
+    }
+
+    private static void checkNonScannableItems(Violations violations, JsonNode metafile) {
+        JsonNode items = violations.array(metafile, "", "non_scannable_items", 0);
+        for (int i = 0; items != null && i < items.size(); i++) {
+            JsonNode item = items.get(i);
+            String pointer = "/non_scannable_items/" + i;
+
+            if (violations.object(item, pointer, NON_SCANNABLE_ITEM_PROPERTIES, NON_SCANNABLE_ITEM_REQUIRED)) {
+                violations.string(item, pointer, "document_control_number", NOT_NULLABLE, DIGITS, NO_MAX_LENGTH);
+                violations.string(item, pointer, "item_type", NOT_NULLABLE, null, NO_MAX_LENGTH);
+                violations.string(item, pointer, "notes", NOT_NULLABLE, null, NO_MAX_LENGTH);
+            }
+        }
+    }
+
+    private static final class Violations {
+
+        private final List<String> messages = new ArrayList<>();
+
+        /**
+         * Checks the node is an object with the required properties and no others.
+         *
+         * @param properties allowed properties, null to allow any
+         * @return whether the node is an object, so its properties can be checked
+         */
+        boolean object(JsonNode node, String pointer, Set<String> properties, List<String> required) {
+            if (!node.isObject()) {
+                add(pointer, "instance type (" + type(node) + ") does not match the allowed type (object)");
+                return false;
+            }
+
+            Set<String> missing = new TreeSet<>();
+            for (String name : required) {
+                if (!node.has(name)) {
+                    missing.add(name);
+                }
+            }
+            if (!missing.isEmpty()) {
+                add(pointer, "object has missing required properties " + missing);
+            }
+
+            if (properties != null) {
+                Set<String> unwanted = new TreeSet<>();
+                for (Iterator<String> names = node.fieldNames(); names.hasNext(); ) {
+                    String name = names.next();
+                    if (!properties.contains(name)) {
+                        unwanted.add(name);
+                    }
+                }
+                if (!unwanted.isEmpty()) {
+                    add(pointer, "object instance has properties which are not allowed by the schema: " + unwanted);
+                }
+            }
+            return true;
+        }
+
+        void string(JsonNode parent, String parentPointer, String name, boolean nullable, Pattern pattern, int maxLength) {
+            JsonNode node = parent.get(name);
+            if (node == null || nullable && node.isNull()) {
+                return;
+            }
+
+            String pointer = parentPointer + "/" + name;
+            if (!node.isTextual()) {
+                add(pointer, "instance type (" + type(node) + ") does not match the allowed type (string)");
+                return;
+            }
+
+            String value = node.textValue();
+            if (maxLength != NO_MAX_LENGTH && value.codePointCount(0, value.length()) > maxLength) {
+                add(pointer, "string is too long (maximum " + maxLength + ")");
+            }
+            if (pattern != null && !pattern.matcher(value).find()) {
+                add(pointer, "string does not match pattern " + pattern.pattern());
+            }
+        }
+
+        void enumeration(JsonNode parent, String parentPointer, String name, Set<String> values) {
+            JsonNode node = parent.get(name);
+            if (node == null) {
+                return;
+            }
+
+            if (!node.isTextual() || !values.contains(node.textValue())) {
+                add(parentPointer + "/" + name, "instance value (" + node + ") not found in enum " + new TreeSet<>(values));
+            }
+        }
+
+        /**
+         * Checks the property is an array with enough items, all different from each other.
+         *
+         * @return the array, null when missing or not an array
+         */
+        JsonNode array(JsonNode parent, String parentPointer, String name, int minItems) {
+            JsonNode node = parent.get(name);
+            if (node == null) {
+                return null;
+            }
+
+            String pointer = parentPointer + "/" + name;
+            if (!node.isArray()) {
+                add(pointer, "instance type (" + type(node) + ") does not match the allowed type (array)");
+                return null;
+            }
+
+            if (node.size() < minItems) {
+                add(pointer, "array is too short (minimum " + minItems + ")");
+            }
+            if (!hasUniqueItems(node)) {
+                add(pointer, "array must not contain duplicate elements");
+            }
+            return node;
+        }
+
+        private void add(String pointer, String message) {
+            messages.add((pointer.isEmpty() ? "/" : pointer) + ": " + message);
+        }
+
+        private static boolean hasUniqueItems(JsonNode array) {
+            Set<UniqueItem> items = new HashSet<>();
+            for (JsonNode item : array) {
+                if (!items.add(new UniqueItem(item))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static String type(JsonNode node) {
+            return node.getNodeType().name().toLowerCase();
+        }
+    }
+
+    // json schema equality, where numbers are equal when they have the same value (1 and 1.0)
+    private static final class JsonEquality {
+
+        private JsonEquality() {
+            // utility class constructor
+        }
+
+        static int compare(JsonNode first, JsonNode second) {
+            if (first.isNumber() && second.isNumber()) {
+                return first.decimalValue().compareTo(second.decimalValue());
+            }
+            return first.equals(second) ? 0 : 1;
+        }
+
+        // consistent with compare, so nodes equal in json schema terms have the same hash
+        static int hash(JsonNode node) {
+            if (node.isNumber()) {
+                return node.decimalValue().stripTrailingZeros().hashCode();
+            }
+            if (node.isArray()) {
+                int hash = 1;
+                for (JsonNode item : node) {
+                    hash = 31 * hash + hash(item);
+                }
+                return hash;
+            }
+            if (node.isObject()) {
+                int hash = 0;
+                Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    hash += field.getKey().hashCode() ^ hash(field.getValue());
+                }
+                return hash;
+            }
+            return node.hashCode();
+        }
+    }
+
+    // array item compared with json schema equality
+    private static final class UniqueItem {
+
+        private final JsonNode node;
+        private final int hash;
+
+        private UniqueItem(JsonNode node) {
+            this.node = node;
+            this.hash = JsonEquality.hash(node);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof UniqueItem
+                && hash == ((UniqueItem) other).hash
+                && node.equals(JsonEquality::compare, ((UniqueItem) other).node);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
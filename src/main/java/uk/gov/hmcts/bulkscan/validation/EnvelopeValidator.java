@@ -5,6 +5,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
 import uk.gov.hmcts.bulkscan.exception.DisallowedDocumentTypesException;
 import uk.gov.hmcts.bulkscan.exception.DuplicateDocumentControlNumbersInEnvelopeException;
+import uk.gov.hmcts.bulkscan.exception.EnvelopeRejectionException;
+import uk.gov.hmcts.bulkscan.exception.EnvelopeValidationException;
 import uk.gov.hmcts.bulkscan.exception.FileNameIrregularitiesException;
 import uk.gov.hmcts.bulkscan.exception.OcrDataNotFoundException;
 import uk.gov.hmcts.bulkscan.exception.ZipNameNotMatchingMetaDataException;
@@ -15,20 +17,19 @@ import uk.gov.hmcts.bulkscan.type.InputScannableItem;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Stream;
 
-import static java.util.Arrays.asList;
-import static java.util.Collections.emptyList;
 import static java.util.Objects.isNull;
-import static java.util.stream.Collectors.counting;
-import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toSet;
 import static org.springframework.util.CollectionUtils.isEmpty;
 
 @Component
@@ -40,14 +41,116 @@ public class EnvelopeValidator {
             "SSCS", InputDocumentType.SSCS1
         );
 
-    private static final Map<Classification, List<InputDocumentType>> disallowedDocumentTypes =
+    private static final Map<Classification, Set<InputDocumentType>> disallowedDocumentTypes =
         Map.of(
-            Classification.EXCEPTION, emptyList(),
-            Classification.NEW_APPLICATION, emptyList(),
-            Classification.SUPPLEMENTARY_EVIDENCE, asList(InputDocumentType.FORM, InputDocumentType.SSCS1),
-            Classification.SUPPLEMENTARY_EVIDENCE_WITH_OCR, emptyList()
+            Classification.EXCEPTION, EnumSet.noneOf(InputDocumentType.class),
+            Classification.NEW_APPLICATION, EnumSet.noneOf(InputDocumentType.class),
+            Classification.SUPPLEMENTARY_EVIDENCE, EnumSet.of(InputDocumentType.FORM, InputDocumentType.SSCS1),
+            Classification.SUPPLEMENTARY_EVIDENCE_WITH_OCR, EnumSet.noneOf(InputDocumentType.class)
         );
 
+    /**
+     * Assert envelope passes all the checks below, looking through its scannable items once.
+     * When a single check fails, throws the same exception as that check. When several fail,
+     * throws an {@link EnvelopeValidationException} holding the exception of each of them.
+     *
+     * @param envelope    to assert against
+     * @param zipFileName name of the zip the envelope was read from
+     * @param pdfs        pdf file names found in the zip
+     */
+    public void assertEnvelopeIsValid(InputEnvelope envelope, String zipFileName, List<String> pdfs) {
+        List<EnvelopeRejectionException> violations = findViolations(envelope, zipFileName, pdfs);
+
+        if (violations.size() == 1) {
+            throw violations.get(0);
+        }
+        if (!violations.isEmpty()) {
+            throw new EnvelopeValidationException(violations);
+        }
+    }
+
+    /**
+     * Finds every check the envelope fails, in the order the checks are made one by one.
+     *
+     * @param envelope    to check
+     * @param zipFileName name of the zip the envelope was read from
+     * @param pdfs        pdf file names found in the zip
+     * @return exception of each failed check, empty when the envelope is valid
+     */
+    public List<EnvelopeRejectionException> findViolations(
+        InputEnvelope envelope,
+        String zipFileName,
+        List<String> pdfs
+    ) {
+        boolean ocrRequired = envelope.classification == Classification.NEW_APPLICATION
+            || envelope.classification == Classification.SUPPLEMENTARY_EVIDENCE_WITH_OCR;
+        List<InputDocumentType> typesThatShouldHaveOcrData = ocrRequired ? typesThatShouldHaveOcrData(envelope) : null;
+        Set<InputDocumentType> disallowedTypes = disallowedDocumentTypes.get(envelope.classification);
+
+        boolean docThatShouldHaveOcrFound = false;
+        boolean ocrDataFound = false;
+        EnvelopeRejectionException ocrDataViolation = null;
+        Set<String> scannedFileNames = new LinkedHashSet<>();
+        Set<String> duplicateFileNames = new LinkedHashSet<>();
+        Set<String> dcns = new HashSet<>();
+        Set<String> duplicateDcns = new LinkedHashSet<>();
+        List<String> disallowedDocTypesFound = new ArrayList<>();
+
+        for (InputScannableItem item : envelope.scannableItems) {
+            // OCR data is decoded on first use, it is read for every item so invalid data is rejected whatever
+            // the classification, as it was when the metafile was parsed
+            boolean hasOcrData = false;
+            if (ocrDataViolation == null && !isNull(item.ocrData)) {
+                try {
+                    hasOcrData = !isEmpty(item.ocrData.getFields());
+                } catch (EnvelopeRejectionException exception) {
+                    ocrDataViolation = exception;
+                }
+            }
+            if (ocrRequired && typesThatShouldHaveOcrData.contains(item.documentType)) {
+                docThatShouldHaveOcrFound = true;
+                ocrDataFound = ocrDataFound || hasOcrData;
+            }
+            if (!scannedFileNames.add(item.fileName)) {
+                duplicateFileNames.add(item.fileName);
+            }
+            if (!dcns.add(item.documentControlNumber)) {
+                duplicateDcns.add(item.documentControlNumber);
+            }
+            if (disallowedTypes.contains(item.documentType)) {
+                disallowedDocTypesFound.add(item.documentType.toString());
+            }
+        }
+
+        if (ocrDataViolation != null) {
+            // a metafile with invalid OCR data could not be read at all, so none of the other checks apply
+            return List.of(ocrDataViolation);
+        }
+
+        List<EnvelopeRejectionException> violations = new ArrayList<>();
+
+        if (!envelope.zipFileName.equals(zipFileName)) {
+            violations.add(zipFileNameNotMatching());
+        }
+        if (ocrRequired && !docThatShouldHaveOcrFound) {
+            violations.add(noDocumentsOfTypes(typesThatShouldHaveOcrData));
+        } else if (ocrRequired && !ocrDataFound) {
+            violations.add(new OcrDataNotFoundException("Missing OCR data"));
+        }
+        FileNameIrregularitiesException pdfIrregularities = pdfIrregularities(scannedFileNames, duplicateFileNames, pdfs);
+        if (pdfIrregularities != null) {
+            violations.add(pdfIrregularities);
+        }
+        if (!duplicateDcns.isEmpty()) {
+            violations.add(duplicateDcns(duplicateDcns));
+        }
+        if (!disallowedDocTypesFound.isEmpty()) {
+            violations.add(disallowedDocTypes(envelope, disallowedDocTypesFound));
+        }
+
+        return violations;
+    }
+
     /**
      * Assert envelope contains only scannable items of types that are allowed for the envelope's classification.
      * Otherwise, throws an exception.
@@ -64,13 +167,7 @@ public class EnvelopeValidator {
                 .collect(toList());
 
         if (!disallowedDocTypesFound.isEmpty()) {
-            String errorMessage = String.format(
-                "Envelope contains scannable item(s) of types that are not allowed for classification '%s': [%s]",
-                envelope.classification,
-                StringUtils.join(disallowedDocTypesFound, ", ")
-            );
-
-            throw new DisallowedDocumentTypesException(errorMessage);
+            throw disallowedDocTypes(envelope, disallowedDocTypesFound);
         }
     }
 
@@ -86,12 +183,7 @@ public class EnvelopeValidator {
         if (envelope.classification == Classification.NEW_APPLICATION
             || envelope.classification == Classification.SUPPLEMENTARY_EVIDENCE_WITH_OCR) {
 
-            List<InputDocumentType> typesThatShouldHaveOcrData =
-                Stream.of(
-                        defaultOcrDocumentType,
-                        ocrDocumentTypePerJurisdiction.get(envelope.jurisdiction)
-                    ).filter(Objects::nonNull)
-                    .collect(toList());
+            List<InputDocumentType> typesThatShouldHaveOcrData = typesThatShouldHaveOcrData(envelope);
 
             List<InputScannableItem> docsThatShouldHaveOcr = envelope
                 .scannableItems
@@ -100,9 +192,7 @@ public class EnvelopeValidator {
                 .collect(toList());
 
             if (docsThatShouldHaveOcr.isEmpty()) {
-                String types = typesThatShouldHaveOcrData.stream()
-                    .map(InputDocumentType::toString).collect(joining(", "));
-                throw new OcrDataNotFoundException("No documents of type " + types + " found");
+                throw noDocumentsOfTypes(typesThatShouldHaveOcrData);
             }
 
             if (docsThatShouldHaveOcr
@@ -125,27 +215,64 @@ public class EnvelopeValidator {
      * @param pdfs     to assert against
      */
     public void assertEnvelopeHasPdfs(InputEnvelope envelope, List<String> pdfs) {
-        List<String> problems = new ArrayList<>();
+        List<String> fileNames = envelope.scannableItems.stream().map(it -> it.fileName).collect(toList());
+
+        FileNameIrregularitiesException irregularities =
+            pdfIrregularities(new LinkedHashSet<>(fileNames), getDuplicates(fileNames), pdfs);
+
+        if (irregularities != null) {
+            throw irregularities;
+        }
+    }
 
-        List<String> duplicateFileNames =
-            getDuplicates(envelope.scannableItems.stream().map(it -> it.fileName).collect(toList()));
+    public void assertDocumentControlNumbersAreUnique(InputEnvelope envelope) {
+        List<String> dcns = envelope.scannableItems.stream().map(it -> it.documentControlNumber).collect(toList());
+        List<String> duplicateDcns = getDuplicates(dcns);
+        if (!duplicateDcns.isEmpty()) {
+            throw duplicateDcns(duplicateDcns);
+        }
+    }
+
+    public void assertZipFilenameMatchesWithMetadata(InputEnvelope envelope, String zipFileName) {
+        if (!envelope.zipFileName.equals(zipFileName)) {
+            throw zipFileNameNotMatching();
+        }
+    }
+
+    private static List<InputDocumentType> typesThatShouldHaveOcrData(InputEnvelope envelope) {
+        return Stream.of(
+                defaultOcrDocumentType,
+                ocrDocumentTypePerJurisdiction.get(envelope.jurisdiction)
+            ).filter(Objects::nonNull)
+            .collect(toList());
+    }
+
+    private static OcrDataNotFoundException noDocumentsOfTypes(List<InputDocumentType> types) {
+        return new OcrDataNotFoundException(
+            "No documents of type " + types.stream().map(InputDocumentType::toString).collect(joining(", ")) + " found"
+        );
+    }
+
+    // null when the scannable items and the pdfs match
+    private static FileNameIrregularitiesException pdfIrregularities(
+        Set<String> scannedFileNames,
+        Collection<String> duplicateFileNames,
+        List<String> pdfs
+    ) {
+        List<String> problems = new ArrayList<>();
 
         if (!duplicateFileNames.isEmpty()) {
             problems.add("Duplicate scanned items file names: " + String.join(", ", duplicateFileNames));
         }
 
-        Set<String> scannedFileNames = envelope
-            .scannableItems
-            .stream()
-            .map(item -> item.fileName)
-            .collect(toSet());
-
-        Set<String> pdfFileNames = pdfs.stream().map(filename -> new File(filename).getName()).collect(toSet());
+        Set<String> pdfFileNames = new LinkedHashSet<>();
+        for (String pdf : pdfs) {
+            pdfFileNames.add(new File(pdf).getName());
+        }
 
         Set<String> missingActualPdfFiles = Sets.difference(scannedFileNames, pdfFileNames);
         Set<String> notDeclaredPdfs = Sets.difference(pdfFileNames, scannedFileNames);
 
-
         if (!notDeclaredPdfs.isEmpty()) {
             problems.add("Not declared PDFs: " + String.join(", ", notDeclaredPdfs));
         }
@@ -154,37 +281,43 @@ public class EnvelopeValidator {
             problems.add("Missing PDFs: " + String.join(", ", missingActualPdfFiles));
         }
 
-        if (!problems.isEmpty()) {
-            throw new FileNameIrregularitiesException(String.join(". ", problems));
-        }
+        return problems.isEmpty() ? null : new FileNameIrregularitiesException(String.join(". ", problems));
     }
 
-    public void assertDocumentControlNumbersAreUnique(InputEnvelope envelope) {
-        List<String> dcns = envelope.scannableItems.stream().map(it -> it.documentControlNumber).collect(toList());
-        List<String> duplicateDcns = getDuplicates(dcns);
-        if (!duplicateDcns.isEmpty()) {
-            throw new DuplicateDocumentControlNumbersInEnvelopeException(
-                "Duplicate DCNs in envelope: " + String.join(", ", duplicateDcns)
-            );
-        }
+    private static DuplicateDocumentControlNumbersInEnvelopeException duplicateDcns(Collection<String> duplicateDcns) {
+        return new DuplicateDocumentControlNumbersInEnvelopeException(
+            "Duplicate DCNs in envelope: " + String.join(", ", duplicateDcns)
+        );
     }
 
-    public void assertZipFilenameMatchesWithMetadata(InputEnvelope envelope, String zipFileName) {
-        if (!envelope.zipFileName.equals(zipFileName)) {
-            throw new ZipNameNotMatchingMetaDataException(
-                "Name of the uploaded zip file does not match with field \"zip_file_name\" in the metadata"
-            );
-        }
+    private static DisallowedDocumentTypesException disallowedDocTypes(
+        InputEnvelope envelope,
+        List<String> disallowedDocTypesFound
+    ) {
+        String errorMessage = String.format(
+            "Envelope contains scannable item(s) of types that are not allowed for classification '%s': [%s]",
+            envelope.classification,
+            StringUtils.join(disallowedDocTypesFound, ", ")
+        );
+
+        return new DisallowedDocumentTypesException(errorMessage);
     }
 
-    private List<String> getDuplicates(List<String> collection) {
-        return collection
-            .stream()
-            .collect(groupingBy(it -> it, counting()))
-            .entrySet()
-            .stream()
-            .filter(entry -> entry.getValue() > 1)
-            .map(Map.Entry::getKey)
-            .collect(toList());
+    private static ZipNameNotMatchingMetaDataException zipFileNameNotMatching() {
+        return new ZipNameNotMatchingMetaDataException(
+            "Name of the uploaded zip file does not match with field \"zip_file_name\" in the metadata"
+        );
+    }
+
+    // in the order they are first repeated
+    private static List<String> getDuplicates(List<String> collection) {
+        Set<String> seen = new HashSet<>();
+        Set<String> duplicates = new LinkedHashSet<>();
+        for (String item : collection) {
+            if (!seen.add(item)) {
+                duplicates.add(item);
+            }
+        }
+        return new ArrayList<>(duplicates);
     }
 }
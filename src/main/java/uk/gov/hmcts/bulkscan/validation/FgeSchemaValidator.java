@@ -0,0 +1,38 @@
+package uk.gov.hmcts.bulkscan.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import uk.gov.hmcts.bulkscan.exception.InvalidEnvelopeSchemaException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Validates metafiles with the generic json schema validator, interpreting metafile-schema.json at runtime.
+ */
+public class FgeSchemaValidator implements SchemaValidator {
+
+    private final JsonSchema jsonSchemaValidator;
+
+    public FgeSchemaValidator() throws IOException, ProcessingException {
+        // library only supports up to draft-04 of json schema
+        try (InputStream inputStream = getClass().getResourceAsStream("/metafile-schema.json")) {
+            jsonSchemaValidator = JsonSchemaFactory
+                .byDefault()
+                .getJsonSchema(new ObjectMapper().readTree(inputStream));
+        }
+    }
+
+    @Override
+    public void validate(JsonNode metafile, String zipFileName) throws ProcessingException {
+        ProcessingReport report = jsonSchemaValidator.validate(metafile, true);
+
+        if (!report.isSuccess()) {
+            throw new InvalidEnvelopeSchemaException(report, zipFileName);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package uk.gov.hmcts.bulkscan.validation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.bulkscan.type.FormData;
+import uk.gov.hmcts.bulkscan.type.IServiceOcrValidator;
+import uk.gov.hmcts.bulkscan.type.OcrDataField;
+import uk.gov.hmcts.bulkscan.type.OcrValidationResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the results of the service OCR validator, so envelopes rescanned or processed again with the same OCR data
+ * are not validated again. Results are keyed on the validator, the form type and a SHA-256 hash of the OCR fields.
+ * Failed validations are not kept.
+ */
+@Component
+public class OcrValidationCache {
+
+    // null unless enabled
+    private final Cache<Key, OcrValidationResult> results;
+
+    public OcrValidationCache(
+        MeterRegistry meterRegistry,
+        @Value("${bulk-scan.service-name}") String serviceName,
+        @Value("${bulk-scan.ocr-validation.cache.enabled:false}") boolean enabled,
+        @Value("${bulk-scan.ocr-validation.cache.max-size:1000}") long maxSize,
+        @Value("${bulk-scan.ocr-validation.cache.ttl-minutes:60}") long ttlMinutes
+    ) {
+        if (enabled) {
+            this.results = GuavaCacheMetrics.monitor(
+                meterRegistry,
+                CacheBuilder.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                    .recordStats()
+                    .<Key, OcrValidationResult>build(),
+                "bulk_scan.ocr_validation",
+                "service",
+                serviceName
+            );
+        } else {
+            this.results = null;
+        }
+    }
+
+    /**
+     * Returns the result of an earlier validation of the same OCR data, otherwise validates it.
+     *
+     * @param validator  service OCR validator
+     * @param formType   form type the data is validated against
+     * @param formData   OCR data
+     * @param validation call to the validator, made when no result is kept
+     * @return validation result
+     */
+    public OcrValidationResult get(
+        IServiceOcrValidator validator,
+        String formType,
+        FormData formData,
+        Supplier<OcrValidationResult> validation
+    ) {
+        if (results == null) {
+            return validation.get();
+        }
+
+        Key key = new Key(validator, formType, hash(formData));
+        OcrValidationResult result = results.getIfPresent(key);
+        if (result == null) {
+            result = validation.get();
+            if (result != null) {
+                results.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    static HashCode hash(FormData formData) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (OcrDataField field : formData.ocrDataFields()) {
+            putNullable(hasher, field.name());
+            putNullable(hasher, field.value());
+        }
+        return hasher.hash();
+    }
+
+    // length prefixed, so the boundaries between fields are part of the hash
+    private static void putNullable(Hasher hasher, String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    private record Key(IServiceOcrValidator validator, String formType, HashCode fieldsHash) {
+    }
+}
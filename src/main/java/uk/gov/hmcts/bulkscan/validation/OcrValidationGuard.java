@@ -0,0 +1,268 @@
+package uk.gov.hmcts.bulkscan.validation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.bulkscan.exception.OcrValidatorUnavailableException;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+
+/**
+ * Protects envelope processing from a slow or failing OCR validation service.
+ *
+ * <p>
+ * When enabled, each validation runs on a separate thread and is abandoned after a timeout. Validations in progress
+ * are limited, a validation still running after its timeout keeps its slot until it returns. Once the share of failed
+ * or timed out validations among the latest ones reaches a threshold, the circuit opens and validations fail
+ * straight away. After a while a single validation is let through, closing the circuit again when it succeeds.
+ * </p>
+ *
+ * <p>
+ * Validations rejected this way throw {@link OcrValidatorUnavailableException}, so the envelope is processed again
+ * later instead of being rejected. Thread locals of the processing thread are not visible to the validator.
+ * </p>
+ */
+@Component
+@Slf4j
+public class OcrValidationGuard {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final boolean enabled;
+    private final long timeoutMillis;
+    private final long maxWaitMillis;
+    private final int maxConcurrent;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+
+    private final Semaphore bulkhead;
+    // null unless enabled
+    private final ExecutorService executor;
+
+    // outcomes of the latest validations, true for failures, guarded by this
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInProgress;
+
+    public OcrValidationGuard(
+        @Value("${bulk-scan.ocr-validation.guard.enabled:false}") boolean enabled,
+        @Value("${bulk-scan.ocr-validation.timeout-millis:30000}") long timeoutMillis,
+        @Value("${bulk-scan.ocr-validation.max-concurrent:10}") int maxConcurrent,
+        @Value("${bulk-scan.ocr-validation.max-wait-millis:0}") long maxWaitMillis,
+        @Value("${bulk-scan.ocr-validation.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+        @Value("${bulk-scan.ocr-validation.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+        @Value("${bulk-scan.ocr-validation.circuit-breaker.minimum-calls:10}") int minimumCalls,
+        @Value("${bulk-scan.ocr-validation.circuit-breaker.open-duration-millis:60000}") long openDurationMillis
+    ) {
+        this.enabled = enabled;
+        this.timeoutMillis = timeoutMillis;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitMillis = maxWaitMillis;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = Math.min(minimumCalls, slidingWindowSize);
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+        this.window = new boolean[slidingWindowSize];
+        this.bulkhead = new Semaphore(maxConcurrent);
+
+        if (enabled) {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "bulk-scan-ocr-validation-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Runs the validation, unless the circuit is open or too many validations are in progress.
+     *
+     * @param validation call to the OCR validation service
+     * @param <T>        result of the validation
+     * @return result of the validation
+     * @throws OcrValidatorUnavailableException if the validation was not run or did not complete in time
+     */
+    public <T> T execute(Supplier<T> validation) {
+        if (!enabled) {
+            return validation.get();
+        }
+
+        boolean trial = acquirePermission();
+        Future<T> result = submit(validation, trial);
+        try {
+            T value = result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            onCompletion(trial, false);
+            return value;
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            onCompletion(trial, true);
+            throw new OcrValidatorUnavailableException("OCR validation did not complete within " + timeoutMillis + "ms");
+        } catch (ExecutionException e) {
+            onCompletion(trial, true);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new OcrValidatorUnavailableException("OCR validation failed", e.getCause());
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            onAbandoned(trial);
+            Thread.currentThread().interrupt();
+            throw new OcrValidatorUnavailableException("Interrupted while waiting for OCR validation", e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Share of failed validations among the latest ones, as a percentage.
+     *
+     * @return failure rate, 0 when no validation completed yet
+     */
+    public synchronized int getFailureRate() {
+        return windowCount == 0 ? 0 : windowFailures * 100 / windowCount;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getConcurrentValidations() {
+        return maxConcurrent - bulkhead.availablePermits();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> Future<T> submit(Supplier<T> validation, boolean trial) {
+        try {
+            if (!bulkhead.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                onAbandoned(trial);
+                throw new OcrValidatorUnavailableException(
+                    "OCR validation rejected, " + maxConcurrent + " validations already in progress"
+                );
+            }
+        } catch (InterruptedException e) {
+            onAbandoned(trial);
+            Thread.currentThread().interrupt();
+            throw new OcrValidatorUnavailableException("Interrupted while waiting to start OCR validation", e);
+        }
+
+        try {
+            return executor.submit(() -> {
+                try {
+                    return validation.get();
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            onAbandoned(trial);
+            throw new OcrValidatorUnavailableException("OCR validation rejected, application is stopping", e);
+        }
+    }
+
+    // returns true when the call is the single one let through to probe a half open circuit
+    private synchronized boolean acquirePermission() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDurationNanos) {
+                throw new OcrValidatorUnavailableException("OCR validation circuit is open");
+            }
+            state = State.HALF_OPEN;
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (trialInProgress) {
+                throw new OcrValidatorUnavailableException("OCR validation circuit is half open");
+            }
+            trialInProgress = true;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void onCompletion(boolean trial, boolean failed) {
+        if (trial) {
+            trialInProgress = false;
+            if (failed) {
+                open();
+            } else {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            record(failed);
+            if (windowCount >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCount) {
+                open();
+            }
+        }
+        // validations started before the circuit opened do not change its state
+    }
+
+    // the validation did not run, so it tells nothing about the validation service
+    private synchronized void onAbandoned(boolean trial) {
+        if (trial) {
+            trialInProgress = false;
+        }
+    }
+
+    private void record(boolean failed) {
+        if (windowCount == window.length) {
+            windowFailures -= window[windowIndex] ? 1 : 0;
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failed;
+        windowFailures += failed ? 1 : 0;
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void open() {
+        if (state != State.OPEN) {
+            log.warn("OCR validation circuit opened, failure rate {}%", getFailureRate());
+        }
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+    }
+
+    private void close() {
+        log.info("OCR validation circuit closed");
+        state = State.CLOSED;
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+}
@@ -0,0 +1,33 @@
+package uk.gov.hmcts.bulkscan.validation;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shows the state of the OCR validation circuit on the actuator health endpoint. An open circuit is reported
+ * as unknown rather than down, as the application keeps polling and retries the envelopes later.
+ */
+@Component
+public class OcrValidationHealthIndicator implements HealthIndicator {
+
+    private final OcrValidationGuard ocrValidationGuard;
+
+    public OcrValidationHealthIndicator(OcrValidationGuard ocrValidationGuard) {
+        this.ocrValidationGuard = ocrValidationGuard;
+    }
+
+    @Override
+    public Health health() {
+        if (!ocrValidationGuard.isEnabled()) {
+            return Health.up().withDetail("guard", "disabled").build();
+        }
+
+        OcrValidationGuard.State state = ocrValidationGuard.getState();
+        return (state == OcrValidationGuard.State.OPEN ? Health.unknown() : Health.up())
+            .withDetail("circuit", state)
+            .withDetail("failureRate", ocrValidationGuard.getFailureRate())
+            .withDetail("concurrentValidations", ocrValidationGuard.getConcurrentValidations())
+            .build();
+    }
+}
@@ -0,0 +1,20 @@
+package uk.gov.hmcts.bulkscan.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+
+/**
+ * Validates envelope metafiles against metafile-schema.json.
+ */
+public interface SchemaValidator {
+
+    /**
+     * Validate metafile against envelope schema.
+     * Throws an {@code InvalidEnvelopeSchemaException} in case there are errors.
+     *
+     * @param metafile    parsed metafile
+     * @param zipFileName name of the envelope zip file, reported with the errors
+     * @throws ProcessingException processing error during the validation
+     */
+    void validate(JsonNode metafile, String zipFileName) throws ProcessingException;
+}
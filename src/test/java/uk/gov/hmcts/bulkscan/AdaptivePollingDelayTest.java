@@ -0,0 +1,50 @@
+package uk.gov.hmcts.bulkscan;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptivePollingDelayTest {
+
+    @Test
+    void should_back_off_exponentially_up_to_max_delay() {
+        var pollingDelay = new AdaptivePollingDelay(1000, 5000, 2, 0, 10);
+
+        pollingDelay.onEmptyPoll();
+        assertThat(pollingDelay.nextDelayMillis()).isEqualTo(2000);
+        pollingDelay.onError();
+        assertThat(pollingDelay.nextDelayMillis()).isEqualTo(4000);
+        pollingDelay.onEmptyPoll();
+        assertThat(pollingDelay.nextDelayMillis()).isEqualTo(5000);
+    }
+
+    @Test
+    void should_reset_to_min_delay_when_envelopes_found() {
+        var pollingDelay = new AdaptivePollingDelay(1000, 5000, 2, 0, 10);
+
+        pollingDelay.onEmptyPoll();
+        pollingDelay.onEnvelopesFound(3);
+
+        assertThat(pollingDelay.nextDelayMillis()).isEqualTo(1000);
+    }
+
+    @Test
+    void should_not_wait_when_batch_was_full() {
+        var pollingDelay = new AdaptivePollingDelay(1000, 5000, 2, 0.5, 10);
+
+        pollingDelay.onEnvelopesFound(10);
+        assertThat(pollingDelay.nextDelayMillis()).isZero();
+
+        pollingDelay.onEmptyPoll();
+        assertThat(pollingDelay.getCurrentDelayMillis()).isEqualTo(1000);
+    }
+
+    @Test
+    void should_apply_jitter_within_bounds() {
+        var pollingDelay = new AdaptivePollingDelay(1000, 5000, 2, 0.1, 10);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(pollingDelay.nextDelayMillis()).isBetween(900L, 1100L);
+        }
+    }
+}
@@ -1,24 +1,34 @@
 package uk.gov.hmcts.bulkscan;
 
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mockito;
 import uk.gov.hmcts.bulkscan.exception.BulkScanServerException;
 import uk.gov.hmcts.bulkscan.service.BulkScanClientService;
+import uk.gov.hmcts.bulkscan.type.BulkScanEnvelope;
 
 import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 public class ProcessScannedDocumentsTaskTest {
 
     @InjectMocks
     private BulkScanClientService bulkscanBulkScanClientService;
 
+    private final AdaptivePollingDelay pollingDelay = new AdaptivePollingDelay(1000, 60_000, 2, 0, 2);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @Test
     public void shouldGetNewScanListAndProcessIt() {
         var serviceName = "test";
         bulkscanBulkScanClientService = Mockito.mock(BulkScanClientService.class);
-        var task = new ProcessScannedDocumentsTask(bulkscanBulkScanClientService, serviceName);
+        var task = new ProcessScannedDocumentsTask(bulkscanBulkScanClientService, serviceName, pollingDelay, meterRegistry);
         task.run();
         Mockito.verify(bulkscanBulkScanClientService, Mockito.times(1))
                 .getNewScanList(serviceName);
@@ -26,6 +36,23 @@ public class ProcessScannedDocumentsTaskTest {
                 .processEnvelopes(serviceName, bulkscanBulkScanClientService.getNewScanList(serviceName));
     }
 
+    @Test
+    @SuppressWarnings("deprecation")
+    public void shouldPollWithTaskBuiltWithoutPollingDelay() {
+        var serviceName = "test";
+        bulkscanBulkScanClientService = Mockito.mock(BulkScanClientService.class);
+        Mockito.when(bulkscanBulkScanClientService.getNewScanList(serviceName))
+                .thenReturn(Collections.emptyList());
+
+        var task = new ProcessScannedDocumentsTask(bulkscanBulkScanClientService, serviceName);
+        task.run();
+        task.run();
+
+        Mockito.verify(bulkscanBulkScanClientService, Mockito.times(2))
+                .getNewScanList(serviceName);
+        assertThat(task.getEmptyPollRatio()).isEqualTo(1.0);
+    }
+
     @Test
     public void shouldLogException() {
         var serviceName = "test";
@@ -33,11 +60,49 @@ public class ProcessScannedDocumentsTaskTest {
         Mockito.when(bulkscanBulkScanClientService.getNewScanList(serviceName))
                 .thenThrow(BulkScanServerException.class);
 
-        var task = new ProcessScannedDocumentsTask(bulkscanBulkScanClientService, serviceName);
+        var task = new ProcessScannedDocumentsTask(bulkscanBulkScanClientService, serviceName, pollingDelay, meterRegistry);
         task.run();
         Mockito.verify(bulkscanBulkScanClientService, Mockito.times(1))
                 .getNewScanList(serviceName);
         Mockito.verify(bulkscanBulkScanClientService, Mockito.times(0))
                 .processEnvelopes(serviceName, Collections.emptyList());
+        assertThat(pollingDelay.getCurrentDelayMillis()).isEqualTo(2000);
+        assertThat(meterRegistry.get("bulk_scan.polls").tag("outcome", "error").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldBackOffWhenNoEnvelopesFound() {
+        var serviceName = "test";
+        bulkscanBulkScanClientService = Mockito.mock(BulkScanClientService.class);
+        Mockito.when(bulkscanBulkScanClientService.getNewScanList(serviceName))
+                .thenReturn(Collections.emptyList());
+
+        var task = new ProcessScannedDocumentsTask(bulkscanBulkScanClientService, serviceName, pollingDelay, meterRegistry);
+        task.run();
+        task.run();
+
+        assertThat(pollingDelay.getCurrentDelayMillis()).isEqualTo(4000);
+        assertThat(task.getEmptyPollRatio()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("bulk_scan.polls").tag("outcome", "empty").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldPollAgainStraightAwayWhenBatchWasFull() {
+        var serviceName = "test";
+        bulkscanBulkScanClientService = Mockito.mock(BulkScanClientService.class);
+        Mockito.when(bulkscanBulkScanClientService.getNewScanList(serviceName))
+                .thenReturn(Collections.emptyList())
+                .thenReturn(List.of(envelope("1"), envelope("2")));
+
+        var task = new ProcessScannedDocumentsTask(bulkscanBulkScanClientService, serviceName, pollingDelay, meterRegistry);
+        task.run();
+        task.run();
+
+        assertThat(pollingDelay.getCurrentDelayMillis()).isZero();
+        assertThat(task.getEmptyPollRatio()).isEqualTo(0.5);
+    }
+
+    private BulkScanEnvelope envelope(String etag) {
+        return BulkScanEnvelope.builder().etag(etag).build();
     }
 }
@@ -0,0 +1,178 @@
+package uk.gov.hmcts.bulkscan.blob;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.bulkscan.http.BulkScanHttpTransport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HttpEnvelopeBlobSourceTest {
+
+    private static final int BLOB_SIZE = 10_000;
+
+    private final byte[] blob = new byte[BLOB_SIZE];
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private final BulkScanHttpTransport transport =
+        new BulkScanHttpTransport(new SimpleMeterRegistry(), "service", 1000, 5000, 10, 10, 10, false, true);
+
+    private HttpServer server;
+    private URL url;
+    // number of bytes sent before the connection of the first full download is dropped
+    private int breakAfter;
+    // whether the blob is replaced once the connection is dropped
+    private boolean replaceAfterBreak;
+    private int version = 1;
+    // status of every response when set
+    private int failWithStatus;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        new Random(1).nextBytes(blob);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/envelope.zip", this::serve);
+        server.start();
+        url = new URL("http://localhost:" + server.getAddress().getPort() + "/envelope.zip");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void should_serve_random_access_reads_from_cached_blocks() throws IOException {
+        var blobSource = new HttpEnvelopeBlobSource(transport, url, BLOB_SIZE, 4096, 2, 1024, 0);
+
+        try (SeekableByteChannel channel = blobSource.openChannel()) {
+            ByteBuffer tail = ByteBuffer.allocate(100);
+            channel.position(BLOB_SIZE - 100).read(tail);
+            ByteBuffer nearTail = ByteBuffer.allocate(100);
+            channel.position(BLOB_SIZE - 1000).read(nearTail);
+
+            assertThat(tail.array()).isEqualTo(slice(BLOB_SIZE - 100, 100));
+            assertThat(nearTail.array()).isEqualTo(slice(BLOB_SIZE - 1000, 100));
+        }
+
+        assertThat(ranges).containsExactly("bytes=8192-9999");
+        assertThat(transport.getActiveConnections()).isZero();
+    }
+
+    @Test
+    void should_look_up_size_when_unknown() throws IOException {
+        var blobSource = new HttpEnvelopeBlobSource(transport, url, 0, 4096, 2, 1024, 0);
+
+        try (SeekableByteChannel channel = blobSource.openChannel()) {
+            assertThat(channel.size()).isEqualTo(BLOB_SIZE);
+        }
+    }
+
+    @Test
+    void should_resume_broken_download_from_last_byte_received() throws IOException {
+        breakAfter = 6000;
+        var blobSource = new HttpEnvelopeBlobSource(transport, url, BLOB_SIZE, 4096, 2, 1024, 3);
+
+        try (InputStream content = blobSource.openStream()) {
+            assertThat(content.readAllBytes()).isEqualTo(blob);
+        }
+
+        assertThat(ranges).hasSize(2);
+        assertThat(transport.getActiveConnections()).isZero();
+        assertThat(ranges.get(0)).isNull();
+        assertThat(ranges.get(1)).startsWith("bytes=").endsWith("-");
+    }
+
+    @Test
+    void should_not_resume_download_of_blob_replaced_since_it_started() throws IOException {
+        breakAfter = 6000;
+        replaceAfterBreak = true;
+        var blobSource = new HttpEnvelopeBlobSource(transport, url, BLOB_SIZE, 4096, 2, 1024, 3);
+
+        try (InputStream content = blobSource.openStream()) {
+            assertThatThrownBy(content::readAllBytes)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Blob changed");
+        }
+
+        assertThat(ranges).hasSize(2);
+        assertThat(transport.getActiveConnections()).isZero();
+    }
+
+    @Test
+    void should_not_resume_download_failed_with_error_status() throws IOException {
+        failWithStatus = 404;
+        var blobSource = new HttpEnvelopeBlobSource(transport, url, BLOB_SIZE, 4096, 2, 1024, 3);
+
+        try (InputStream content = blobSource.openStream()) {
+            assertThatThrownBy(content::readAllBytes)
+                .isInstanceOf(IOException.class)
+                .hasMessage("Download of blob failed with status 404");
+        }
+
+        assertThat(ranges).hasSize(1);
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        ranges.add(range);
+        String etag = "\"" + version + "\"";
+        String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+
+        try (OutputStream body = exchange.getResponseBody()) {
+            if (failWithStatus > 0) {
+                exchange.sendResponseHeaders(failWithStatus, -1);
+                return;
+            }
+            if (ifMatch != null && !ifMatch.equals(etag)) {
+                exchange.sendResponseHeaders(412, -1);
+                return;
+            }
+            exchange.getResponseHeaders().add("ETag", etag);
+
+            if (range == null) {
+                exchange.sendResponseHeaders(200, BLOB_SIZE);
+                if (breakAfter > 0) {
+                    body.write(blob, 0, breakAfter);
+                    body.flush();
+                    breakAfter = 0;
+                    if (replaceAfterBreak) {
+                        version++;
+                    }
+                    // drops the connection before the announced length is sent
+                    exchange.close();
+                    return;
+                }
+                body.write(blob);
+                return;
+            }
+
+            String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            int from = Integer.parseInt(bounds[0]);
+            int to = bounds[1].isEmpty() ? BLOB_SIZE - 1 : Math.min(BLOB_SIZE - 1, Integer.parseInt(bounds[1]));
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + from + "-" + to + "/" + BLOB_SIZE);
+            exchange.sendResponseHeaders(206, to - from + 1);
+            body.write(blob, from, to - from + 1);
+        }
+    }
+
+    private byte[] slice(int from, int length) {
+        byte[] slice = new byte[length];
+        System.arraycopy(blob, from, slice, 0, length);
+        return slice;
+    }
+}
@@ -0,0 +1,49 @@
+package uk.gov.hmcts.bulkscan.blob;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.hmcts.bulkscan.http.BulkScanHttpTransport;
+import uk.gov.hmcts.bulkscan.type.BulkScanEnvelope;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class MeteredEnvelopeBlobSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EnvelopeBlobSourceFactory factory =
+        new EnvelopeBlobSourceFactory(mock(BulkScanHttpTransport.class), meterRegistry, "service", 64, 16, 64, 3);
+
+    @Test
+    void should_record_download_once_stream_is_closed(@TempDir Path dir) throws IOException {
+        Path zipFile = Files.write(dir.resolve("envelope.zip"), new byte[1000]);
+        var envelope = new BulkScanEnvelope(
+            "etag",
+            "envelope.zip",
+            zipFile.toUri().toString(),
+            "2022-05-09T11:47:28Z",
+            1000L,
+            "application/zip"
+        );
+
+        InputStream content = factory.create(envelope).openStream();
+        content.skipNBytes(100);
+        content.readNBytes(400);
+        assertThat(meterRegistry.get("bulk_scan.envelope.download").timer().count()).isZero();
+
+        content.close();
+        content.close();
+
+        assertThat(meterRegistry.get("bulk_scan.envelope.download").tag("service", "service").timer().count())
+            .isEqualTo(1);
+        var downloadSize = meterRegistry.get("bulk_scan.envelope.download.size").summary();
+        assertThat(downloadSize.count()).isEqualTo(1);
+        assertThat(downloadSize.totalAmount()).isEqualTo(500);
+    }
+}
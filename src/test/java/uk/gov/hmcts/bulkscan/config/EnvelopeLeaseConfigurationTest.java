@@ -0,0 +1,36 @@
+package uk.gov.hmcts.bulkscan.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import uk.gov.hmcts.bulkscan.lease.InMemoryEnvelopeLeaseManager;
+import uk.gov.hmcts.bulkscan.type.IEnvelopeLeaseManager;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnvelopeLeaseConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withConfiguration(AutoConfigurations.of(EnvelopeLeaseConfiguration.class));
+
+    @Test
+    void should_keep_leases_in_memory_by_default() {
+        contextRunner.run(context -> assertThat(context)
+            .getBean(IEnvelopeLeaseManager.class)
+            .isInstanceOf(InMemoryEnvelopeLeaseManager.class));
+    }
+
+    @Test
+    void should_use_lease_manager_registered_by_service() {
+        var leaseManager = new InMemoryEnvelopeLeaseManager(Duration.ofMinutes(1), Clock.systemUTC());
+
+        contextRunner
+            .withBean(IEnvelopeLeaseManager.class, () -> leaseManager)
+            .run(context -> assertThat(context)
+                .getBean(IEnvelopeLeaseManager.class)
+                .isSameAs(leaseManager));
+    }
+}
@@ -0,0 +1,110 @@
+package uk.gov.hmcts.bulkscan.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.bulkscan.exception.ConnectionUnavailableException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkScanHttpTransportTest {
+
+    private static final byte[] CONTENT = "{\"data\":[]}".getBytes(StandardCharsets.UTF_8);
+
+    private final BulkScanHttpTransport transport =
+        new BulkScanHttpTransport(new SimpleMeterRegistry(), "service", 1000, 500, 1, 10, 1, false, true);
+
+    private HttpServer server;
+    private URI uri;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/envelopes", this::serve);
+        server.start();
+        uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/envelopes");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void should_decompress_api_response() throws IOException {
+        HttpResponse<InputStream> response = transport.sendApiRequest(HttpRequest.newBuilder(uri));
+
+        try (InputStream body = response.body()) {
+            assertThat(body.readAllBytes()).isEqualTo(CONTENT);
+        }
+        assertThat(BulkScanHttpTransport.isDecompressed(response)).isTrue();
+    }
+
+    @Test
+    void should_not_ask_for_compression_of_blob_download() throws IOException {
+        HttpResponse<InputStream> response = transport.sendBlobRequest(HttpRequest.newBuilder(uri));
+
+        try (InputStream body = response.body()) {
+            assertThat(body.readAllBytes()).isEqualTo(CONTENT);
+        }
+        assertThat(BulkScanHttpTransport.isDecompressed(response)).isFalse();
+    }
+
+    @Test
+    void should_hold_connection_until_response_body_is_closed() throws IOException {
+        HttpResponse<InputStream> response = transport.sendBlobRequest(HttpRequest.newBuilder(uri));
+        assertThat(transport.getActiveConnections()).isEqualTo(1);
+
+        // only one blob connection per host
+        assertThatThrownBy(() -> transport.sendBlobRequest(HttpRequest.newBuilder(uri)))
+            .isInstanceOf(ConnectionUnavailableException.class)
+            .hasMessageContaining("No blob connection free");
+        assertThat(transport.getActiveConnections()).isEqualTo(1);
+
+        response.body().close();
+        assertThat(transport.getActiveConnections()).isZero();
+        transport.sendBlobRequest(HttpRequest.newBuilder(uri)).body().close();
+    }
+
+    @Test
+    void should_not_make_api_requests_wait_for_blob_downloads() throws IOException {
+        HttpResponse<InputStream> download = transport.sendBlobRequest(HttpRequest.newBuilder(uri));
+
+        try (InputStream body = transport.sendApiRequest(HttpRequest.newBuilder(uri)).body()) {
+            assertThat(body.readAllBytes()).isEqualTo(CONTENT);
+        }
+        download.body().close();
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        byte[] content = CONTENT;
+        if ("gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(CONTENT);
+            }
+            content = compressed.toByteArray();
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+
+        exchange.sendResponseHeaders(200, content.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(content);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package uk.gov.hmcts.bulkscan.lease;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileEnvelopeLeaseManagerTest {
+
+    private static final Instant NOW = Instant.parse("2022-05-09T11:47:28Z");
+    private static final Duration LEASE_DURATION = Duration.ofMinutes(10);
+    private static final String ETAG = "\"0x8DA31AB1F5D4E4D\"";
+
+    @TempDir
+    Path leaseDirectory;
+
+    @Test
+    void should_only_let_one_instance_claim_envelope() {
+        var firstInstance = leaseManager("instance-1", NOW);
+        var secondInstance = leaseManager("instance-2", NOW);
+
+        assertThat(firstInstance.tryAcquire(ETAG)).isTrue();
+        assertThat(secondInstance.tryAcquire(ETAG)).isFalse();
+        assertThat(secondInstance.tryAcquire("other-etag")).isTrue();
+    }
+
+    @Test
+    void should_let_other_instance_claim_envelope_once_released() {
+        var firstInstance = leaseManager("instance-1", NOW);
+        var secondInstance = leaseManager("instance-2", NOW);
+
+        assertThat(firstInstance.tryAcquire(ETAG)).isTrue();
+        firstInstance.release(ETAG);
+
+        assertThat(secondInstance.tryAcquire(ETAG)).isTrue();
+    }
+
+    @Test
+    void should_not_release_lease_owned_by_other_instance() {
+        var firstInstance = leaseManager("instance-1", NOW);
+        var secondInstance = leaseManager("instance-2", NOW);
+
+        assertThat(firstInstance.tryAcquire(ETAG)).isTrue();
+        secondInstance.release(ETAG);
+
+        assertThat(secondInstance.tryAcquire(ETAG)).isFalse();
+    }
+
+    @Test
+    void should_let_other_instance_claim_envelope_once_lease_expired() {
+        var firstInstance = leaseManager("instance-1", NOW);
+        var secondInstance = leaseManager("instance-2", NOW.plus(LEASE_DURATION));
+
+        assertThat(firstInstance.tryAcquire(ETAG)).isTrue();
+
+        assertThat(secondInstance.tryAcquire(ETAG)).isTrue();
+    }
+
+    @Test
+    void should_renew_expired_lease_nobody_else_claimed() {
+        var firstInstance = leaseManager("instance-1", NOW);
+        assertThat(firstInstance.tryAcquire(ETAG)).isTrue();
+
+        assertThat(leaseManager("instance-1", NOW.plus(LEASE_DURATION)).renew(ETAG)).isTrue();
+        assertThat(leaseManager("instance-2", NOW.plus(LEASE_DURATION)).tryAcquire(ETAG)).isFalse();
+    }
+
+    @Test
+    void should_not_renew_lease_claimed_by_other_instance() {
+        var firstInstance = leaseManager("instance-1", NOW);
+        var secondInstance = leaseManager("instance-2", NOW.plus(LEASE_DURATION));
+
+        assertThat(firstInstance.tryAcquire(ETAG)).isTrue();
+        assertThat(secondInstance.tryAcquire(ETAG)).isTrue();
+
+        assertThat(firstInstance.renew(ETAG)).isFalse();
+        assertThat(secondInstance.renew(ETAG)).isTrue();
+    }
+
+    @Test
+    void should_delete_released_and_expired_lease_files() throws IOException {
+        var firstInstance = leaseManager("instance-1", NOW);
+        assertThat(firstInstance.tryAcquire("released")).isTrue();
+        assertThat(firstInstance.tryAcquire("expired")).isTrue();
+        firstInstance.release("released");
+
+        var secondInstance = leaseManager("instance-2", NOW.plus(LEASE_DURATION));
+        assertThat(secondInstance.tryAcquire("valid")).isTrue();
+
+        assertThat(leaseFiles()).containsExactly("valid.lease");
+        assertThat(firstInstance.renew("expired")).isFalse();
+    }
+
+    @Test
+    void should_claim_envelope_again_when_lease_file_was_swept_while_being_claimed() throws IOException {
+        Files.writeString(leaseDirectory.resolve("etag.lease"), "deleted");
+
+        assertThat(leaseManager("instance-1", NOW).tryAcquire("etag")).isTrue();
+        assertThat(leaseManager("instance-2", NOW).tryAcquire("etag")).isFalse();
+    }
+
+    private List<String> leaseFiles() throws IOException {
+        try (Stream<Path> files = Files.list(leaseDirectory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(toList());
+        }
+    }
+
+    private FileEnvelopeLeaseManager leaseManager(String ownerId, Instant now) {
+        return new FileEnvelopeLeaseManager(leaseDirectory, LEASE_DURATION, ownerId, Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
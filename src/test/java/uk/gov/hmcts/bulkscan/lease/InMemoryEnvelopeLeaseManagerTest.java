@@ -0,0 +1,56 @@
+package uk.gov.hmcts.bulkscan.lease;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryEnvelopeLeaseManagerTest {
+
+    private static final Instant NOW = Instant.parse("2022-05-09T11:47:28Z");
+    private static final Duration LEASE_DURATION = Duration.ofMinutes(10);
+
+    @Test
+    void should_only_let_envelope_be_claimed_once_while_lease_is_valid() {
+        var leaseManager = new InMemoryEnvelopeLeaseManager(LEASE_DURATION, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertThat(leaseManager.tryAcquire("etag-1")).isTrue();
+        assertThat(leaseManager.tryAcquire("etag-1")).isFalse();
+        assertThat(leaseManager.tryAcquire("etag-2")).isTrue();
+    }
+
+    @Test
+    void should_let_envelope_be_claimed_again_once_released() {
+        var leaseManager = new InMemoryEnvelopeLeaseManager(LEASE_DURATION, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertThat(leaseManager.tryAcquire("etag-1")).isTrue();
+        leaseManager.release("etag-1");
+
+        assertThat(leaseManager.tryAcquire("etag-1")).isTrue();
+    }
+
+    @Test
+    void should_let_envelope_be_claimed_again_once_lease_expired() {
+        var firstLeaseManager = new InMemoryEnvelopeLeaseManager(LEASE_DURATION, Clock.fixed(NOW, ZoneOffset.UTC));
+        assertThat(firstLeaseManager.tryAcquire("etag-1")).isTrue();
+
+        var laterClock = Clock.fixed(NOW.plus(LEASE_DURATION), ZoneOffset.UTC);
+        var leaseManager = new InMemoryEnvelopeLeaseManager(LEASE_DURATION, laterClock);
+        assertThat(leaseManager.tryAcquire("etag-1")).isTrue();
+    }
+
+    @Test
+    void should_only_renew_lease_still_held() {
+        var leaseManager = new InMemoryEnvelopeLeaseManager(LEASE_DURATION, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertThat(leaseManager.tryAcquire("etag-1")).isTrue();
+        assertThat(leaseManager.renew("etag-1")).isTrue();
+
+        leaseManager.release("etag-1");
+        assertThat(leaseManager.renew("etag-1")).isFalse();
+    }
+}
@@ -0,0 +1,167 @@
+package uk.gov.hmcts.bulkscan.outbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.hmcts.bulkscan.enums.EnvelopeProcessStatus;
+import uk.gov.hmcts.bulkscan.type.EnvelopeProcessAttempt;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileProcessAttemptOutboxTest {
+
+    private static final long SEGMENT_SIZE = 8192;
+
+    @TempDir
+    Path outboxDirectory;
+
+    @Test
+    void should_keep_pending_attempts_after_restart() throws IOException {
+        var outbox = new FileProcessAttemptOutbox(outboxDirectory, SEGMENT_SIZE);
+        var recorded = attempt("etag-1");
+        var pending = attempt("etag-2");
+        outbox.append(recorded);
+        outbox.append(pending);
+        outbox.acknowledge(recorded.attemptId);
+        outbox.close();
+
+        var reopened = new FileProcessAttemptOutbox(outboxDirectory, SEGMENT_SIZE);
+
+        assertThat(reopened.pending()).containsExactly(pending);
+        assertThat(reopened.findPending("etag-2")).contains(pending);
+        assertThat(reopened.findPending("etag-1")).isEmpty();
+        reopened.close();
+    }
+
+    @Test
+    void should_find_latest_attempt_of_envelope_still_pending() throws IOException {
+        var outbox = new FileProcessAttemptOutbox(outboxDirectory, SEGMENT_SIZE);
+        var first = attempt("etag-1");
+        var latest = attempt("etag-1");
+        outbox.append(first);
+        outbox.append(latest);
+        outbox.append(attempt("etag-2"));
+
+        assertThat(outbox.findPending("etag-1")).contains(latest);
+        outbox.acknowledge(latest.attemptId);
+        assertThat(outbox.findPending("etag-1")).contains(first);
+        outbox.acknowledge(first.attemptId);
+        assertThat(outbox.findPending("etag-1")).isEmpty();
+        outbox.close();
+    }
+
+    @Test
+    void should_only_keep_pending_attempts_once_segment_is_full() throws IOException {
+        var outbox = new FileProcessAttemptOutbox(outboxDirectory, SEGMENT_SIZE);
+        List<EnvelopeProcessAttempt> pending = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            var attempt = attempt("etag-" + i);
+            outbox.append(attempt);
+            if (i % 10 == 0) {
+                pending.add(attempt);
+            } else {
+                outbox.acknowledge(attempt.attemptId);
+            }
+        }
+        outbox.close();
+
+        assertThat(segments()).hasSize(1);
+        assertThat(Files.size(segments().get(0))).isLessThan(SEGMENT_SIZE);
+        var reopened = new FileProcessAttemptOutbox(outboxDirectory, SEGMENT_SIZE);
+        assertThat(reopened.pending()).containsExactlyElementsOf(pending);
+        reopened.close();
+    }
+
+    @Test
+    void should_not_copy_backlog_larger_than_a_segment_on_every_write() throws IOException {
+        var outbox = new FileProcessAttemptOutbox(outboxDirectory, SEGMENT_SIZE);
+        List<EnvelopeProcessAttempt> pending = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            pending.add(attempt("etag-" + i));
+            outbox.append(pending.get(i));
+        }
+
+        List<Path> segments = segments();
+        assertThat(segments).hasSizeGreaterThan(3);
+        byte[] firstSegment = Files.readAllBytes(segments.get(0));
+        for (int i = 200; i < 300; i++) {
+            pending.add(attempt("etag-" + i));
+            outbox.append(pending.get(i));
+        }
+        assertThat(Files.readAllBytes(segments.get(0))).isEqualTo(firstSegment);
+
+        outbox.close();
+        var reopened = new FileProcessAttemptOutbox(outboxDirectory, SEGMENT_SIZE);
+        assertThat(reopened.pending()).containsExactlyElementsOf(pending);
+        reopened.pending().forEach(attempt -> reopened.acknowledge(attempt.attemptId));
+        assertThat(segments()).hasSize(1);
+        reopened.close();
+    }
+
+    @Test
+    void should_copy_attempt_left_pending_once_most_of_outbox_is_recorded() throws IOException {
+        var outbox = new FileProcessAttemptOutbox(outboxDirectory, SEGMENT_SIZE);
+        var pending = attempt("etag-pending");
+        outbox.append(pending);
+        for (int i = 0; i < 1000; i++) {
+            var recorded = attempt("etag-" + i);
+            outbox.append(recorded);
+            outbox.acknowledge(recorded.attemptId);
+        }
+        outbox.close();
+
+        long outboxSize = 0;
+        for (Path segment : segments()) {
+            outboxSize += Files.size(segment);
+        }
+        assertThat(outboxSize).isLessThan(2 * SEGMENT_SIZE);
+        var reopened = new FileProcessAttemptOutbox(outboxDirectory, SEGMENT_SIZE);
+        assertThat(reopened.pending()).containsExactly(pending);
+        reopened.close();
+    }
+
+    @Test
+    void should_ignore_attempt_written_partially() throws IOException {
+        var outbox = new FileProcessAttemptOutbox(outboxDirectory, SEGMENT_SIZE);
+        var complete = attempt("etag-1");
+        outbox.append(complete);
+        outbox.append(attempt("etag-2"));
+        outbox.close();
+
+        Path segment = segments().get(0);
+        byte[] content = Files.readAllBytes(segment);
+        Files.write(segment, Arrays.copyOf(content, content.length - 5));
+
+        var reopened = new FileProcessAttemptOutbox(outboxDirectory, SEGMENT_SIZE);
+        assertThat(reopened.pending()).containsExactly(complete);
+        reopened.close();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(outboxDirectory)) {
+            return files.sorted().collect(toList());
+        }
+    }
+
+    private static EnvelopeProcessAttempt attempt(String etag) {
+        return new EnvelopeProcessAttempt(
+            UUID.randomUUID(),
+            etag,
+            "service",
+            "timestamp",
+            "description",
+            List.of(),
+            List.of("error"),
+            EnvelopeProcessStatus.ERRORS
+        );
+    }
+}
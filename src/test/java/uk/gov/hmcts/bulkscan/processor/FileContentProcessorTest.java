@@ -1,5 +1,6 @@
 package uk.gov.hmcts.bulkscan.processor;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.restassured.http.ContentType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -7,6 +8,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.bulkscan.blob.EnvelopeBlobSourceFactory;
+import uk.gov.hmcts.bulkscan.exception.MetadataNotFoundException;
+import uk.gov.hmcts.bulkscan.http.BulkScanHttpTransport;
 import uk.gov.hmcts.bulkscan.service.EnvelopeHandler;
 import uk.gov.hmcts.bulkscan.type.BulkScanEnvelope;
 import uk.gov.hmcts.bulkscan.type.IServiceOcrValidator;
@@ -19,6 +23,8 @@ import java.util.zip.ZipInputStream;
 
 import static java.time.Instant.now;
 import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -63,12 +69,20 @@ class FileContentProcessorTest {
 
     private FileContentProcessor fileContentProcessor;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @BeforeEach
     void setUp() {
         fileContentProcessor = new FileContentProcessor(
                 zipFileProcessor,
                 envelopeProcessor,
-                envelopeHandler
+                envelopeHandler,
+                new EnvelopeBlobSourceFactory(Mockito.mock(BulkScanHttpTransport.class), meterRegistry, "service", 64, 16, 64, 3),
+                meterRegistry,
+                "service",
+                false,
+                false,
+                false
         );
         serviceOcrValidator = Mockito.mock(IServiceOcrValidator.class);
         bulkScanEnvelope = new BulkScanEnvelope(
@@ -117,5 +131,70 @@ class FileContentProcessorTest {
                 serviceOcrValidator
         );
         verifyNoMoreInteractions(envelopeProcessor);
+        assertThat(meterRegistry.get("bulk_scan.envelope.extraction").tag("service", "service").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("bulk_scan.metafile.validation").tag("service", "service").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void should_extract_pdfs_while_reading_metadata_when_single_download_enabled() throws Exception {
+        // given
+        fileContentProcessor = new FileContentProcessor(
+                zipFileProcessor,
+                envelopeProcessor,
+                envelopeHandler,
+                new EnvelopeBlobSourceFactory(Mockito.mock(BulkScanHttpTransport.class), meterRegistry, "service", 64, 16, 64, 3),
+                meterRegistry,
+                "service",
+                true,
+                false,
+                false
+        );
+        given(zipFileProcessor.getZipContentDetailAndExtractPdfs(zis, FILE_NAME)).willReturn(zipFileContentDetail);
+        given(envelopeProcessor.parseEnvelope(metadata, FILE_NAME)).willReturn(inputEnvelope);
+
+        // when
+        fileContentProcessor.processZipFileContent(
+                zis,
+                bulkScanEnvelope,
+                CONTAINER_NAME,
+                serviceOcrValidator
+        );
+
+        // then
+        verify(zipFileProcessor).getZipContentDetailAndExtractPdfs(zis, FILE_NAME);
+        verifyNoMoreInteractions(zipFileProcessor);
+    }
+
+    @Test
+    void should_delete_extracted_pdfs_when_single_download_envelope_is_rejected() throws Exception {
+        // given
+        fileContentProcessor = new FileContentProcessor(
+                zipFileProcessor,
+                envelopeProcessor,
+                envelopeHandler,
+                new EnvelopeBlobSourceFactory(Mockito.mock(BulkScanHttpTransport.class), meterRegistry, "service", 64, 16, 64, 3),
+                meterRegistry,
+                "service",
+                true,
+                false,
+                false
+        );
+        given(zipFileProcessor.getZipContentDetailAndExtractPdfs(zis, FILE_NAME)).willReturn(zipFileContentDetail);
+        given(envelopeProcessor.parseEnvelope(metadata, FILE_NAME))
+                .willThrow(new MetadataNotFoundException("No metadata file found in the zip file"));
+
+        // when
+        Throwable thrown = catchThrowable(() -> fileContentProcessor.processZipFileContent(
+                zis,
+                bulkScanEnvelope,
+                CONTAINER_NAME,
+                serviceOcrValidator
+        ));
+
+        // then
+        assertThat(thrown).isInstanceOf(MetadataNotFoundException.class);
+        verify(zipFileProcessor).deleteZipExtracted(FILE_NAME);
     }
 }
\ No newline at end of file
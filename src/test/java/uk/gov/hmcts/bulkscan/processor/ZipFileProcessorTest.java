@@ -3,14 +3,37 @@ package uk.gov.hmcts.bulkscan.processor;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.bulkscan.exception.FileNameIrregularitiesException;
+import uk.gov.hmcts.bulkscan.exception.FileSizeExceedMaxUploadLimit;
+import uk.gov.hmcts.bulkscan.exception.MetadataNotFoundException;
+import uk.gov.hmcts.bulkscan.exception.NonPdfFileFoundException;
+import uk.gov.hmcts.bulkscan.blob.EnvelopeBlobSource;
 import uk.gov.hmcts.bulkscan.helper.DirectoryZipper;
+import uk.gov.hmcts.bulkscan.helper.InputEnvelopeCreator;
+import uk.gov.hmcts.bulkscan.type.BulkScanEnvelope;
+import uk.gov.hmcts.bulkscan.type.ProcessedEnvelopeContents;
+import uk.gov.hmcts.bulkscan.type.ZipFileContentDetail;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
 import java.util.zip.ZipInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static uk.gov.hmcts.bulkscan.helper.InputEnvelopeCreator.inputEnvelope;
 
 @ExtendWith(MockitoExtension.class)
 @SuppressWarnings("unchecked")
@@ -31,4 +54,294 @@ class ZipFileProcessorTest {
         zipFileProcessor.deleteZipExtracted(zipFileName);
         assertThat(new File(FOLDER_NAME + File.separator + zipFileName)).doesNotExist();
     }
+
+    @Test
+    void should_read_metadata_and_extract_pdfs_in_single_pass() throws IOException {
+        byte[] zipFile = DirectoryZipper.zipDir("envelopes/sample_valid_content");
+
+        ZipInputStream extractedZis = new ZipInputStream(new ByteArrayInputStream(zipFile));
+
+        var zipFileName = "1_2324_43543.zip";
+        var zipDetail = zipFileProcessor.getZipContentDetailAndExtractPdfs(extractedZis, zipFileName);
+
+        assertThat(zipDetail.getMetadata()).isNotEmpty();
+        assertThat(zipDetail.pdfFileNames).containsExactly("1111002.pdf");
+        assertThat(zipDetail.getExtractedPdfs()).containsOnlyKeys("1111002.pdf");
+        assertThat(zipDetail.getExtractedPdfs().get("1111002.pdf")).exists();
+
+        // url is never opened, the pdfs come from the first download
+        var envelope = BulkScanEnvelope.builder().fileName(zipFileName).url("https://invalid.url/envelope.zip").build();
+        var contents = new ProcessedEnvelopeContents(envelope, zipDetail, null, Optional.empty(), zipFileProcessor);
+        assertThat(contents.getExtractedFiles()).isEqualTo(zipDetail.getExtractedPdfs());
+
+        zipFileProcessor.deleteZipExtracted(zipFileName);
+        assertThat(new File(FOLDER_NAME + File.separator + zipFileName)).doesNotExist();
+    }
+
+    @Test
+    void should_not_download_envelope_again_when_no_pdf_was_extracted_with_metadata() throws IOException {
+        byte[] metadata = "{\"zip_file_name\": \"1_2324_43543.zip\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] zipFile = DirectoryZipper.zipItems(List.of(new DirectoryZipper.ZipItem("metadata.json", metadata)));
+        var zipFileName = "1_2324_43543.zip";
+
+        var zipDetail = zipFileProcessor.getZipContentDetailAndExtractPdfs(
+            new ZipInputStream(new ByteArrayInputStream(zipFile)),
+            zipFileName
+        );
+
+        // url is never opened, the envelope holds no pdf
+        var envelope = BulkScanEnvelope.builder().fileName(zipFileName).url("https://invalid.url/envelope.zip").build();
+        var contents = new ProcessedEnvelopeContents(envelope, zipDetail, null, Optional.empty(), zipFileProcessor);
+        assertThat(contents.getExtractedFiles()).isEmpty();
+    }
+
+    @Test
+    void should_fail_to_extract_pdfs_when_envelope_cannot_be_downloaded_again() throws IOException {
+        byte[] metadata = "{\"zip_file_name\": \"1_2324_43543.zip\"}".getBytes(StandardCharsets.UTF_8);
+        var zipDetail = new ZipFileContentDetail(metadata, List.of("1111002.pdf"));
+        var envelope = BulkScanEnvelope.builder().fileName(InputEnvelopeCreator.ZIP_FILE_NAME).build();
+        EnvelopeBlobSource blobSource = mock(EnvelopeBlobSource.class);
+        given(blobSource.openStream()).willThrow(new IOException("connection reset"));
+
+        var contents = new ProcessedEnvelopeContents(
+            envelope, zipDetail, inputEnvelope("bulkscan"), Optional.empty(), zipFileProcessor, blobSource
+        );
+
+        assertThatThrownBy(contents::getExtractedFiles)
+            .isInstanceOf(UncheckedIOException.class)
+            .hasRootCauseMessage("connection reset");
+    }
+
+    @Test
+    void should_read_metadata_from_central_directory_without_reading_pdfs() throws IOException {
+        byte[] metadata = "{\"zip_file_name\": \"1_2324_43543.zip\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] zipFile = DirectoryZipper.zipItems(List.of(
+            new DirectoryZipper.ZipItem("1111001.pdf", new byte[1024 * 1024]),
+            new DirectoryZipper.ZipItem("1111002.pdf", new byte[1024 * 1024]),
+            new DirectoryZipper.ZipItem("metadata.json", metadata)
+        ));
+
+        var zipDetail = zipFileProcessor.getZipContentDetailFromCentralDirectory(
+            new SeekableInMemoryChannel(zipFile),
+            "1_2324_43543.zip"
+        );
+
+        assertThat(zipDetail.getMetadata()).isEqualTo(metadata);
+        assertThat(zipDetail.pdfFileNames).containsExactly("1111001.pdf", "1111002.pdf");
+    }
+
+    @Test
+    void should_reject_non_pdf_file_found_in_central_directory() throws IOException {
+        byte[] zipFile = DirectoryZipper.zipItems(List.of(
+            new DirectoryZipper.ZipItem("1111002.pdf", new byte[]{1, 2, 3}),
+            new DirectoryZipper.ZipItem("notes.txt", new byte[]{1})
+        ));
+
+        assertThatThrownBy(() -> zipFileProcessor.getZipContentDetailFromCentralDirectory(
+            new SeekableInMemoryChannel(zipFile),
+            "1_2324_43543.zip"
+        )).isInstanceOf(NonPdfFileFoundException.class);
+    }
+
+    @Test
+    void should_delete_extracted_pdfs_when_zip_contains_non_pdf_file() throws IOException {
+        byte[] zipFile = DirectoryZipper.zipItems(List.of(
+            new DirectoryZipper.ZipItem("1111002.pdf", new byte[]{1, 2, 3}),
+            new DirectoryZipper.ZipItem("notes.txt", new byte[]{1})
+        ));
+
+        ZipInputStream extractedZis = new ZipInputStream(new ByteArrayInputStream(zipFile));
+
+        var zipFileName = "2_2324_43543.zip";
+        assertThatThrownBy(() -> zipFileProcessor.getZipContentDetailAndExtractPdfs(extractedZis, zipFileName))
+            .isInstanceOf(NonPdfFileFoundException.class);
+        assertThat(new File(FOLDER_NAME + File.separator + zipFileName)).doesNotExist();
+    }
+
+    @Test
+    void should_write_pdfs_larger_than_buffer() throws IOException {
+        byte[] pdf = new byte[10_000];
+        new Random(1).nextBytes(pdf);
+        byte[] zipFile = DirectoryZipper.zipItems(List.of(new DirectoryZipper.ZipItem("1111002.pdf", pdf)));
+        var processor = new ZipFileProcessor(FOLDER_NAME, 1, 0, 2);
+
+        var zipFileName = "3_2324_43543.zip";
+        var files = processor.extractPdfFiles(new ZipInputStream(new ByteArrayInputStream(zipFile)), zipFileName);
+
+        assertThat(Files.readAllBytes(files.get("1111002.pdf").toPath())).isEqualTo(pdf);
+        processor.deleteZipExtracted(zipFileName);
+    }
+
+    @Test
+    void should_stop_extraction_as_soon_as_envelope_size_limit_is_exceeded() throws IOException {
+        byte[] zipFile = DirectoryZipper.zipItems(List.of(
+            new DirectoryZipper.ZipItem("1111001.pdf", new byte[700 * 1024]),
+            new DirectoryZipper.ZipItem("1111002.pdf", new byte[700 * 1024]),
+            new DirectoryZipper.ZipItem("1111003.pdf", new byte[700 * 1024])
+        ));
+        var processor = new ZipFileProcessor(FOLDER_NAME, 256, 1, 2);
+        var zipFileName = "4_2324_43543.zip";
+        var extractedZis = new ZipInputStream(new ByteArrayInputStream(zipFile));
+
+        assertThatThrownBy(() -> processor.extractPdfFiles(extractedZis, zipFileName))
+            .isInstanceOf(FileSizeExceedMaxUploadLimit.class)
+            .hasMessageContaining("1111002.pdf");
+        assertThat(extractedZis.getNextEntry().getName()).isEqualTo("1111003.pdf");
+        assertThat(new File(FOLDER_NAME + File.separator + zipFileName)).doesNotExist();
+    }
+
+    @Test
+    void should_reject_envelope_larger_than_limit_before_download() {
+        var processor = new ZipFileProcessor(FOLDER_NAME, 256, 1, 2);
+
+        assertThatThrownBy(() -> processor.checkEnvelopeSizeAgainstUploadLimit("1.zip", 2 * 1024 * 1024))
+            .isInstanceOf(FileSizeExceedMaxUploadLimit.class);
+        processor.checkEnvelopeSizeAgainstUploadLimit("1.zip", 1024);
+    }
+
+    @Test
+    void should_extract_pdfs_of_spooled_zip_in_parallel() throws IOException {
+        byte[] metadata = "{\"zip_file_name\": \"5_2324_43543.zip\"}".getBytes(StandardCharsets.UTF_8);
+        List<DirectoryZipper.ZipItem> items = new ArrayList<>();
+        items.add(new DirectoryZipper.ZipItem("metadata.json", metadata));
+        for (int i = 0; i < 8; i++) {
+            byte[] pdf = new byte[50_000];
+            new Random(i).nextBytes(pdf);
+            items.add(new DirectoryZipper.ZipItem("111100" + i + ".pdf", pdf));
+        }
+        byte[] zipFile = DirectoryZipper.zipItems(items);
+
+        var zipFileName = "5_2324_43543.zip";
+        File spooled = zipFileProcessor.spoolZipFile(new ByteArrayInputStream(zipFile), zipFileName);
+        var zipDetail = zipFileProcessor.getZipContentDetailAndExtractPdfsInParallel(spooled, zipFileName);
+
+        assertThat(zipDetail.getMetadata()).isEqualTo(metadata);
+        assertThat(zipDetail.pdfFileNames).hasSize(8).startsWith("1111000.pdf");
+        for (int i = 0; i < 8; i++) {
+            byte[] pdf = new byte[50_000];
+            new Random(i).nextBytes(pdf);
+            assertThat(Files.readAllBytes(zipDetail.getExtractedPdfs().get("111100" + i + ".pdf").toPath()))
+                .isEqualTo(pdf);
+        }
+
+        zipFileProcessor.deleteZipExtracted(zipFileName);
+        Files.delete(spooled.toPath());
+    }
+
+    @Test
+    void should_inflate_pdfs_of_spooled_zip_larger_than_buffer() throws IOException {
+        byte[] metadata = "{\"zip_file_name\": \"7_2324_43543.zip\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] randomPdf = new byte[10_000];
+        new Random(1).nextBytes(randomPdf);
+        byte[] repetitivePdf = "%PDF-1.4 repeated content ".repeat(2_000).getBytes(StandardCharsets.US_ASCII);
+        byte[] zipFile = DirectoryZipper.zipItems(List.of(
+            new DirectoryZipper.ZipItem("metadata.json", metadata),
+            new DirectoryZipper.ZipItem("1111001.pdf", randomPdf),
+            new DirectoryZipper.ZipItem("1111002.pdf", repetitivePdf)
+        ));
+        var processor = new ZipFileProcessor(FOLDER_NAME, 1, 0, 2);
+
+        var zipFileName = "7_2324_43543.zip";
+        File spooled = processor.spoolZipFile(new ByteArrayInputStream(zipFile), zipFileName);
+        var zipDetail = processor.getZipContentDetailAndExtractPdfsInParallel(spooled, zipFileName);
+
+        assertThat(Files.readAllBytes(zipDetail.getExtractedPdfs().get("1111001.pdf").toPath())).isEqualTo(randomPdf);
+        assertThat(Files.readAllBytes(zipDetail.getExtractedPdfs().get("1111002.pdf").toPath()))
+            .isEqualTo(repetitivePdf);
+
+        processor.deleteZipExtracted(zipFileName);
+        processor.shutdown();
+        Files.delete(spooled.toPath());
+    }
+
+    @Test
+    void should_reject_spooled_zip_with_pdfs_of_same_file_name_in_different_folders() throws IOException {
+        byte[] zipFile = DirectoryZipper.zipItems(List.of(
+            new DirectoryZipper.ZipItem("metadata.json", "{}".getBytes(StandardCharsets.UTF_8)),
+            new DirectoryZipper.ZipItem("first/1111002.pdf", new byte[1000]),
+            new DirectoryZipper.ZipItem("second/1111002.pdf", new byte[2000])
+        ));
+        var zipFileName = "8_2324_43543.zip";
+
+        File spooled = zipFileProcessor.spoolZipFile(new ByteArrayInputStream(zipFile), zipFileName);
+        assertThatThrownBy(() -> zipFileProcessor.getZipContentDetailAndExtractPdfsInParallel(spooled, zipFileName))
+            .isInstanceOf(FileNameIrregularitiesException.class)
+            .hasMessageContaining("1111002.pdf");
+        assertThat(new File(FOLDER_NAME + File.separator + zipFileName)).doesNotExist();
+        Files.delete(spooled.toPath());
+    }
+
+    @Test
+    void should_reject_envelope_without_metadata_and_delete_pdfs_extracted_with_it() throws IOException {
+        byte[] zipFile = DirectoryZipper.zipItems(List.of(new DirectoryZipper.ZipItem("1111002.pdf", new byte[1000])));
+        var zipFileName = "6_2324_43543.zip";
+
+        assertThatThrownBy(() -> zipFileProcessor.getZipContentDetailAndExtractPdfs(
+            new ZipInputStream(new ByteArrayInputStream(zipFile)),
+            zipFileName
+        )).isInstanceOf(MetadataNotFoundException.class);
+        assertThat(new File(FOLDER_NAME + File.separator + zipFileName)).doesNotExist();
+
+        File spooled = zipFileProcessor.spoolZipFile(new ByteArrayInputStream(zipFile), zipFileName);
+        assertThatThrownBy(() -> zipFileProcessor.getZipContentDetailAndExtractPdfsInParallel(spooled, zipFileName))
+            .isInstanceOf(MetadataNotFoundException.class);
+        assertThat(new File(FOLDER_NAME + File.separator + zipFileName)).doesNotExist();
+        Files.delete(spooled.toPath());
+    }
+
+    private static class SeekableInMemoryChannel implements SeekableByteChannel {
+        private final byte[] content;
+        private int position;
+
+        SeekableInMemoryChannel(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (position >= content.length) {
+                return -1;
+            }
+            int length = Math.min(dst.remaining(), content.length - position);
+            dst.put(content, position, length);
+            position += length;
+            return length;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) {
+            position = (int) newPosition;
+            return this;
+        }
+
+        @Override
+        public long size() {
+            return content.length;
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+            // nothing to release
+        }
+    }
 }
@@ -0,0 +1,112 @@
+package uk.gov.hmcts.bulkscan.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.bulkscan.type.FormData;
+import uk.gov.hmcts.bulkscan.type.IServiceOcrValidator;
+import uk.gov.hmcts.bulkscan.type.OcrDataField;
+import uk.gov.hmcts.bulkscan.type.OcrValidationRequest;
+import uk.gov.hmcts.bulkscan.type.OcrValidationResult;
+import uk.gov.hmcts.bulkscan.type.OcrValidationStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchingOcrValidatorTest {
+
+    private final List<List<OcrValidationRequest>> batches = new CopyOnWriteArrayList<>();
+    private final ExecutorService envelopes = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        envelopes.shutdownNow();
+    }
+
+    @Test
+    void should_validate_envelopes_processed_in_parallel_together() throws Exception {
+        var validator = new BatchingOcrValidator(new RecordingValidator(), 4, 10_000);
+
+        List<Future<OcrValidationResult>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String formType = "form-" + i;
+            results.add(envelopes.submit(() -> validator.validateEnvelope(formType, formData())));
+        }
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(results.get(i).get().warnings()).containsExactly("form-" + i);
+        }
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).hasSize(4);
+    }
+
+    @Test
+    void should_validate_incomplete_batch_after_linger_time() {
+        var validator = new BatchingOcrValidator(new RecordingValidator(), 4, 10);
+
+        assertThat(validator.validateEnvelope("form", formData()).warnings()).containsExactly("form");
+        assertThat(validator.validateEnvelope("other-form", formData()).warnings()).containsExactly("other-form");
+        assertThat(batches).hasSize(2);
+    }
+
+    @Test
+    void should_fail_every_envelope_of_failed_batch() throws InterruptedException {
+        IServiceOcrValidator failing = (formType, formData) -> {
+            throw new IllegalStateException("unavailable");
+        };
+        var validator = new BatchingOcrValidator(failing, 2, 10_000);
+
+        Future<OcrValidationResult> first = envelopes.submit(() -> validator.validateEnvelope("form", formData()));
+        Future<OcrValidationResult> second = envelopes.submit(() -> validator.validateEnvelope("form", formData()));
+
+        for (Future<OcrValidationResult> result : List.of(first, second)) {
+            assertThatThrownBy(result::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void should_validate_batch_one_envelope_at_a_time_by_default() {
+        IServiceOcrValidator validator = (formType, formData) -> result(formType);
+
+        List<OcrValidationResult> results = validator.validateEnvelopes(List.of(
+            new OcrValidationRequest("form", formData()),
+            new OcrValidationRequest("other-form", formData())
+        ));
+
+        assertThat(results).extracting(OcrValidationResult::warnings)
+            .containsExactly(List.of("form"), List.of("other-form"));
+    }
+
+    private static FormData formData() {
+        return new FormData(List.of(new OcrDataField("name", "value")));
+    }
+
+    private static OcrValidationResult result(String formType) {
+        return new OcrValidationResult(OcrValidationStatus.WARNINGS, List.of(formType), emptyList());
+    }
+
+    private class RecordingValidator implements IServiceOcrValidator {
+
+        @Override
+        public OcrValidationResult validateEnvelope(String formType, FormData docWithOcr) {
+            throw new UnsupportedOperationException("envelopes are validated in batches");
+        }
+
+        @Override
+        public List<OcrValidationResult> validateEnvelopes(List<OcrValidationRequest> requests) {
+            batches.add(requests);
+            return requests.stream().map(request -> result(request.formType())).collect(toList());
+        }
+    }
+}
@@ -1,4 +1,144 @@
 package uk.gov.hmcts.bulkscan.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import uk.gov.hmcts.bulkscan.client.BulkScanClientApi;
+import uk.gov.hmcts.bulkscan.enums.EnvelopeProcessStatus;
+import uk.gov.hmcts.bulkscan.exception.ConnectionUnavailableException;
+import uk.gov.hmcts.bulkscan.lease.InMemoryEnvelopeLeaseManager;
+import uk.gov.hmcts.bulkscan.outbox.InMemoryProcessAttemptOutbox;
+import uk.gov.hmcts.bulkscan.processor.FileContentProcessor;
+import uk.gov.hmcts.bulkscan.type.BulkScanEnvelope;
+import uk.gov.hmcts.bulkscan.type.BulkScanEnvelopeProcessingResponse;
+import uk.gov.hmcts.bulkscan.type.IEnvelopeReceiver;
+import uk.gov.hmcts.bulkscan.type.IServiceOcrValidator;
+import uk.gov.hmcts.bulkscan.type.ProcessedEnvelopeContents;
+import uk.gov.hmcts.bulkscan.validation.OcrValidationGuard;
+import uk.gov.hmcts.reform.authorisation.generators.AuthTokenGenerator;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
 public class BulkScanClientServiceTest {
+
+    private static final String SERVICE_NAME = "service";
+
+    private final BulkScanClientApi bulkScanClient = mock(BulkScanClientApi.class);
+    private final FileContentProcessor fileContentProcessor = mock(FileContentProcessor.class);
+    private final IEnvelopeReceiver envelopeReceiver = mock(IEnvelopeReceiver.class);
+    private final AuthTokenGenerator authTokenGenerator = mock(AuthTokenGenerator.class);
+    private final InMemoryProcessAttemptOutbox outbox = new InMemoryProcessAttemptOutbox();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ServiceAuthTokenCache serviceAuthTokenCache =
+        new ServiceAuthTokenCache(authTokenGenerator, meterRegistry, SERVICE_NAME, 60);
+    private final EnvelopeWorkerPool envelopeWorkerPool = new EnvelopeWorkerPool(1, 10, "tempwork", 0, 0, false, 0);
+    private final ProcessAttemptReporter processAttemptReporter = new ProcessAttemptReporter(
+        bulkScanClient, serviceAuthTokenCache, outbox, meterRegistry, SERVICE_NAME, false, 10, 10, 0, 10, 10
+    );
+
+    private final InMemoryEnvelopeLeaseManager envelopeLeaseManager =
+        new InMemoryEnvelopeLeaseManager(Duration.ofMinutes(10), Clock.systemUTC());
+
+    private final BulkScanClientService bulkScanClientService = new BulkScanClientService(
+        bulkScanClient,
+        fileContentProcessor,
+        envelopeReceiver,
+        serviceAuthTokenCache,
+        mock(IServiceOcrValidator.class),
+        new OcrValidationGuard(false, 30000, 10, 0, 50, 20, 10, 60000),
+        envelopeWorkerPool,
+        envelopeLeaseManager,
+        processAttemptReporter,
+        meterRegistry,
+        SERVICE_NAME,
+        false,
+        20,
+        50
+    );
+
+    @AfterEach
+    void tearDown() {
+        envelopeWorkerPool.shutdown();
+    }
+
+    @Test
+    void should_leave_envelope_for_later_poll_when_no_connection_is_free() throws Exception {
+        var envelope = envelope();
+        given(fileContentProcessor.processEnvelope(eq(envelope), eq(SERVICE_NAME), any()))
+            .willThrow(new ConnectionUnavailableException("No blob connection free"));
+
+        bulkScanClientService.processEnvelopes(SERVICE_NAME, List.of(envelope));
+
+        assertThat(outbox.pending()).isEmpty();
+        verify(bulkScanClient, never()).recordEnvelopeProcessingAttempt(any(), any(), any(), any(), any());
+        assertThat(envelopeLeaseManager.tryAcquire("etag")).isTrue();
+    }
+
+    @Test
+    void should_send_result_of_received_envelope_again_instead_of_processing_it_again_when_recording_fails()
+        throws Exception {
+        var envelope = envelope();
+        given(authTokenGenerator.generate()).willReturn("token");
+        given(fileContentProcessor.processEnvelope(eq(envelope), eq(SERVICE_NAME), any()))
+            .willReturn(mock(ProcessedEnvelopeContents.class));
+        given(envelopeReceiver.onEnvelopeReceived(any())).willReturn(new BulkScanEnvelopeProcessingResponse(
+            "etag", "received", EnvelopeProcessStatus.SUCCESS, emptyList(), emptyList()
+        ));
+        given(bulkScanClient.recordEnvelopeProcessingAttempt(eq("token"), eq(SERVICE_NAME), eq("etag"), any(), any()))
+            .willReturn(new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR))
+            .willReturn(new ResponseEntity<>(HttpStatus.OK));
+
+        bulkScanClientService.processEnvelopes(SERVICE_NAME, List.of(envelope));
+
+        assertThat(outbox.pending()).singleElement()
+            .extracting(attempt -> attempt.status)
+            .isEqualTo(EnvelopeProcessStatus.SUCCESS);
+
+        bulkScanClientService.processEnvelopes(SERVICE_NAME, List.of(envelope));
+
+        verify(envelopeReceiver).onEnvelopeReceived(any());
+        verify(bulkScanClient, times(2))
+            .recordEnvelopeProcessingAttempt(eq("token"), eq(SERVICE_NAME), eq("etag"), any(), any());
+        assertThat(outbox.pending()).isEmpty();
+    }
+
+    @Test
+    void should_not_hand_envelope_over_when_lease_was_lost_while_processing_it() throws Exception {
+        var envelope = envelope();
+        given(fileContentProcessor.processEnvelope(eq(envelope), eq(SERVICE_NAME), any())).willAnswer(invocation -> {
+            envelopeLeaseManager.release("etag");
+            return mock(ProcessedEnvelopeContents.class);
+        });
+
+        bulkScanClientService.processEnvelopes(SERVICE_NAME, List.of(envelope));
+
+        verify(envelopeReceiver, never()).onEnvelopeReceived(any());
+        verify(fileContentProcessor).deleteExtractedFiles(envelope);
+        assertThat(outbox.pending()).isEmpty();
+    }
+
+    private static BulkScanEnvelope envelope() {
+        return new BulkScanEnvelope(
+            "etag",
+            "file.zip",
+            "https://thisisaurl.com/file.zip",
+            "2022-05-09T11:47:28Z",
+            128L,
+            "application/zip"
+        );
+    }
 }
@@ -91,11 +91,7 @@ class EnvelopeHandlerTest {
         );
 
         // then
-        verify(envelopeValidator).assertZipFilenameMatchesWithMetadata(inputEnvelope, FILE_NAME);
-        verify(envelopeValidator).assertEnvelopeContainsOcrDataIfRequired(inputEnvelope);
-        verify(envelopeValidator).assertEnvelopeHasPdfs(inputEnvelope, pdfs);
-        verify(envelopeValidator).assertDocumentControlNumbersAreUnique(inputEnvelope);
-        verify(envelopeValidator).assertEnvelopeContainsDocsOfAllowedTypesOnly(inputEnvelope);
+        verify(envelopeValidator).assertEnvelopeIsValid(inputEnvelope, FILE_NAME, pdfs);
 
         verifyNoMoreInteractions(envelopeProcessor);
     }
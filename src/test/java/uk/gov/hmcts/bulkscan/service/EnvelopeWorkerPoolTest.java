@@ -0,0 +1,109 @@
+package uk.gov.hmcts.bulkscan.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.bulkscan.type.BulkScanEnvelope;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnvelopeWorkerPoolTest {
+
+    private static final String SERVICE_NAME = "service";
+
+    private EnvelopeWorkerPool envelopeWorkerPool;
+
+    @AfterEach
+    void tearDown() {
+        envelopeWorkerPool.shutdown();
+    }
+
+    @Test
+    void should_process_envelopes_on_calling_thread_with_single_worker() {
+        envelopeWorkerPool = new EnvelopeWorkerPool(1, 10, "tempwork", 0, 0, false, 0);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+
+        envelopeWorkerPool.processAll(SERVICE_NAME, envelopes(5), envelope -> {
+            threads.add(Thread.currentThread().getName());
+            processed.add(envelope.getEtag());
+        });
+
+        assertThat(processed).hasSize(5);
+        assertThat(threads).containsExactly(Thread.currentThread().getName());
+        assertThat(envelopeWorkerPool.processesInParallel()).isFalse();
+    }
+
+    @Test
+    void should_process_envelopes_in_parallel_and_wait_for_completion() {
+        envelopeWorkerPool = new EnvelopeWorkerPool(4, 10, "tempwork", 0, 0, false, 0);
+        assertThat(envelopeWorkerPool.processesInParallel()).isTrue();
+        CountDownLatch allWorkersBusy = new CountDownLatch(4);
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+
+        envelopeWorkerPool.processAll(SERVICE_NAME, envelopes(8), envelope -> {
+            allWorkersBusy.countDown();
+            try {
+                // only completes if 4 envelopes are in progress at the same time
+                assertThat(allWorkersBusy.await(5, TimeUnit.SECONDS)).isTrue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            processed.add(envelope.getEtag());
+        });
+
+        assertThat(processed).hasSize(8);
+    }
+
+    @Test
+    void should_continue_processing_when_an_envelope_fails() {
+        envelopeWorkerPool = new EnvelopeWorkerPool(2, 10, "tempwork", 0, 0, false, 0);
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+
+        envelopeWorkerPool.processAll(SERVICE_NAME, envelopes(4), envelope -> {
+            if ("etag-0".equals(envelope.getEtag())) {
+                throw new IllegalStateException("failed");
+            }
+            processed.add(envelope.getEtag());
+        });
+
+        assertThat(processed).containsExactlyInAnyOrder("etag-1", "etag-2", "etag-3");
+    }
+
+    @Test
+    void should_cap_concurrency_when_virtual_threads_enabled() {
+        // falls back to the single sequential worker on JDKs without virtual threads
+        envelopeWorkerPool = new EnvelopeWorkerPool(1, 10, "tempwork", 0, 0, true, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+
+        envelopeWorkerPool.processAll(SERVICE_NAME, envelopes(10), envelope -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                TimeUnit.MILLISECONDS.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            processed.add(envelope.getEtag());
+        });
+
+        assertThat(processed).hasSize(10);
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+    }
+
+    private List<BulkScanEnvelope> envelopes(int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> BulkScanEnvelope.builder().etag("etag-" + i).fileName(i + ".zip").build())
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,229 @@
+package uk.gov.hmcts.bulkscan.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import uk.gov.hmcts.bulkscan.client.BulkScanClientApi;
+import uk.gov.hmcts.bulkscan.enums.EnvelopeProcessStatus;
+import uk.gov.hmcts.bulkscan.outbox.InMemoryProcessAttemptOutbox;
+import uk.gov.hmcts.bulkscan.type.EnvelopeProcessAttempt;
+import uk.gov.hmcts.reform.authorisation.generators.AuthTokenGenerator;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ProcessAttemptReporterTest {
+
+    private static final String SERVICE_NAME = "service";
+
+    private final BulkScanClientApi bulkScanClient = mock(BulkScanClientApi.class);
+    private final AuthTokenGenerator authTokenGenerator = mock(AuthTokenGenerator.class);
+    private final InMemoryProcessAttemptOutbox outbox = new InMemoryProcessAttemptOutbox();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ProcessAttemptReporter reporter;
+
+    @AfterEach
+    void tearDown() {
+        reporter.shutdown();
+    }
+
+    @Test
+    void should_send_attempt_on_calling_thread_when_not_async() {
+        reporter = reporter(false, 10);
+        given(authTokenGenerator.generate()).willReturn("token");
+        var attempt = attempt("etag", "description");
+        given(bulkScanClient.recordEnvelopeProcessingAttempt("token", SERVICE_NAME, "etag", attempt.attemptId, attempt))
+            .willReturn(ResponseEntity.ok(attempt));
+
+        reporter.report(attempt);
+
+        verify(bulkScanClient).recordEnvelopeProcessingAttempt("token", SERVICE_NAME, "etag", attempt.attemptId, attempt);
+        assertThat(meterRegistry.get("bulk_scan.attempts.reported").tag("status", "errors").counter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void should_keep_attempt_not_recorded_and_send_it_when_envelope_is_polled_again() {
+        reporter = reporter(false, 10);
+        given(authTokenGenerator.generate()).willReturn("token");
+        var attempt = attempt("etag", "description");
+        given(bulkScanClient.recordEnvelopeProcessingAttempt("token", SERVICE_NAME, "etag", attempt.attemptId, attempt))
+            .willReturn(new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR))
+            .willReturn(ResponseEntity.ok(attempt));
+
+        reporter.report(attempt);
+        assertThat(outbox.pending()).containsExactly(attempt);
+
+        assertThat(reporter.resendPendingAttempt("etag")).isTrue();
+        assertThat(outbox.pending()).isEmpty();
+        assertThat(reporter.resendPendingAttempt("etag")).isFalse();
+    }
+
+    @Test
+    void should_send_attempts_left_in_outbox_on_startup_when_not_async() throws InterruptedException {
+        given(authTokenGenerator.generate()).willReturn("token");
+        var attempt = attempt("etag", "description");
+        outbox.append(attempt);
+        given(bulkScanClient.recordEnvelopeProcessingAttempt("token", SERVICE_NAME, "etag", attempt.attemptId, attempt))
+            .willReturn(ResponseEntity.ok(attempt));
+
+        reporter = reporter(false, 10);
+
+        verify(bulkScanClient, timeout(10_000))
+            .recordEnvelopeProcessingAttempt("token", SERVICE_NAME, "etag", attempt.attemptId, attempt);
+        for (int i = 0; i < 1000 && !outbox.pending().isEmpty(); i++) {
+            // acknowledged once the api answered
+            Thread.sleep(10);
+        }
+        assertThat(outbox.pending()).isEmpty();
+    }
+
+    @Test
+    void should_drop_attempt_refused_by_bulk_scan_and_let_envelope_be_processed_again() {
+        reporter = reporter(false, 10);
+        given(authTokenGenerator.generate()).willReturn("token");
+        var attempt = attempt("etag", "description");
+        given(bulkScanClient.recordEnvelopeProcessingAttempt("token", SERVICE_NAME, "etag", attempt.attemptId, attempt))
+            .willReturn(new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR))
+            .willReturn(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+
+        reporter.report(attempt);
+        assertThat(outbox.pending()).containsExactly(attempt);
+
+        assertThat(reporter.resendPendingAttempt("etag")).isFalse();
+        assertThat(outbox.pending()).isEmpty();
+        assertThat(meterRegistry.get("bulk_scan.attempts.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_send_only_latest_attempt_queued_for_an_envelope() throws InterruptedException {
+        reporter = reporter(true, 10);
+        given(authTokenGenerator.generate()).willReturn("token");
+        CountDownLatch apiAvailable = new CountDownLatch(1);
+        given(bulkScanClient.recordEnvelopeProcessingAttempt(anyString(), anyString(), anyString(), any(), any()))
+            .willAnswer(invocation -> {
+                apiAvailable.await();
+                return new ResponseEntity<>(HttpStatus.OK);
+            });
+
+        var blocking = attempt("etag-0", "sent first");
+        reporter.report(blocking);
+        while (reporter.getQueueDepth() > 0) {
+            // the sender takes the first attempt and waits for the api
+            Thread.sleep(10);
+        }
+        var replaced = attempt("etag-1", "replaced");
+        var other = attempt("etag-2", "other");
+        var latest = attempt("etag-1", "latest");
+        reporter.report(replaced);
+        reporter.report(other);
+        reporter.report(latest);
+
+        apiAvailable.countDown();
+        assertThat(reporter.flush(TimeUnit.SECONDS.toMillis(10))).isTrue();
+
+        var inOrder = inOrder(bulkScanClient);
+        inOrder.verify(bulkScanClient).recordEnvelopeProcessingAttempt(any(), any(), any(), any(), eq(blocking));
+        inOrder.verify(bulkScanClient).recordEnvelopeProcessingAttempt(any(), any(), any(), any(), eq(other));
+        inOrder.verify(bulkScanClient).recordEnvelopeProcessingAttempt(any(), any(), any(), any(), eq(latest));
+        verify(bulkScanClient, never()).recordEnvelopeProcessingAttempt(any(), any(), any(), any(), eq(replaced));
+        assertThat(outbox.pending()).isEmpty();
+    }
+
+    @Test
+    void should_retry_failed_attempt() throws InterruptedException {
+        reporter = reporter(true, 10);
+        given(authTokenGenerator.generate()).willReturn("token");
+        var attempt = attempt("etag", "description");
+        given(bulkScanClient.recordEnvelopeProcessingAttempt("token", SERVICE_NAME, "etag", attempt.attemptId, attempt))
+            .willThrow(new IllegalStateException("unavailable"))
+            .willThrow(new IllegalStateException("unavailable"))
+            .willReturn(ResponseEntity.ok(attempt));
+
+        reporter.report(attempt);
+
+        assertThat(reporter.flush(TimeUnit.SECONDS.toMillis(10))).isTrue();
+        verify(bulkScanClient, times(3))
+            .recordEnvelopeProcessingAttempt("token", SERVICE_NAME, "etag", attempt.attemptId, attempt);
+    }
+
+    @Test
+    void should_take_service_auth_token_again_for_each_retry() throws InterruptedException {
+        reporter = reporter(true, 10);
+        given(authTokenGenerator.generate()).willReturn("token-1", "token-2");
+        var attempt = attempt("etag", "description");
+        given(bulkScanClient.recordEnvelopeProcessingAttempt("token-1", SERVICE_NAME, "etag", attempt.attemptId, attempt))
+            .willThrow(new IllegalStateException("expired token"));
+        given(bulkScanClient.recordEnvelopeProcessingAttempt("token-2", SERVICE_NAME, "etag", attempt.attemptId, attempt))
+            .willReturn(ResponseEntity.ok(attempt));
+
+        reporter.report(attempt);
+
+        assertThat(reporter.flush(TimeUnit.SECONDS.toMillis(10))).isTrue();
+        verify(bulkScanClient)
+            .recordEnvelopeProcessingAttempt("token-2", SERVICE_NAME, "etag", attempt.attemptId, attempt);
+        assertThat(outbox.pending()).isEmpty();
+    }
+
+    @Test
+    void should_send_queued_attempts_on_shutdown() {
+        reporter = reporter(true, 10);
+        given(authTokenGenerator.generate()).willReturn("token");
+        given(bulkScanClient.recordEnvelopeProcessingAttempt(anyString(), anyString(), anyString(), any(), any()))
+            .willReturn(new ResponseEntity<>(HttpStatus.OK));
+
+        for (int i = 0; i < 5; i++) {
+            reporter.report(attempt("etag-" + i, "description"));
+        }
+        reporter.shutdown();
+
+        assertThat(reporter.getQueueDepth()).isZero();
+        verify(bulkScanClient, times(5)).recordEnvelopeProcessingAttempt(any(), any(), any(), any(), any());
+    }
+
+    private ProcessAttemptReporter reporter(boolean async, int queueSize) {
+        return new ProcessAttemptReporter(
+            bulkScanClient,
+            new ServiceAuthTokenCache(authTokenGenerator, meterRegistry, SERVICE_NAME, 60),
+            outbox,
+            meterRegistry,
+            SERVICE_NAME,
+            async,
+            queueSize,
+            2,
+            3,
+            10,
+            10
+        );
+    }
+
+    private static EnvelopeProcessAttempt attempt(String etag, String description) {
+        return new EnvelopeProcessAttempt(
+            UUID.randomUUID(),
+            etag,
+            SERVICE_NAME,
+            "timestamp",
+            description,
+            List.of(),
+            List.of(),
+            EnvelopeProcessStatus.ERRORS
+        );
+    }
+}
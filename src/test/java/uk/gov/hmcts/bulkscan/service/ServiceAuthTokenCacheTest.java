@@ -0,0 +1,117 @@
+package uk.gov.hmcts.bulkscan.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.authorisation.generators.AuthTokenGenerator;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ServiceAuthTokenCacheTest {
+
+    private static final String SERVICE_NAME = "service";
+
+    private final AuthTokenGenerator authTokenGenerator = mock(AuthTokenGenerator.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ServiceAuthTokenCache serviceAuthTokenCache =
+        new ServiceAuthTokenCache(authTokenGenerator, meterRegistry, SERVICE_NAME, 60);
+
+    @Test
+    void should_reuse_token_until_it_is_about_to_expire() {
+        String token = token(Instant.now().plusSeconds(3600));
+        given(authTokenGenerator.generate()).willReturn(token);
+
+        assertThat(serviceAuthTokenCache.getToken()).isEqualTo(token);
+        assertThat(serviceAuthTokenCache.getToken()).isEqualTo(token);
+
+        verify(authTokenGenerator).generate();
+        assertThat(meterRegistry.get("bulk_scan.auth.tokens.generated").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("bulk_scan.auth.tokens.cached").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_generate_new_token_when_cached_one_expires_within_refresh_margin() {
+        String expiring = token(Instant.now().plusSeconds(30));
+        String renewed = token(Instant.now().plusSeconds(3600));
+        given(authTokenGenerator.generate()).willReturn(expiring, renewed);
+
+        assertThat(serviceAuthTokenCache.getToken()).isEqualTo(expiring);
+        assertThat(serviceAuthTokenCache.getToken()).isEqualTo(renewed);
+        assertThat(serviceAuthTokenCache.getToken()).isEqualTo(renewed);
+
+        verify(authTokenGenerator, times(2)).generate();
+    }
+
+    @Test
+    void should_not_reuse_token_without_expiry() {
+        given(authTokenGenerator.generate()).willReturn("token");
+
+        serviceAuthTokenCache.getToken();
+        serviceAuthTokenCache.getToken();
+
+        verify(authTokenGenerator, times(2)).generate();
+    }
+
+    @Test
+    void should_generate_token_once_for_concurrent_callers() throws Exception {
+        String token = token(Instant.now().plusSeconds(3600));
+        CountDownLatch generating = new CountDownLatch(1);
+        CountDownLatch generated = new CountDownLatch(1);
+        given(authTokenGenerator.generate()).willAnswer(invocation -> {
+            generating.countDown();
+            generated.await();
+            return token;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> tokens = new ArrayList<>();
+            tokens.add(executor.submit(serviceAuthTokenCache::getToken));
+            generating.await();
+            for (int i = 0; i < 7; i++) {
+                tokens.add(executor.submit(serviceAuthTokenCache::getToken));
+            }
+            generated.countDown();
+
+            for (Future<String> result : tokens) {
+                assertThat(result.get()).isEqualTo(token);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(authTokenGenerator).generate();
+    }
+
+    @Test
+    void should_read_expiry_of_bearer_token() {
+        Instant expiry = Instant.ofEpochSecond(1_700_000_000L);
+
+        assertThat(ServiceAuthTokenCache.expiry("Bearer " + token(expiry))).isEqualTo(expiry);
+        assertThat(ServiceAuthTokenCache.expiry(token(expiry))).isEqualTo(expiry);
+        assertThat(ServiceAuthTokenCache.expiry("header.not-base64!.signature")).isNull();
+        assertThat(ServiceAuthTokenCache.expiry(null)).isNull();
+    }
+
+    private static String token(Instant expiry) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"HS512\"}".getBytes(StandardCharsets.UTF_8))
+            + "." + encoder.encodeToString(
+                ("{\"sub\":\"service\",\"exp\":" + expiry.getEpochSecond() + "}").getBytes(StandardCharsets.UTF_8)
+            )
+            + ".signature";
+    }
+}
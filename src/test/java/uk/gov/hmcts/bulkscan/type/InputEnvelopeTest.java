@@ -201,6 +201,50 @@ public class InputEnvelopeTest {
         assertThat(result).isEmpty();
     }
 
+    @Test
+    void should_report_misplaced_ocr_before_missing_ocr_or_subtype() {
+        var inputEnvelope = InputEnvelopeCreator.inputEnvelope(
+                "test",
+                "test",
+                Classification.NEW_APPLICATION,
+                asList(
+                    doc(InputDocumentType.FORM, null),
+                    doc(InputDocumentType.OTHER, null, new InputOcrData())
+                )
+        );
+
+        assertThatThrownBy(inputEnvelope::findDocWithOcr)
+                .isInstanceOf(OcrPresenceException.class)
+                .hasMessage(InputEnvelope.MISPLACED_OCR_MSG);
+        // same outcome when asked again
+        assertThatThrownBy(inputEnvelope::findDocWithOcr)
+                .isInstanceOf(OcrPresenceException.class)
+                .hasMessage(InputEnvelope.MISPLACED_OCR_MSG);
+    }
+
+    @Test
+    void should_return_form_type_and_ocr_fields_of_the_form() {
+        var ocrData = new InputOcrData();
+        ocrData.setFields(ocrDataFields);
+        var inputEnvelope = InputEnvelopeCreator.inputEnvelope(
+                "test",
+                "test",
+                Classification.NEW_APPLICATION,
+                asList(
+                    doc(InputDocumentType.OTHER, "other-subtype", null),
+                    doc(InputDocumentType.FORM, "form-subtype", ocrData)
+                )
+        );
+
+        assertThat(inputEnvelope.getFormType()).isEqualTo("form-subtype");
+        assertThat(inputEnvelope.retrieveOcrDataFields()).containsExactly(
+                new OcrDataField("text_field", "some text"),
+                new OcrDataField("number_field", "123"),
+                new OcrDataField("boolean_field", "true"),
+                new OcrDataField("null_field", "")
+        );
+    }
+
     private InputScannableItem doc(InputDocumentType type, InputOcrData ocr) {
         return doc(type, "some-doc-subtype", ocr);
     }
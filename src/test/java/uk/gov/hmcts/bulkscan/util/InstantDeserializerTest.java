@@ -3,18 +3,23 @@ package uk.gov.hmcts.bulkscan.util;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.node.TextNode;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.bulkscan.exception.InvalidDateFormatException;
 
 import java.io.IOException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
 
 import static java.time.ZoneOffset.UTC;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -53,4 +58,65 @@ class InstantDeserializerTest {
 
         assertThat(DESERIALIZER.deserialize(PARSER, CONTEXT)).isEqualTo(expected);
     }
+
+    @Test
+    void should_read_timestamp_from_parser_characters_as_the_formatter_does() throws IOException {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        Random random = new Random(1);
+
+        for (int i = 0; i < 10_000; i++) {
+            Instant expected = Instant.ofEpochMilli(random.nextLong(-62_135_596_800_000L, 253_402_300_799_999L));
+            String date = formatter.format(LocalDateTime.ofInstant(expected, UTC));
+
+            assertThat(DESERIALIZER.deserialize(parserWithCharacters("  " + date + "  ", 2, date.length()), CONTEXT))
+                .as(date)
+                .isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void should_read_timestamp_of_tree_node_as_the_formatter_does() throws IOException {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        Random random = new Random(2);
+
+        for (int i = 0; i < 1_000; i++) {
+            Instant expected = Instant.ofEpochMilli(random.nextLong(-62_135_596_800_000L, 253_402_300_799_999L));
+            String date = formatter.format(LocalDateTime.ofInstant(expected, UTC));
+            JsonParser treeParser = new TextNode(date).traverse();
+            treeParser.nextToken();
+
+            assertThat(DESERIALIZER.deserialize(treeParser, CONTEXT)).as(date).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void should_resolve_day_past_end_of_month_as_the_formatter_does() throws IOException {
+        JsonParser parser = parserWithCharacters("2023-04-31T10:00:00.000Z", 0, 24);
+        when(parser.getText()).thenReturn("2023-04-31T10:00:00.000Z");
+
+        assertThat(DESERIALIZER.deserialize(parser, CONTEXT)).isEqualTo(Instant.parse("2023-04-30T10:00:00Z"));
+    }
+
+    @Test
+    void should_reject_timestamp_not_matching_the_pattern() {
+        JsonParser parser = parserWithCharacters("2023-04-01T10:00:60.000Z", 0, 24);
+        when(parser.getText()).thenReturn("2023-04-01T10:00:60.000Z");
+
+        assertThatThrownBy(() -> DESERIALIZER.deserialize(parser, CONTEXT))
+            .isInstanceOf(InvalidDateFormatException.class)
+            .hasMessage("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+    }
+
+    private static JsonParser parserWithCharacters(String text, int offset, int length) {
+        JsonParser parser = mock(JsonParser.class);
+        try {
+            when(parser.hasTextCharacters()).thenReturn(true);
+            when(parser.getTextCharacters()).thenReturn(text.toCharArray());
+            when(parser.getTextOffset()).thenReturn(offset);
+            when(parser.getTextLength()).thenReturn(length);
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+        return parser;
+    }
 }
@@ -0,0 +1,90 @@
+package uk.gov.hmcts.bulkscan.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.bulkscan.exception.InvalidEnvelopeSchemaException;
+import uk.gov.hmcts.bulkscan.exception.OcrDataParseException;
+import uk.gov.hmcts.bulkscan.type.InputOcrData;
+import uk.gov.hmcts.bulkscan.type.InputOcrDataField;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class LazyOcrDataDeserializerTest {
+
+    private final LazyOcrDataDeserializer deserializer = new LazyOcrDataDeserializer();
+
+    @Test
+    void should_decode_to_the_same_fields_as_eager_deserializer() throws Exception {
+        InputOcrData lazyOcrData = deserializer.deserialize(jsonParser("/ocr-data/valid/valid-ocr.json"), context());
+        InputOcrData eagerOcrData = new OcrDataDeserializer()
+            .deserialize(jsonParser("/ocr-data/valid/valid-ocr.json"), context());
+
+        assertThat(lazyOcrData.getFields())
+            .usingRecursiveFieldByFieldElementComparator()
+            .containsExactlyElementsOf(eagerOcrData.getFields());
+    }
+
+    @Test
+    void should_decode_only_once() throws Exception {
+        InputOcrData ocrData = deserializer.deserialize(jsonParser("/ocr-data/valid/valid-ocr.json"), context());
+
+        List<List<InputOcrDataField>> fields = IntStream.range(0, 8)
+            .mapToObj(i -> CompletableFuture.supplyAsync(ocrData::getFields))
+            .map(CompletableFuture::join)
+            .toList();
+
+        assertThat(fields).allSatisfy(decoded -> assertThat(decoded).isSameAs(ocrData.getFields()));
+    }
+
+    @Test
+    void should_not_fail_until_invalid_ocr_data_is_read() throws Exception {
+        InputOcrData ocrData = deserializer.deserialize(
+            jsonParser("/ocr-data/invalid/missing-quotes-of-field-name.txt"),
+            context()
+        );
+
+        assertThatThrownBy(ocrData::getFields)
+            .isInstanceOf(InvalidEnvelopeSchemaException.class)
+            .hasMessage("Error occurred while parsing metafile")
+            .hasCauseInstanceOf(OcrDataParseException.class);
+        // failure is kept rather than decoding again, with a new exception for every read
+        Throwable first = catchThrowable(ocrData::getFields);
+        assertThat(catchThrowable(ocrData::getFields))
+            .isInstanceOf(InvalidEnvelopeSchemaException.class)
+            .isNotSameAs(first)
+            .hasCauseInstanceOf(OcrDataParseException.class);
+    }
+
+    @Test
+    void should_not_fail_until_ocr_data_not_in_base64_is_read() throws Exception {
+        JsonParser jsonParser = mock(JsonParser.class);
+        given(jsonParser.getText()).willReturn("this is not a Base64 encoded string");
+
+        InputOcrData ocrData = deserializer.deserialize(jsonParser, context());
+
+        assertThatThrownBy(ocrData::getFields).isInstanceOf(InvalidEnvelopeSchemaException.class);
+    }
+
+    private static DeserializationContext context() {
+        return mock(DeserializationContext.class);
+    }
+
+    private JsonParser jsonParser(String resourceName) throws IOException {
+        JsonParser jsonParser = mock(JsonParser.class);
+        byte[] fileAsBytes = IOUtils.toByteArray(getClass().getResource(resourceName));
+        given(jsonParser.getText()).willReturn(Base64.getEncoder().encodeToString(fileAsBytes));
+        return jsonParser;
+    }
+}
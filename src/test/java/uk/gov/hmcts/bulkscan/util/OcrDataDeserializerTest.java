@@ -2,6 +2,7 @@ package uk.gov.hmcts.bulkscan.util;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.BooleanNode;
 import com.fasterxml.jackson.databind.node.IntNode;
 import com.fasterxml.jackson.databind.node.NullNode;
@@ -15,6 +16,7 @@ import uk.gov.hmcts.bulkscan.type.InputOcrData;
 import uk.gov.hmcts.bulkscan.type.InputOcrDataField;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 
@@ -70,6 +72,30 @@ class OcrDataDeserializerTest {
         expectOcrParsingToFail("/ocr-data/invalid/invalid-metadata-file-field.json");
     }
 
+    @Test
+    void should_read_ocr_data_as_utf8_with_the_codec_of_the_parser() throws Exception {
+        String ocrData = "{\"Metadata_file\": [{\"metadata_field_name\": \"name\", \"metadata_field_value\": \"Zo\u00eb \u0141\"}]}";
+        String base64 = java.util.Base64.getEncoder().encodeToString(ocrData.getBytes(StandardCharsets.UTF_8));
+
+        JsonParser jsonParser = new ObjectMapper().createParser("\"" + base64 + "\"");
+        jsonParser.nextToken();
+        InputOcrData resultOcrData = deserializer.deserialize(jsonParser, mock(DeserializationContext.class));
+
+        assertThat(resultOcrData.getFields()).hasSize(1);
+        assertThat(resultOcrData.getFields().get(0).value.textValue()).isEqualTo("Zo\u00eb \u0141");
+    }
+
+    @Test
+    void should_throw_exception_when_ocr_data_has_non_ascii_characters() {
+        Throwable thrown = catchThrowable(() -> {
+            JsonParser jsonParser = mock(JsonParser.class);
+            given(jsonParser.getText()).willReturn("\u0141\u0141\u0141\u0141");
+            deserializer.deserialize(jsonParser, mock(DeserializationContext.class));
+        });
+
+        assertThat(thrown).isInstanceOf(OcrDataParseException.class);
+    }
+
     private void expectOcrParsingToFail(String resourceName) {
         OcrDataParseException exception = catchThrowableOfType(
                 () -> deserializeFromBase64(resourceName),
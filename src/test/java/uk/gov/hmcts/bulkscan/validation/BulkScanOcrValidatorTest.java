@@ -2,6 +2,7 @@ package uk.gov.hmcts.bulkscan.validation;
 
 import com.fasterxml.jackson.databind.node.TextNode;
 import com.google.common.collect.ImmutableList;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -54,7 +55,12 @@ class BulkScanOcrValidatorTest {
 
     @BeforeEach
     void setUp() {
-        this.ocrValidator = new BulkScanOcrValidator();
+        this.ocrValidator = new BulkScanOcrValidator(
+            new OcrValidationGuard(false, 30000, 10, 0, 50, 20, 10, 60000),
+            new OcrValidationCache(new SimpleMeterRegistry(), "service", false, 1000, 60),
+            new SimpleMeterRegistry(),
+            "service"
+        );
         this.serviceOcrValidator = Mockito.mock(IServiceOcrValidator.class);
     }
 
@@ -129,6 +135,26 @@ class BulkScanOcrValidatorTest {
         assertThat(warnings.get().warnings).isEqualTo(expectedWarnings);
     }
 
+    @Test
+    @SuppressWarnings("deprecation")
+    void should_call_service_validator_with_validator_built_without_spring() {
+        InputScannableItem scannableItem = doc(FORM, "subtype1", sampleOcr());
+        InputEnvelope envelope = envelope(
+                PO_BOX_1,
+                singletonList(scannableItem),
+                SUPPLEMENTARY_EVIDENCE
+        );
+
+        given(this.serviceOcrValidator.validateEnvelope(any(), any()))
+                .willReturn(new OcrValidationResult(OcrValidationStatus.WARNINGS, singletonList("warning"), emptyList()));
+
+        Optional<OcrValidationWarnings> warnings =
+                new BulkScanOcrValidator().assertOcrDataIsValid(envelope, this.serviceOcrValidator);
+
+        assertThat(warnings).isPresent();
+        assertThat(warnings.get().warnings).containsExactly("warning");
+    }
+
     @Test
     void should_not_call_validation_there_are_no_documents_with_ocr() {
         // given
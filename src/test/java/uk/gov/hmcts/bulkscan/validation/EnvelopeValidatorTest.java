@@ -9,7 +9,9 @@ import org.junit.jupiter.params.provider.EnumSource;
 import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.hmcts.bulkscan.exception.DisallowedDocumentTypesException;
 import uk.gov.hmcts.bulkscan.exception.DuplicateDocumentControlNumbersInEnvelopeException;
+import uk.gov.hmcts.bulkscan.exception.EnvelopeValidationException;
 import uk.gov.hmcts.bulkscan.exception.FileNameIrregularitiesException;
+import uk.gov.hmcts.bulkscan.exception.InvalidEnvelopeSchemaException;
 import uk.gov.hmcts.bulkscan.exception.OcrDataNotFoundException;
 import uk.gov.hmcts.bulkscan.exception.ZipNameNotMatchingMetaDataException;
 import uk.gov.hmcts.bulkscan.helper.InputEnvelopeCreator;
@@ -19,9 +21,13 @@ import uk.gov.hmcts.bulkscan.type.InputEnvelope;
 import uk.gov.hmcts.bulkscan.type.InputOcrData;
 import uk.gov.hmcts.bulkscan.type.InputOcrDataField;
 
+import java.util.List;
+
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static uk.gov.hmcts.bulkscan.helper.InputEnvelopeCreator.ZIP_FILE_NAME;
@@ -392,6 +398,109 @@ class EnvelopeValidatorTest {
                 .hasMessage("Name of the uploaded zip file does not match with field \"zip_file_name\" in the metadata");
     }
 
+    @Test
+    void assertEnvelopeIsValid_should_pass_for_valid_envelope() {
+        // given
+        InputEnvelope envelope = InputEnvelopeCreator.inputEnvelope(
+                "SSCS",
+                "POBOX",
+                SUPPLEMENTARY_EVIDENCE,
+                asList(
+                        scannableItem("file1.pdf", "dcn1"),
+                        scannableItem("file2.pdf", "dcn2")
+                )
+        );
+
+        // when
+        // then
+        assertDoesNotThrow(
+                () -> envelopeValidator.assertEnvelopeIsValid(envelope, ZIP_FILE_NAME, asList("file1.pdf", "file2.pdf"))
+        );
+    }
+
+    @Test
+    void assertEnvelopeIsValid_should_throw_exception_of_the_only_failed_check() {
+        // given
+        InputEnvelope envelope = InputEnvelopeCreator.inputEnvelope(
+                "SSCS",
+                "POBOX",
+                SUPPLEMENTARY_EVIDENCE,
+                asList(
+                        scannableItem("file1.pdf", "dcn1"),
+                        scannableItem("file2.pdf", "dcn1")
+                )
+        );
+
+        // when
+        // then
+        assertThatThrownBy(
+                () -> envelopeValidator.assertEnvelopeIsValid(envelope, ZIP_FILE_NAME, asList("file1.pdf", "file2.pdf"))
+        )
+                .isInstanceOf(DuplicateDocumentControlNumbersInEnvelopeException.class)
+                .hasMessage("Duplicate DCNs in envelope: dcn1");
+    }
+
+    @Test
+    void assertEnvelopeIsValid_should_report_all_failed_checks_in_order() {
+        // given
+        InputEnvelope envelope = InputEnvelopeCreator.inputEnvelope(
+                "SSCS",
+                "POBOX",
+                SUPPLEMENTARY_EVIDENCE,
+                asList(
+                        scannableItem("file1.pdf", "dcn1", InputDocumentType.FORM, null),
+                        scannableItem("file2.pdf", "dcn1")
+                )
+        );
+
+        // when
+        EnvelopeValidationException exception = catchThrowableOfType(
+                () -> envelopeValidator.assertEnvelopeIsValid(envelope, "wrong.zip", singletonList("file1.pdf")),
+                EnvelopeValidationException.class
+        );
+
+        // then
+        assertThat(exception.getViolations())
+                .extracting(Object::getClass)
+                .containsExactly(
+                        ZipNameNotMatchingMetaDataException.class,
+                        FileNameIrregularitiesException.class,
+                        DuplicateDocumentControlNumbersInEnvelopeException.class,
+                        DisallowedDocumentTypesException.class
+                );
+        assertThat(exception.getErrors()).containsExactly(
+                "Name of the uploaded zip file does not match with field \"zip_file_name\" in the metadata",
+                "Missing PDFs: file2.pdf",
+                "Duplicate DCNs in envelope: dcn1",
+                "Envelope contains scannable item(s) of types that are not allowed for classification 'supplementary_evidence': [Form]"
+        );
+    }
+
+    @Test
+    void assertEnvelopeIsValid_should_reject_invalid_ocr_data_of_envelope_not_requiring_ocr() {
+        // given
+        InputOcrData invalidOcrData = new InputOcrData() {
+            @Override
+            public List<InputOcrDataField> getFields() {
+                throw new InvalidEnvelopeSchemaException("Error occurred while parsing metafile", null);
+            }
+        };
+        InputEnvelope envelope = InputEnvelopeCreator.inputEnvelope(
+                "SSCS",
+                "POBOX",
+                Classification.EXCEPTION,
+                singletonList(scannableItem("file1.pdf", "dcn1", InputDocumentType.OTHER, invalidOcrData))
+        );
+
+        // when
+        // then
+        assertThatThrownBy(
+                () -> envelopeValidator.assertEnvelopeIsValid(envelope, "wrong.zip", singletonList("file1.pdf"))
+        )
+                .isInstanceOf(InvalidEnvelopeSchemaException.class)
+                .hasMessage("Error occurred while parsing metafile");
+    }
+
     private InputOcrData getOcrData() {
         InputOcrData ocrData = new InputOcrData();
         ocrData.setFields(singletonList(new InputOcrDataField(new TextNode("foo"), new TextNode("bar"))));
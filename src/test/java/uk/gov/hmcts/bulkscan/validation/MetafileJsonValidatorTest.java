@@ -4,13 +4,16 @@ import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.bulkscan.exception.InvalidEnvelopeSchemaException;
 import uk.gov.hmcts.bulkscan.type.Classification;
 import uk.gov.hmcts.bulkscan.type.InputDocumentType;
 import uk.gov.hmcts.bulkscan.type.InputEnvelope;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 
 class MetafileJsonValidatorTest {
@@ -134,6 +137,30 @@ class MetafileJsonValidatorTest {
         assertThat(envelope.payments.get(1).documentControlNumber).isEqualTo("1111002");
     }
 
+    @Test
+    void should_validate_and_map_json_file_in_single_parse() throws IOException, ProcessingException {
+        byte[] metafile = getResource("/metafiles/valid/from-spec.json");
+
+        InputEnvelope envelope = validator.validateAndParse(metafile, "from-spec.zip");
+
+        assertThat(envelope).usingRecursiveComparison().isEqualTo(validator.parseMetafile(metafile));
+    }
+
+    @Test
+    void should_reject_json_file_not_matching_schema_when_validating_and_mapping() {
+        byte[] metafile = "{\"po_box\": \"12625\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> validator.validateAndParse(metafile, "invalid.zip"))
+            .isInstanceOf(InvalidEnvelopeSchemaException.class)
+            .hasMessageContaining("invalid.zip");
+    }
+
+    private byte[] getResource(String resource) throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream(resource)) {
+            return IOUtils.toByteArray(inputStream);
+        }
+    }
+
     private InputEnvelope getEnvelope(String resource) throws IOException {
         try (InputStream inputStream = getClass().getResourceAsStream(resource)) {
             return validator.parseMetafile(IOUtils.toByteArray(inputStream));
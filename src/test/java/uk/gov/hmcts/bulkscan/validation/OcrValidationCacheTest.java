@@ -0,0 +1,84 @@
+package uk.gov.hmcts.bulkscan.validation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.bulkscan.type.FormData;
+import uk.gov.hmcts.bulkscan.type.IServiceOcrValidator;
+import uk.gov.hmcts.bulkscan.type.OcrDataField;
+import uk.gov.hmcts.bulkscan.type.OcrValidationResult;
+import uk.gov.hmcts.bulkscan.type.OcrValidationStatus;
+
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class OcrValidationCacheTest {
+
+    private static final OcrValidationResult ERRORS =
+        new OcrValidationResult(OcrValidationStatus.ERRORS, emptyList(), List.of("name missing"));
+
+    private final IServiceOcrValidator validator = mock(IServiceOcrValidator.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OcrValidationCache cache = new OcrValidationCache(meterRegistry, "service", true, 100, 60);
+
+    @Test
+    void should_validate_same_ocr_data_once() {
+        FormData formData = formData("name", "John");
+        given(validator.validateEnvelope("form", formData)).willReturn(ERRORS);
+
+        assertThat(validate("form", formData)).isEqualTo(ERRORS);
+        assertThat(validate("form", formData("name", "John"))).isEqualTo(ERRORS);
+
+        verify(validator).validateEnvelope("form", formData);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_validate_again_when_form_type_or_ocr_data_differ() {
+        given(validator.validateEnvelope(any(), any())).willReturn(ERRORS);
+
+        validate("form", formData("name", "John"));
+        validate("other-form", formData("name", "John"));
+        validate("form", formData("name", "Jane"));
+        validate("form", formData("nam", "eJohn"));
+
+        verify(validator, times(4)).validateEnvelope(any(), any());
+    }
+
+    @Test
+    void should_not_keep_failed_validation() {
+        FormData formData = formData("name", "John");
+        given(validator.validateEnvelope("form", formData))
+            .willThrow(new IllegalStateException("unavailable"))
+            .willReturn(ERRORS);
+
+        assertThatThrownBy(() -> validate("form", formData)).isInstanceOf(IllegalStateException.class);
+        assertThat(validate("form", formData)).isEqualTo(ERRORS);
+    }
+
+    @Test
+    void should_always_validate_when_disabled() {
+        var disabledCache = new OcrValidationCache(meterRegistry, "service", false, 100, 60);
+        FormData formData = formData("name", "John");
+
+        disabledCache.get(validator, "form", formData, () -> validator.validateEnvelope("form", formData));
+        disabledCache.get(validator, "form", formData, () -> validator.validateEnvelope("form", formData));
+
+        verify(validator, times(2)).validateEnvelope("form", formData);
+    }
+
+    private OcrValidationResult validate(String formType, FormData formData) {
+        return cache.get(validator, formType, formData, () -> validator.validateEnvelope(formType, formData));
+    }
+
+    private static FormData formData(String name, String value) {
+        return new FormData(List.of(new OcrDataField(name, value)));
+    }
+}
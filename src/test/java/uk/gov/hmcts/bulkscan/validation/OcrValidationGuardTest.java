@@ -0,0 +1,119 @@
+package uk.gov.hmcts.bulkscan.validation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.bulkscan.exception.OcrValidatorUnavailableException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OcrValidationGuardTest {
+
+    private static final long OPEN_DURATION_MILLIS = 200;
+
+    private final OcrValidationGuard guard = new OcrValidationGuard(true, 200, 1, 0, 50, 4, 4, OPEN_DURATION_MILLIS);
+
+    @AfterEach
+    void tearDown() {
+        guard.shutdown();
+    }
+
+    @Test
+    void should_return_result_of_validation() {
+        assertThat(guard.execute(() -> "result")).isEqualTo("result");
+        assertThat(guard.getState()).isEqualTo(OcrValidationGuard.State.CLOSED);
+    }
+
+    @Test
+    void should_rethrow_exception_of_validation() {
+        IllegalStateException failure = new IllegalStateException("unavailable");
+
+        assertThatThrownBy(() -> guard.execute(() -> {
+            throw failure;
+        })).isSameAs(failure);
+        assertThat(guard.getFailureRate()).isEqualTo(100);
+    }
+
+    @Test
+    void should_abandon_validation_taking_longer_than_timeout() {
+        assertThatThrownBy(() -> guard.execute(() -> sleep(5_000)))
+            .isInstanceOf(OcrValidatorUnavailableException.class)
+            .hasMessageContaining("did not complete within 200ms");
+    }
+
+    @Test
+    void should_reject_validation_when_too_many_are_in_progress() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            caller.submit(() -> guard.execute(() -> {
+                started.countDown();
+                return await(release);
+            }));
+            started.await();
+
+            assertThatThrownBy(() -> guard.execute(() -> "result"))
+                .isInstanceOf(OcrValidatorUnavailableException.class)
+                .hasMessageContaining("1 validations already in progress");
+        } finally {
+            release.countDown();
+            caller.shutdown();
+        }
+    }
+
+    @Test
+    void should_fail_fast_while_circuit_is_open_and_close_it_after_successful_trial() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            try {
+                guard.execute(() -> {
+                    throw new IllegalStateException("unavailable");
+                });
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        }
+        assertThat(guard.getState()).isEqualTo(OcrValidationGuard.State.OPEN);
+
+        assertThatThrownBy(() -> guard.execute(() -> "result"))
+            .isInstanceOf(OcrValidatorUnavailableException.class)
+            .hasMessage("OCR validation circuit is open");
+
+        TimeUnit.MILLISECONDS.sleep(OPEN_DURATION_MILLIS + 50);
+        assertThat(guard.getState()).isEqualTo(OcrValidationGuard.State.HALF_OPEN);
+        assertThat(guard.execute(() -> "result")).isEqualTo("result");
+        assertThat(guard.getState()).isEqualTo(OcrValidationGuard.State.CLOSED);
+        assertThat(guard.getFailureRate()).isZero();
+    }
+
+    @Test
+    void should_call_validation_on_calling_thread_when_disabled() {
+        var disabledGuard = new OcrValidationGuard(false, 200, 1, 0, 50, 4, 4, OPEN_DURATION_MILLIS);
+        Thread caller = Thread.currentThread();
+
+        assertThat(disabledGuard.execute(Thread::currentThread)).isSameAs(caller);
+    }
+
+    private static String sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "result";
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "result";
+    }
+}
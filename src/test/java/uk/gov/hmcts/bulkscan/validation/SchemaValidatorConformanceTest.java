@@ -0,0 +1,154 @@
+package uk.gov.hmcts.bulkscan.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import uk.gov.hmcts.bulkscan.exception.InvalidEnvelopeSchemaException;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the compiled metafile rules accept and reject the same metafiles as the generic schema validator,
+ * for the sample metafiles and variations of them breaking each kind of rule of the schema.
+ */
+class SchemaValidatorConformanceTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Map<String, Consumer<ObjectNode>> MUTATIONS = Map.ofEntries(
+        Map.entry("unchanged", metafile -> { }),
+        Map.entry("no po box", metafile -> metafile.remove("po_box")),
+        Map.entry("no jurisdiction", metafile -> metafile.remove("jurisdiction")),
+        Map.entry("no delivery date", metafile -> metafile.remove("delivery_date")),
+        Map.entry("no scannable items", metafile -> metafile.remove("scannable_items")),
+        Map.entry("no case number", metafile -> metafile.remove("case_number")),
+        Map.entry("null case number", metafile -> metafile.putNull("case_number")),
+        Map.entry("null po box", metafile -> metafile.putNull("po_box")),
+        Map.entry("numeric jurisdiction", metafile -> metafile.put("jurisdiction", 1)),
+        Map.entry("unknown property", metafile -> metafile.put("unknown", "value")),
+        Map.entry("case number too long", metafile -> metafile.put("case_number", "1".repeat(101))),
+        Map.entry("case number at max length", metafile -> metafile.put("case_number", "1".repeat(100))),
+        Map.entry("date without time", metafile -> metafile.put("opening_date", "2017-03-31")),
+        Map.entry("date with trailing newline", metafile -> metafile.put("opening_date", "2017-03-31T00:00:00.010Z\n")),
+        Map.entry("invalid zip file name", metafile -> metafile.put("zip_file_name", "envelope.zip")),
+        Map.entry("test zip file name", metafile -> metafile.put("zip_file_name", "1_24-02-2017-00-00-00.test.zip")),
+        Map.entry("invalid rescan for", metafile -> metafile.put("rescan_for", "envelope.zip")),
+        Map.entry("null rescan for", metafile -> metafile.putNull("rescan_for")),
+        Map.entry("unknown classification", metafile -> metafile.put("envelope_classification", "unknown")),
+        Map.entry("upper case classification", metafile -> metafile.put("envelope_classification", "EXCEPTION")),
+        Map.entry("empty scannable items", metafile -> metafile.putArray("scannable_items")),
+        Map.entry("scannable items not an array", metafile -> metafile.put("scannable_items", "items")),
+        Map.entry("duplicate scannable item", metafile -> metafile.withArray("scannable_items")
+            .add(metafile.get("scannable_items").get(0).deepCopy())),
+        Map.entry("scannable item not an object", metafile -> metafile.withArray("scannable_items").add("item")),
+        Map.entry("scannable item without file name", metafile -> firstScannableItem(metafile).remove("file_name")),
+        Map.entry("scannable item without next action", metafile -> firstScannableItem(metafile).remove("next_action")),
+        Map.entry("scannable item with unknown property", metafile -> firstScannableItem(metafile).put("unknown", 1)),
+        Map.entry("non numeric document control number",
+            metafile -> firstScannableItem(metafile).put("document_control_number", "11A")),
+        Map.entry("invalid ocr data", metafile -> firstScannableItem(metafile).put("ocr_data", "e30=!")),
+        Map.entry("null ocr data", metafile -> firstScannableItem(metafile).putNull("ocr_data")),
+        Map.entry("file name not a pdf", metafile -> firstScannableItem(metafile).put("file_name", "1111001.tif")),
+        Map.entry("file name with line break", metafile -> firstScannableItem(metafile).put("file_name", "a\nb.pdf")),
+        Map.entry("unknown document type", metafile -> firstScannableItem(metafile).put("document_type", "form")),
+        Map.entry("form document type", metafile -> firstScannableItem(metafile).put("document_type", "Form")),
+        Map.entry("invalid scanning date", metafile -> firstScannableItem(metafile).put("scanning_date", "today")),
+        Map.entry("payment without document control number",
+            metafile -> metafile.putArray("payments").addObject().put("amount", 10)),
+        Map.entry("payment with additional property",
+            metafile -> metafile.putArray("payments").addObject().put("document_control_number", "1").put("amount", 10)),
+        Map.entry("duplicate payments with equal numbers", metafile -> {
+            var payments = metafile.putArray("payments");
+            payments.addObject().put("document_control_number", "1").put("amount", 10);
+            payments.addObject().put("document_control_number", "1").put("amount", 10.0);
+        }),
+        Map.entry("duplicate payments with fields in another order", metafile -> {
+            var payments = metafile.putArray("payments");
+            payments.addObject().put("document_control_number", "1").put("amount", 10);
+            payments.addObject().put("amount", 10).put("document_control_number", "1");
+        }),
+        Map.entry("many payments", metafile -> {
+            var payments = metafile.putArray("payments");
+            for (int i = 0; i < 1000; i++) {
+                payments.addObject().put("document_control_number", String.valueOf(i));
+            }
+        }),
+        Map.entry("many payments with one duplicate", metafile -> {
+            var payments = metafile.putArray("payments");
+            for (int i = 0; i < 1000; i++) {
+                payments.addObject().put("document_control_number", String.valueOf(i));
+            }
+            payments.addObject().put("document_control_number", "500");
+        }),
+        Map.entry("non scannable item without item type",
+            metafile -> metafile.putArray("non_scannable_items").addObject().put("document_control_number", "1")),
+        Map.entry("non scannable item with null notes", metafile -> metafile.putArray("non_scannable_items").addObject()
+            .put("document_control_number", "1").put("item_type", "CD").putNull("notes"))
+    );
+
+    private static SchemaValidator fgeSchemaValidator;
+    private static SchemaValidator compiledSchemaValidator;
+
+    @BeforeAll
+    static void setUp() throws IOException, ProcessingException {
+        fgeSchemaValidator = new FgeSchemaValidator();
+        compiledSchemaValidator = new CompiledMetafileSchemaValidator();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("metafiles")
+    void should_accept_and_reject_the_same_metafiles(String description, JsonNode metafile) {
+        assertThat(isValid(compiledSchemaValidator, metafile))
+            .as(description)
+            .isEqualTo(isValid(fgeSchemaValidator, metafile));
+    }
+
+    private static Stream<Arguments> metafiles() throws URISyntaxException {
+        File[] files = new File(
+            Objects.requireNonNull(SchemaValidatorConformanceTest.class.getResource("/metafiles/valid")).toURI()
+        ).listFiles();
+
+        return Stream.of(Objects.requireNonNull(files))
+            .flatMap(file -> MUTATIONS.entrySet().stream().map(mutation -> {
+                ObjectNode metafile = read(file);
+                mutation.getValue().accept(metafile);
+                return Arguments.of(file.getName() + ": " + mutation.getKey(), metafile);
+            }));
+    }
+
+    private static boolean isValid(SchemaValidator schemaValidator, JsonNode metafile) {
+        try {
+            schemaValidator.validate(metafile, "envelope.zip");
+            return true;
+        } catch (InvalidEnvelopeSchemaException exception) {
+            return false;
+        } catch (ProcessingException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static ObjectNode firstScannableItem(ObjectNode metafile) {
+        return (ObjectNode) metafile.withArray("scannable_items").get(0);
+    }
+
+    private static ObjectNode read(File file) {
+        try {
+            return (ObjectNode) MAPPER.readTree(file);
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}